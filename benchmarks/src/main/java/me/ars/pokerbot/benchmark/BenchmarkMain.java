@@ -0,0 +1,40 @@
+package me.ars.pokerbot.benchmark;
+
+import java.io.IOException;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/*
+ * Runs the benchmarks selected by the usual JMH command line, always with the
+ * GC profiler attached so that allocation rates (gc.alloc.rate.norm, in bytes
+ * per operation) are reported alongside throughput.
+ */
+public final class BenchmarkMain {
+	private BenchmarkMain() {
+	}
+
+	public static void main(String[] args) throws CommandLineOptionException,
+			IOException, RunnerException {
+		final CommandLineOptions cmdOptions = new CommandLineOptions(args);
+
+		if (cmdOptions.shouldHelp()) {
+			cmdOptions.showHelp();
+			return;
+		}
+
+		final Runner runner = new Runner(new OptionsBuilder()
+				.parent(cmdOptions).addProfiler(GCProfiler.class).build());
+
+		if (cmdOptions.shouldList()) {
+			runner.list();
+			return;
+		}
+
+		runner.run();
+	}
+}
@@ -0,0 +1,85 @@
+package me.ars.pokerbot.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import me.ars.pokerbot.CheckpointFile;
+import me.ars.pokerbot.GameEngine;
+import me.ars.pokerbot.GameEngine.Action;
+import me.ars.pokerbot.GameListener;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * The checkpoint written after every action, for a six-player game on the
+ * flop: saving the engine's state, and writing it to a checkpoint file.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CheckpointBenchmark implements GameListener {
+	private static final int PLAYERS = 6;
+	private static final int START_MONEY = 200;
+	private static final int ANTE = 5;
+
+	private final ByteBuffer state = ByteBuffer
+			.allocate(CheckpointFile.CAPACITY);
+
+	private GameEngine engine;
+	private File file;
+	private CheckpointFile checkpoint;
+
+	@Setup
+	public void setup() throws IOException {
+		engine = new GameEngine(this, START_MONEY, ANTE,
+				new SplittableRandom(42)::nextInt);
+
+		for (int i = 0; i < PLAYERS; i++)
+			engine.addPlayer("player" + i);
+
+		engine.startGame();
+
+		// call around to the flop
+		while (engine.getBoard().isEmpty())
+			engine.act(Action.CALL);
+
+		file = File.createTempFile("benchmark", ".ckpt");
+		checkpoint = CheckpointFile.open(file);
+	}
+
+	@TearDown
+	public void tearDown() {
+		checkpoint.delete();
+	}
+
+	@Benchmark
+	public ByteBuffer save() {
+		state.clear();
+		engine.saveState(state);
+		return state;
+	}
+
+	@Benchmark
+	public void saveAndWrite() {
+		state.clear();
+		engine.saveState(state);
+		state.flip();
+		checkpoint.write(state);
+	}
+}
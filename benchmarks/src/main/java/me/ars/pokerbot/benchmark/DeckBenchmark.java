@@ -0,0 +1,83 @@
+package me.ars.pokerbot.benchmark;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import me.ars.pokerbot.Card;
+import me.ars.pokerbot.Deck;
+import me.ars.pokerbot.DeckPool;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Preparing a shuffled deck at the start of every hand, and dealing a 6-player
+ * hand (17 cards) from it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DeckBenchmark {
+	private static final int CARDS_DEALT = 2 * 6 + 5;
+
+	private final Queue<Card> deck = new ArrayDeque<>(52);
+	private final Deck lazyDeck = new Deck(new SplittableRandom(42)::nextInt);
+	private final DeckPool pool = new DeckPool();
+
+	@Benchmark
+	public Card[] getDeck() {
+		return Card.getDeck();
+	}
+
+	/*
+	 * the deck preparation formerly done in setupHand, shuffling all 52 cards
+	 */
+	@Benchmark
+	public void shuffledDeck(Blackhole bh) {
+		final List<Card> rawDeck = Arrays.asList(Card.getDeck());
+		Collections.shuffle(rawDeck);
+		deck.clear();
+		deck.addAll(rawDeck);
+
+		for (int i = 0; i < CARDS_DEALT; i++)
+			bh.consume(deck.poll());
+	}
+
+	@Benchmark
+	public void lazyDeck(Blackhole bh) {
+		lazyDeck.reset();
+
+		for (int i = 0; i < CARDS_DEALT; i++)
+			bh.consume(lazyDeck.next());
+	}
+
+	/*
+	 * the shuffling is done by the pool's thread, which competes for the CPU
+	 * if there are no spare cores
+	 */
+	@Benchmark
+	public void pooledDeck(Blackhole bh) {
+		final Deck deck = pool.take();
+
+		for (int i = 0; i < CARDS_DEALT; i++)
+			bh.consume(deck.next());
+
+		pool.release(deck);
+	}
+}
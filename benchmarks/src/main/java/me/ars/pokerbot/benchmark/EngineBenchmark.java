@@ -0,0 +1,77 @@
+package me.ars.pokerbot.benchmark;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import me.ars.pokerbot.GameEngine;
+import me.ars.pokerbot.GameEngine.Action;
+import me.ars.pokerbot.GameListener;
+import me.ars.pokerbot.Hand;
+import me.ars.pokerbot.Player;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * The same hands as GameLoopBenchmark, played directly against a GameEngine,
+ * without any command parsing or output.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EngineBenchmark implements GameListener {
+	private static final int PLAYERS = 6;
+	private static final int START_MONEY = 200;
+	private static final int ANTE = 5;
+
+	private GameEngine engine;
+	private boolean handOver;
+
+	@Setup
+	public void setup() {
+		engine = new GameEngine(this, START_MONEY, ANTE,
+				new SplittableRandom(42)::nextInt);
+		startGame();
+	}
+
+	private void startGame() {
+		for (int i = 0; i < PLAYERS; i++)
+			engine.addPlayer("player" + i);
+
+		engine.startGame();
+	}
+
+	@Benchmark
+	public void playHand() {
+		handOver = false;
+
+		while (!handOver)
+			engine.act(Action.CALL);
+
+		// restart once all but one player have gone broke
+		if (!engine.isGameInProgress())
+			startGame();
+	}
+
+	@Override
+	public void onShowdown(List<Hand> winners, int share) {
+		handOver = true;
+	}
+
+	@Override
+	public void onWinByFold(Player winner, int pot) {
+		handOver = true;
+	}
+}
@@ -0,0 +1,102 @@
+package me.ars.pokerbot.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import me.ars.pokerbot.Constants;
+import me.ars.pokerbot.OutboundScheduler.Priority;
+import me.ars.pokerbot.PokerBot;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Complete hands played through the bot's command handling, with every player
+ * calling (or checking) down to the showdown. Table commands are run directly
+ * on the calling thread, and output is discarded instead of being queued for
+ * IRC.
+ *
+ * The bot reads parameters.cfg, so this must be run from the repository root.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameLoopBenchmark {
+	private static final int PLAYERS = 6;
+
+	private ScriptedBot bot;
+
+	@Setup
+	public void setup() {
+		bot = new ScriptedBot();
+		bot.startGame();
+	}
+
+	@Benchmark
+	public void playHand() {
+		bot.playHand();
+	}
+
+	private static final class ScriptedBot extends PokerBot {
+		private static final String CHANNEL = "#benchmark";
+		private static final String ADMIN = "admin";
+		private static final String HOST = "benchmark.host";
+		private static final String TURN_SUFFIX = "'s turn!";
+
+		private String turn;
+		private boolean handOver;
+		private boolean gameOver;
+
+		ScriptedBot() {
+			super(CHANNEL, Runnable::run, null, null, null);
+			onPrivateMessage(ADMIN, ADMIN, HOST, Constants.CMD_PREFIX
+					+ "auth " + Constants.getConfig().getAdminKey());
+		}
+
+		void startGame() {
+			for (int i = 0; i < PLAYERS; i++)
+				command("player" + i, "join");
+
+			command(ADMIN, "start");
+		}
+
+		void playHand() {
+			handOver = false;
+
+			while (!handOver && !gameOver)
+				command(turn, "call");
+
+			// restart once all but one player have gone broke
+			if (gameOver) {
+				gameOver = false;
+				startGame();
+			}
+		}
+
+		private void command(String sender, String command) {
+			onMessage(CHANNEL, sender, sender, HOST, Constants.CMD_PREFIX
+					+ command);
+		}
+
+		@Override
+		protected void send(String target, String message, Priority priority) {
+			if (message.endsWith(TURN_SUFFIX))
+				turn = message.substring(0,
+						message.length() - TURN_SUFFIX.length());
+			else if (message.startsWith("Starting new hand"))
+				handOver = true;
+			else if (message.startsWith("Not enough players left"))
+				gameOver = true;
+		}
+	}
+}
@@ -0,0 +1,172 @@
+package me.ars.pokerbot.benchmark;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import me.ars.pokerbot.BoardEvaluator;
+import me.ars.pokerbot.Card;
+import me.ars.pokerbot.CardSet;
+import me.ars.pokerbot.Hand;
+import me.ars.pokerbot.HandEvaluator;
+import me.ars.pokerbot.OmahaEvaluator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Hand evaluation and comparison over a fixed set of random 7-card hands, and
+ * showdowns between nine players over random boards, with every hand
+ * evaluated from scratch or by adding its hole cards to the board's
+ * evaluation. Omaha showdowns (four hole cards each) compare evaluating all 60
+ * five-card combinations of each hand with OmahaEvaluator.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HandBenchmark {
+	/*
+	 * number of distinct hands cycled through (a power of 2)
+	 */
+	private static final int HANDS = 1024;
+
+	private static final int SHOWDOWN_PLAYERS = 9;
+
+	private final Card[][] cards = new Card[HANDS][];
+	private final long[] masks = new long[HANDS];
+	private final Hand[] hands = new Hand[HANDS];
+
+	private final long[] boards = new long[HANDS];
+	private final long[][] holes = new long[HANDS][SHOWDOWN_PLAYERS];
+	private final BoardEvaluator evaluator = new BoardEvaluator();
+
+	private final long[][] omahaHoles = new long[HANDS][SHOWDOWN_PLAYERS];
+	private final OmahaEvaluator omahaEvaluator = new OmahaEvaluator();
+
+	private int index;
+
+	@Setup
+	public void setup() {
+		final Random random = new Random(42);
+		final List<Card> deck = Arrays.asList(Card.getDeck());
+
+		for (int i = 0; i < HANDS; i++) {
+			Collections.shuffle(deck, random);
+			cards[i] = deck.subList(0, 7).toArray(new Card[7]);
+			masks[i] = CardSet.of(cards[i]);
+			hands[i] = Hand.getBestHand(null, cards[i].clone());
+
+			Collections.shuffle(deck, random);
+			boards[i] = CardSet.of(deck.subList(0, 5));
+
+			for (int p = 0; p < SHOWDOWN_PLAYERS; p++)
+				holes[i][p] = CardSet.of(deck.subList(5 + 2 * p, 7 + 2 * p));
+
+			for (int p = 0; p < SHOWDOWN_PLAYERS; p++)
+				omahaHoles[i][p] = CardSet.of(deck.subList(5 + 4 * p, 9 + 4 * p));
+		}
+	}
+
+	@Benchmark
+	public Hand getBestHand() {
+		return Hand.getBestHand(null, cards[index++ & (HANDS - 1)]);
+	}
+
+	@Benchmark
+	public int evaluate() {
+		return HandEvaluator.evaluate(masks[index++ & (HANDS - 1)]);
+	}
+
+	@Benchmark
+	public int compareTo() {
+		final int i = index++;
+		return hands[i & (HANDS - 1)].compareTo(hands[(i + 1) & (HANDS - 1)]);
+	}
+
+	@Benchmark
+	public int showdownFromScratch() {
+		final int i = index++ & (HANDS - 1);
+		int best = 0;
+
+		for (int p = 0; p < SHOWDOWN_PLAYERS; p++)
+			best = Math.max(best, HandEvaluator.evaluate(boards[i]
+					| holes[i][p]));
+
+		return best;
+	}
+
+	@Benchmark
+	public int showdownIncremental() {
+		final int i = index++ & (HANDS - 1);
+		int best = 0;
+
+		evaluator.set(boards[i]);
+
+		for (int p = 0; p < SHOWDOWN_PLAYERS; p++)
+			best = Math.max(best, evaluator.evaluate(holes[i][p]));
+
+		return best;
+	}
+
+	@Benchmark
+	public int omahaShowdownFromScratch() {
+		final int i = index++ & (HANDS - 1);
+		int best = 0;
+
+		for (int p = 0; p < SHOWDOWN_PLAYERS; p++)
+			best = Math.max(best, omahaFromScratch(boards[i], omahaHoles[i][p]));
+
+		return best;
+	}
+
+	@Benchmark
+	public int omahaShowdownIncremental() {
+		final int i = index++ & (HANDS - 1);
+		int best = 0;
+
+		omahaEvaluator.set(boards[i]);
+
+		for (int p = 0; p < SHOWDOWN_PLAYERS; p++)
+			best = Math.max(best, omahaEvaluator.evaluate(omahaHoles[i][p]));
+
+		return best;
+	}
+
+	/*
+	 * the best of every two hole cards with every three board cards
+	 */
+	private static int omahaFromScratch(long board, long hole) {
+		int best = 0;
+
+		for (long a = hole; a != 0; a = CardSet.rest(a)) {
+			for (long b = CardSet.rest(a); b != 0; b = CardSet.rest(b)) {
+				final long pair = (a & -a) | (b & -b);
+
+				for (long c = board; c != 0; c = CardSet.rest(c)) {
+					for (long d = CardSet.rest(c); d != 0; d = CardSet.rest(d)) {
+						for (long e = CardSet.rest(d); e != 0; e = CardSet
+								.rest(e)) {
+							best = Math.max(best, HandEvaluator.evaluate(pair
+									| (c & -c) | (d & -d) | (e & -e)));
+						}
+					}
+				}
+			}
+		}
+
+		return best;
+	}
+}
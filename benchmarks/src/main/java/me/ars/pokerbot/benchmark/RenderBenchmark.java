@@ -0,0 +1,81 @@
+package me.ars.pokerbot.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import me.ars.pokerbot.Card;
+import me.ars.pokerbot.Hand;
+import me.ars.pokerbot.Player;
+import me.ars.pokerbot.Renderer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Rendering of the messages sent on every turn and every showdown, for a
+ * six-player game on the river.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RenderBenchmark {
+	private static final int PLAYERS = 6;
+
+	private final Renderer renderer = new Renderer();
+
+	private final List<Player> players = new ArrayList<>();
+	private List<Card> board;
+	private List<Hand> winners;
+
+	@Setup
+	public void setup() {
+		final List<Card> deck = Arrays.asList(Card.getDeck());
+		Collections.shuffle(deck, new Random(42));
+
+		board = new ArrayList<>(deck.subList(0, 5));
+
+		for (int i = 0; i < PLAYERS; i++) {
+			final Player player = new Player("player" + i, 200 + 17 * i);
+			player.receiveCards(deck.get(5 + 2 * i), deck.get(6 + 2 * i));
+			players.add(player);
+		}
+
+		final Card[] cards = new Card[7];
+		board.toArray(cards);
+		cards[5] = players.get(0).getCard1();
+		cards[6] = players.get(0).getCard2();
+		winners = Collections.singletonList(Hand.getBestHand(players.get(0),
+				cards));
+	}
+
+	@Benchmark
+	public String status() {
+		return renderer.status(board, 1234);
+	}
+
+	@Benchmark
+	public String stacks() {
+		return renderer.stacks(players);
+	}
+
+	@Benchmark
+	public String showdown() {
+		renderer.reveal(players);
+		return renderer.result(winners);
+	}
+}
@@ -0,0 +1,481 @@
+package me.ars.pokerbot;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/*
+ * Players' money, kept across games and restarts.
+ *
+ * Every change in a balance is appended to a write-ahead log as a delta. The
+ * game threads only update the balances in memory and queue the deltas; a
+ * background thread writes out whatever has been queued every few
+ * milliseconds, and syncs the log to disk once per batch (group commit). A
+ * crash therefore loses at most the deltas of the last batch.
+ *
+ * Once the log grows large enough, the balances it leads to are written to a
+ * snapshot and a new log is started, so that replaying on startup stays
+ * quick. Logs are numbered by generation: a snapshot records the last
+ * generation it covers, and only later logs are replayed on top of it.
+ *
+ * Log record: int payload length, int CRC32 of payload, then the payload: byte
+ * type, UTF name, int amount. Replay stops at the first incomplete or corrupt
+ * record, which can only be the tail of a batch being written during a crash.
+ *
+ * A player can only be seated at one game at a time, whichever channel it is
+ * in: sitting down stakes their balance, and they cannot stake it again until
+ * they leave the game. Otherwise, games in several channels could each lose
+ * the whole balance, and take it below zero.
+ *
+ * Snapshot: int magic, int version, long generation, int count, then count
+ * (UTF name, long balance) pairs, followed by the CRC32 of everything before
+ * it.
+ */
+public class Bankroll {
+	private static final int SNAPSHOT_MAGIC = 0x42524f4c; // "BROL"
+	private static final int SNAPSHOT_VERSION = 1;
+
+	private static final String SNAPSHOT_NAME = "bankroll.snapshot";
+	private static final String LOG_PREFIX = "bankroll.";
+	private static final String LOG_SUFFIX = ".log";
+
+	private static final long COMMIT_INTERVAL_NANOS = TimeUnit.MILLISECONDS
+			.toNanos(5);
+
+	/*
+	 * log size past which a snapshot is taken
+	 */
+	private static final long SNAPSHOT_THRESHOLD = 4 << 20;
+
+	/*
+	 * record types
+	 */
+	private static final byte GRANT = 1;
+	private static final byte BET = 2;
+	private static final byte WIN = 3;
+	private static final byte RESTORE = 4;
+
+	private final File directory;
+
+	/*
+	 * balances as seen by the game threads, including deltas not yet
+	 * committed
+	 */
+	private final Map<String, Long> balances = new ConcurrentHashMap<>();
+
+	private final Queue<Record> pending = new ConcurrentLinkedQueue<>();
+
+	/*
+	 * the money each seated player sat down with
+	 */
+	private final Map<String, Integer> stakes = new ConcurrentHashMap<>();
+
+	/*
+	 * state owned by the committer thread: the balances reflected in the
+	 * current log, and the log itself
+	 */
+	private final Map<String, Long> committed;
+	private long generation;
+	private FileChannel log;
+	private long logSize;
+
+	private final ByteArrayOutputStream batch = new ByteArrayOutputStream(
+			4096);
+	private final ByteArrayOutputStream payload = new ByteArrayOutputStream(64);
+	private final DataOutputStream payloadOut = new DataOutputStream(payload);
+	private final CRC32 crc = new CRC32();
+
+	private final Thread committer;
+	private volatile boolean running = true;
+
+	private Bankroll(File directory, Map<String, Long> committed,
+			long generation) throws IOException {
+		this.directory = directory;
+		this.committed = committed;
+		this.generation = generation;
+		this.balances.putAll(committed);
+
+		// compact whatever was replayed, and start on a fresh log
+		snapshot();
+
+		this.committer = new Thread(this::commitLoop, "bankroll-committer");
+		this.committer.setDaemon(true);
+		this.committer.start();
+	}
+
+	/*
+	 * Loads the balances stored in the given directory, creating it if needed,
+	 * and starts logging to it.
+	 */
+	public static Bankroll open(File directory) throws IOException {
+		if (!directory.isDirectory() && !directory.mkdirs())
+			throw new IOException("Could not create " + directory + ".");
+
+		final Map<String, Long> balances = new HashMap<>();
+		final File snapshot = new File(directory, SNAPSHOT_NAME);
+		long generation = snapshot.exists() ? readSnapshot(snapshot, balances)
+				: 0;
+
+		for (long g : logGenerations(directory)) {
+			if (g > generation) {
+				replay(logFile(directory, g), balances);
+				generation = g;
+			}
+		}
+
+		return new Bankroll(directory, balances, generation);
+	}
+
+	/*
+	 * Returns the money the player sits down with, granting them the starting
+	 * money if they are new or broke, or -1 if they are already seated at a
+	 * game. The stake is held until released.
+	 */
+	public int stake(String name, int startMoney) {
+		final String key = key(name);
+
+		// claim the seat before the balance is read
+		if (stakes.putIfAbsent(key, 0) != null)
+			return -1;
+
+		final Long balance = balances.get(key);
+		final int money;
+
+		if (balance == null || balance <= 0) {
+			record(GRANT, key, startMoney - (balance == null ? 0 : balance));
+			money = startMoney;
+		} else {
+			money = (int) Math.min(balance, Integer.MAX_VALUE);
+		}
+
+		stakes.put(key, money);
+		return money;
+	}
+
+	/*
+	 * Holds the stake of a player seated with the given money at a game
+	 * restored from a checkpoint, and sets their balance to that money.
+	 *
+	 * A seated player's balance is their money at the table, but the deltas
+	 * of the batch being committed when the bot died are lost, while the
+	 * checkpoint, written after every action, is not. The hand resumes from
+	 * the checkpoint, so the balance is made to agree with it, rather than
+	 * have the pot hold bets the balance never paid for.
+	 */
+	public void restake(String name, int money) {
+		final String key = key(name);
+		stakes.put(key, money);
+
+		final long balance = getBalance(name);
+
+		// the money at the table is capped, the balance behind it is not
+		if (balance != money && balance < Integer.MAX_VALUE)
+			record(RESTORE, key, money - balance);
+	}
+
+	/*
+	 * Releases the stake of a player who left their game.
+	 */
+	public void release(String name) {
+		stakes.remove(key(name));
+	}
+
+	public boolean isStaked(String name) {
+		return stakes.containsKey(key(name));
+	}
+
+	public void bet(String name, int amount) {
+		if (amount != 0)
+			record(BET, key(name), -amount);
+	}
+
+	public void win(String name, int amount) {
+		if (amount != 0)
+			record(WIN, key(name), amount);
+	}
+
+	public long getBalance(String name) {
+		final Long balance = balances.get(key(name));
+		return balance == null ? 0 : balance;
+	}
+
+	/*
+	 * Commits everything recorded so far and stops logging.
+	 */
+	public void close() {
+		running = false;
+		LockSupport.unpark(committer);
+
+		try {
+			committer.join();
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void record(byte type, String key, long delta) {
+		balances.merge(key, delta, Long::sum);
+		pending.add(new Record(type, key, delta));
+	}
+
+	private static String key(String name) {
+		return name.toLowerCase(Locale.ROOT);
+	}
+
+	private void commitLoop() {
+		while (true) {
+			final boolean stopping = !running;
+
+			try {
+				commit();
+
+				if (logSize >= SNAPSHOT_THRESHOLD)
+					snapshot();
+			} catch (IOException ioe) {
+				System.err.println("Could not write bankroll log: "
+						+ ioe.getMessage());
+			}
+
+			if (stopping)
+				break;
+
+			LockSupport.parkNanos(COMMIT_INTERVAL_NANOS);
+		}
+
+		try {
+			log.close();
+		} catch (IOException ioe) {
+			ioe.printStackTrace();
+		}
+	}
+
+	/*
+	 * writes out and syncs everything pending, as a single batch
+	 */
+	private void commit() throws IOException {
+		batch.reset();
+		Record record;
+
+		while ((record = pending.poll()) != null) {
+			payload.reset();
+			payloadOut.writeByte(record.type);
+			payloadOut.writeUTF(record.key);
+			payloadOut.writeInt((int) record.delta);
+
+			crc.reset();
+			crc.update(payload.toByteArray());
+
+			writeInt(batch, payload.size());
+			writeInt(batch, (int) crc.getValue());
+			payload.writeTo(batch);
+
+			committed.merge(record.key, record.delta, Long::sum);
+		}
+
+		if (batch.size() == 0)
+			return;
+
+		final ByteBuffer buffer = ByteBuffer.wrap(batch.toByteArray());
+
+		while (buffer.hasRemaining())
+			log.write(buffer);
+
+		log.force(false);
+		logSize += batch.size();
+	}
+
+	private static void writeInt(ByteArrayOutputStream out, int v) {
+		out.write(v >>> 24);
+		out.write(v >>> 16);
+		out.write(v >>> 8);
+		out.write(v);
+	}
+
+	/*
+	 * Writes the committed balances to a new snapshot, replacing the old one,
+	 * then moves on to the next log generation and deletes the logs the
+	 * snapshot covers.
+	 */
+	private void snapshot() throws IOException {
+		final File tmp = new File(directory, SNAPSHOT_NAME + ".tmp");
+
+		try (FileOutputStream file = new FileOutputStream(tmp)) {
+			final CheckedOutputStream checked = new CheckedOutputStream(
+					new BufferedOutputStream(file), new CRC32());
+			final DataOutputStream out = new DataOutputStream(checked);
+
+			out.writeInt(SNAPSHOT_MAGIC);
+			out.writeInt(SNAPSHOT_VERSION);
+			out.writeLong(generation);
+			out.writeInt(committed.size());
+
+			for (Map.Entry<String, Long> entry : committed.entrySet()) {
+				out.writeUTF(entry.getKey());
+				out.writeLong(entry.getValue());
+			}
+
+			out.writeLong(checked.getChecksum().getValue());
+			out.flush();
+			file.getFD().sync();
+		}
+
+		Files.move(tmp.toPath(), new File(directory, SNAPSHOT_NAME).toPath(),
+				StandardCopyOption.ATOMIC_MOVE,
+				StandardCopyOption.REPLACE_EXISTING);
+
+		if (log != null)
+			log.close();
+
+		generation++;
+		log = FileChannel.open(logFile(directory, generation).toPath(),
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		logSize = 0;
+
+		for (long g : logGenerations(directory)) {
+			if (g < generation)
+				logFile(directory, g).delete();
+		}
+	}
+
+	/*
+	 * reads a snapshot into the given map, returning its generation
+	 */
+	private static long readSnapshot(File file, Map<String, Long> balances)
+			throws IOException {
+		try (CheckedInputStream checked = new CheckedInputStream(
+				new BufferedInputStream(new FileInputStream(file)),
+				new CRC32())) {
+			final DataInputStream in = new DataInputStream(checked);
+
+			if (in.readInt() != SNAPSHOT_MAGIC
+					|| in.readInt() != SNAPSHOT_VERSION)
+				throw new IOException(file + " is not a bankroll snapshot.");
+
+			final long generation = in.readLong();
+			final int count = in.readInt();
+
+			for (int i = 0; i < count; i++)
+				balances.put(in.readUTF(), in.readLong());
+
+			final long expected = checked.getChecksum().getValue();
+
+			if (in.readLong() != expected)
+				throw new IOException(file + " is corrupt.");
+
+			return generation;
+		}
+	}
+
+	private static void replay(File file, Map<String, Long> balances)
+			throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+				new FileInputStream(file)))) {
+			final CRC32 crc = new CRC32();
+
+			while (true) {
+				final int length;
+				final int checksum;
+				final byte[] payload;
+
+				try {
+					length = in.readInt();
+					checksum = in.readInt();
+
+					if (length <= 0 || length > 1024)
+						break;
+
+					payload = new byte[length];
+					in.readFully(payload);
+				} catch (EOFException eofe) {
+					break;
+				}
+
+				crc.reset();
+				crc.update(payload);
+
+				if ((int) crc.getValue() != checksum)
+					break;
+
+				final DataInputStream record = new DataInputStream(
+						new ByteArrayInputStream(payload));
+				record.readByte();
+				final String key = record.readUTF();
+				final long delta = record.readInt();
+
+				balances.merge(key, delta, Long::sum);
+			}
+		}
+	}
+
+	private static File logFile(File directory, long generation) {
+		return new File(directory, LOG_PREFIX + generation + LOG_SUFFIX);
+	}
+
+	/*
+	 * generations of the logs in the directory, in increasing order
+	 */
+	private static long[] logGenerations(File directory) {
+		final String[] names = directory.list();
+
+		if (names == null)
+			return new long[0];
+
+		final long[] generations = new long[names.length];
+		int count = 0;
+
+		for (String name : names) {
+			if (!name.startsWith(LOG_PREFIX) || !name.endsWith(LOG_SUFFIX))
+				continue;
+
+			try {
+				generations[count] = Long.parseLong(name.substring(
+						LOG_PREFIX.length(), name.length() - LOG_SUFFIX.length()));
+				count++;
+			} catch (NumberFormatException nfe) {
+				continue;
+			}
+		}
+
+		final long[] result = Arrays.copyOf(generations, count);
+		Arrays.sort(result);
+		return result;
+	}
+
+	private static final class Record {
+		final byte type;
+		final String key;
+		final long delta;
+
+		Record(byte type, String key, long delta) {
+			this.type = type;
+			this.key = key;
+			this.delta = delta;
+		}
+	}
+}
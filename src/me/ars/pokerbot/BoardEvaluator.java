@@ -0,0 +1,135 @@
+package me.ars.pokerbot;
+
+/*
+ * Incremental hand evaluation against a shared board. The part of evaluating
+ * a hand that depends only on the board (its cards split into per-suit rank
+ * masks, and which suit, if any, still allows a flush) is updated as each card
+ * lands, so that evaluating a player's hand only adds their hole cards to it.
+ *
+ * Since a board of at most 5 cards can hold 3 or more cards of only one suit,
+ * only that suit can ever make a flush, and hands on boards without one skip
+ * the flush checks altogether.
+ *
+ * Strengths are those of HandEvaluator. Not thread-safe, and allocation-free.
+ */
+public final class BoardEvaluator {
+	private static final int RANK_MASK = HandEvaluator.RANK_MASK;
+
+	private long board;
+	private int size;
+
+	/*
+	 * rank masks of the board's cards of each suit
+	 */
+	private int s0, s1, s2, s3;
+
+	/*
+	 * the suit with 3 or more cards on the board, or -1 if there is none
+	 */
+	private int flushSuit = -1;
+
+	public long getBoard() {
+		return board;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public void clear() {
+		board = CardSet.EMPTY;
+		size = 0;
+		s0 = s1 = s2 = s3 = 0;
+		flushSuit = -1;
+	}
+
+	/*
+	 * Replaces the board with the given set of cards.
+	 */
+	public void set(long cards) {
+		board = cards;
+		size = Long.bitCount(cards);
+		s0 = (int) cards & RANK_MASK;
+		s1 = (int) (cards >>> 13) & RANK_MASK;
+		s2 = (int) (cards >>> 26) & RANK_MASK;
+		s3 = (int) (cards >>> 39) & RANK_MASK;
+		flushSuit = -1;
+
+		for (int suit = 0; suit < 4; suit++) {
+			if (Integer.bitCount(suitRanks(suit)) >= 3)
+				flushSuit = suit;
+		}
+	}
+
+	/*
+	 * Adds a card landing on the board.
+	 */
+	public void add(Card card) {
+		final int index = card.getIndex();
+		final int suit = index / 13;
+		final int rank = 1 << (index - 13 * suit);
+
+		board |= card.getMask();
+		size++;
+
+		switch (suit) {
+		case 0:
+			s0 |= rank;
+			break;
+		case 1:
+			s1 |= rank;
+			break;
+		case 2:
+			s2 |= rank;
+			break;
+		default:
+			s3 |= rank;
+			break;
+		}
+
+		if (Integer.bitCount(suitRanks(suit)) >= 3)
+			flushSuit = suit;
+	}
+
+	/*
+	 * strength of the best hand made by two hole cards on the board, which
+	 * must have at least 3 cards
+	 */
+	public int evaluate(Card card1, Card card2) {
+		return evaluate(card1.getMask() | card2.getMask());
+	}
+
+	/*
+	 * @param hole bitmask of two hole cards, disjoint from the board
+	 */
+	public int evaluate(long hole) {
+		final int h0 = (int) hole & RANK_MASK;
+		final int h1 = (int) (hole >>> 13) & RANK_MASK;
+		final int h2 = (int) (hole >>> 26) & RANK_MASK;
+		final int h3 = (int) (hole >>> 39) & RANK_MASK;
+
+		if (flushSuit >= 0) {
+			final int suited = suitRanks(flushSuit)
+					| (int) (hole >>> (13 * flushSuit)) & RANK_MASK;
+
+			if (Integer.bitCount(suited) >= 5)
+				return HandEvaluator.flush(suited);
+		}
+
+		return HandEvaluator.evaluateUnsuited(s0 | h0, s1 | h1, s2 | h2, s3
+				| h3, size + 2);
+	}
+
+	private int suitRanks(int suit) {
+		switch (suit) {
+		case 0:
+			return s0;
+		case 1:
+			return s1;
+		case 2:
+			return s2;
+		default:
+			return s3;
+		}
+	}
+}
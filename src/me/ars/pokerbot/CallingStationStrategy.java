@@ -0,0 +1,19 @@
+package me.ars.pokerbot;
+
+import java.util.SplittableRandom;
+
+/*
+ * Never folds and never raises.
+ */
+public class CallingStationStrategy implements Strategy {
+	@Override
+	public Decision decide(GameEngine game, Player player,
+			SplittableRandom random) {
+		return Decision.checkOrCall(game.amountOwed(player));
+	}
+
+	@Override
+	public String getName() {
+		return "calling-station";
+	}
+}
@@ -37,9 +37,24 @@ public class Card implements Comparable<Card> {
 	private final int value;
 	private final Suit suit;
 
+	/*
+	 * 13 * suit + (value - 2), in 0..51; see CardSet
+	 */
+	private final int index;
+
+	/*
+	 * what toString and toShortString return, rendered once per card
+	 */
+	private final String text;
+	private final String shortText;
+
 	private Card(final int value, final Suit suit) {
 		this.value = value;
 		this.suit = suit;
+		this.index = 13 * suit.ordinal() + value - 2;
+		this.text = render(value, suit);
+		this.shortText = new String(new char[] {
+				VALUE_CHARS.charAt(value - 2), SUIT_CHARS.charAt(suit.ordinal()) });
 	}
 
 	public int getValue() {
@@ -50,8 +65,20 @@ public class Card implements Comparable<Card> {
 		return suit;
 	}
 
+	public int getIndex() {
+		return index;
+	}
+
+	public long getMask() {
+		return 1L << index;
+	}
+
 	@Override
 	public String toString() {
+		return text;
+	}
+
+	private static String render(int value, Suit suit) {
 		String color = (suit == Suit.HEARTS || suit == Suit.DIAMONDS) ? Colors.RED
 				: Colors.BLACK;
 
@@ -93,24 +120,90 @@ public class Card implements Comparable<Card> {
 
 	@Override
 	public int hashCode() {
-		return 32 * suit.ordinal() + value;
+		return index;
 	}
 
+	private static final Suit[] SUITS = Suit.values();
+
+	private static final String VALUE_CHARS = "23456789TJQKA";
+	private static final String SUIT_CHARS = "shdc";
+	private static final String SUIT_SYMBOLS = "\u2660\u2665\u2666\u2663";
+
+	/*
+	 * all 52 cards, indexed by getIndex()
+	 */
 	private static final Card[] deck = new Card[52];
 
-	public static Card[] getDeck() {
-		if (deck[0] == null) {
-			fillDeck();
+	static {
+		for (Suit suit : SUITS) {
+			for (int value = 2; value <= 14; value++) {
+				final Card card = new Card(value, suit);
+				deck[card.index] = card;
+			}
 		}
+	}
+
+	public static Card[] getDeck() {
 		return Arrays.copyOf(deck, deck.length);
 	}
 
-	private static void fillDeck() {
-		int index = 0;
-		for (Suit suit : Suit.values()) {
-			for (int value = 2; value <= 14; value++) {
-				deck[index++] = new Card(value, suit);
-			}
+	public static Card of(int index) {
+		if (index < 0 || index >= deck.length)
+			throw new IllegalArgumentException("Invalid card index: " + index);
+
+		return deck[index];
+	}
+
+	public static Card of(int value, Suit suit) {
+		if (value < 2 || value > 14)
+			throw new IllegalArgumentException("Invalid card value: " + value);
+
+		return deck[13 * suit.ordinal() + value - 2];
+	}
+
+	/*
+	 * Parses cards such as "As", "Td", "10h" or "Q\u2663" (case insensitive).
+	 */
+	public static Card parse(String str) {
+		final int length = str.length();
+
+		if (length < 2 || length > 3)
+			throw new IllegalArgumentException("Malformed card: " + str);
+
+		final int value;
+
+		if (length == 3) {
+			if (!str.startsWith("10"))
+				throw new IllegalArgumentException("Malformed card: " + str);
+
+			value = 10;
+		} else {
+			final int valueIndex = VALUE_CHARS.indexOf(Character
+					.toUpperCase(str.charAt(0)));
+
+			if (valueIndex < 0)
+				throw new IllegalArgumentException("Malformed card: " + str);
+
+			value = valueIndex + 2;
 		}
+
+		final char suitChar = str.charAt(length - 1);
+		int suitIndex = SUIT_CHARS.indexOf(Character.toLowerCase(suitChar));
+
+		if (suitIndex < 0)
+			suitIndex = SUIT_SYMBOLS.indexOf(suitChar);
+
+		if (suitIndex < 0)
+			throw new IllegalArgumentException("Malformed card: " + str);
+
+		return deck[13 * suitIndex + value - 2];
+	}
+
+	/*
+	 * Plain-text form of this card, such as "As" or "Td", as accepted by
+	 * parse.
+	 */
+	public String toShortString() {
+		return shortText;
 	}
 }
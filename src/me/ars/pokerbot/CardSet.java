@@ -0,0 +1,133 @@
+package me.ars.pokerbot;
+
+import java.util.function.IntConsumer;
+
+/*
+ * Operations on sets of cards represented as primitive long bitmasks, in which
+ * the card with index i (see Card.getIndex) occupies bit i. Sets are plain
+ * values, so none of these operations mutate or allocate.
+ *
+ * Sets can be iterated without allocation as follows:
+ *
+ * for (long s = set; s != 0; s = CardSet.rest(s)) {
+ *     int card = CardSet.first(s);
+ *     ...
+ * }
+ */
+public final class CardSet {
+	public static final long EMPTY = 0L;
+
+	public static final long FULL_DECK = (1L << 52) - 1;
+
+	private CardSet() {
+	}
+
+	public static long of(int... indices) {
+		long set = EMPTY;
+
+		for (int index : indices)
+			set |= 1L << index;
+
+		return set;
+	}
+
+	public static long of(Card... cards) {
+		long set = EMPTY;
+
+		for (Card card : cards)
+			set |= card.getMask();
+
+		return set;
+	}
+
+	public static long of(Iterable<Card> cards) {
+		long set = EMPTY;
+
+		for (Card card : cards)
+			set |= card.getMask();
+
+		return set;
+	}
+
+	public static long with(long set, int index) {
+		return set | (1L << index);
+	}
+
+	public static long without(long set, int index) {
+		return set & ~(1L << index);
+	}
+
+	public static long union(long a, long b) {
+		return a | b;
+	}
+
+	public static long intersection(long a, long b) {
+		return a & b;
+	}
+
+	public static long difference(long a, long b) {
+		return a & ~b;
+	}
+
+	public static boolean contains(long set, int index) {
+		return (set & (1L << index)) != 0;
+	}
+
+	public static boolean contains(long set, Card card) {
+		return (set & card.getMask()) != 0;
+	}
+
+	public static boolean containsAll(long set, long other) {
+		return (set & other) == other;
+	}
+
+	public static boolean intersects(long a, long b) {
+		return (a & b) != 0;
+	}
+
+	public static int count(long set) {
+		return Long.bitCount(set);
+	}
+
+	/*
+	 * index of the lowest card in a non-empty set
+	 */
+	public static int first(long set) {
+		return Long.numberOfTrailingZeros(set);
+	}
+
+	/*
+	 * the given set without its lowest card
+	 */
+	public static long rest(long set) {
+		return set & (set - 1);
+	}
+
+	public static void forEach(long set, IntConsumer action) {
+		for (long s = set; s != 0; s = rest(s))
+			action.accept(first(s));
+	}
+
+	public static Card[] toCards(long set) {
+		final Card[] cards = new Card[count(set)];
+		int i = 0;
+
+		for (long s = set; s != 0; s = rest(s))
+			cards[i++] = Card.of(first(s));
+
+		return cards;
+	}
+
+	public static String toString(long set) {
+		final StringBuilder sb = new StringBuilder(3 * count(set));
+
+		for (long s = set; s != 0; s = rest(s)) {
+			if (sb.length() > 0)
+				sb.append(' ');
+
+			sb.append(Card.of(first(s)).toShortString());
+		}
+
+		return sb.toString();
+	}
+}
@@ -0,0 +1,188 @@
+package me.ars.pokerbot;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/*
+ * A memory-mapped file holding the latest checkpoint of some state, which can
+ * be overwritten in a few microseconds and is never left unreadable by a
+ * crash.
+ *
+ * The file is double-buffered: it has two slots, and each checkpoint is
+ * written over the older one, so that the newer one stays intact however far
+ * the write got. Writes go straight to the page cache through the mapping, so
+ * they survive the JVM dying as soon as they are made; they are not synced to
+ * disk, though, so a crash of the machine itself loses the checkpoints made
+ * since the kernel last wrote the file out.
+ *
+ * Header: int magic, int version, int slot size, int unused. Slot: long
+ * sequence number, int payload length, int CRC32 of the sequence number and
+ * payload, then the payload. Checkpoint n is written to slot n % 2, and the
+ * valid slot with the highest sequence number holds the latest checkpoint.
+ *
+ * Not thread-safe.
+ */
+public class CheckpointFile {
+	private static final int MAGIC = 0x50434b50; // "PCKP"
+	private static final int VERSION = 1;
+
+	private static final int HEADER_SIZE = 16;
+	private static final int SLOT_HEADER_SIZE = 16;
+	private static final int SLOT_SIZE = 8192;
+	private static final int FILE_SIZE = HEADER_SIZE + 2 * SLOT_SIZE;
+
+	/*
+	 * the largest payload a checkpoint can have
+	 */
+	public static final int CAPACITY = SLOT_SIZE - SLOT_HEADER_SIZE;
+
+	private final File file;
+	private final MappedByteBuffer map;
+
+	/*
+	 * reused to point the checksum at parts of the mapping
+	 */
+	private final ByteBuffer view;
+	private final CRC32 crc = new CRC32();
+
+	/*
+	 * sequence number of the latest checkpoint, or 0 if there is none
+	 */
+	private long sequence;
+
+	private boolean deleted = false;
+
+	private CheckpointFile(File file, MappedByteBuffer map) {
+		this.file = file;
+		this.map = map;
+		this.view = map.duplicate();
+	}
+
+	/*
+	 * Maps the given file, creating it if needed. A file which is not a
+	 * checkpoint file is overwritten.
+	 */
+	public static CheckpointFile open(File file) throws IOException {
+		final MappedByteBuffer map;
+
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			raf.setLength(FILE_SIZE);
+			map = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0,
+					FILE_SIZE);
+		}
+
+		final CheckpointFile checkpoint = new CheckpointFile(file, map);
+
+		if (map.getInt(0) != MAGIC || map.getInt(4) != VERSION
+				|| map.getInt(8) != SLOT_SIZE) {
+			map.putInt(0, MAGIC);
+			map.putInt(4, VERSION);
+			map.putInt(8, SLOT_SIZE);
+
+			// a zeroed slot header never has a valid checksum
+			for (int slot = 0; slot < 2; slot++)
+				map.putLong(offset(slot), 0).putLong(offset(slot) + 8, 0);
+		}
+
+		final int latest = checkpoint.latest();
+		checkpoint.sequence = latest < 0 ? 0 : map.getLong(offset(latest));
+		return checkpoint;
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	/*
+	 * the payload of the latest checkpoint, or null if there is none
+	 */
+	public ByteBuffer read() {
+		final int slot = latest();
+
+		if (slot < 0)
+			return null;
+
+		final ByteBuffer payload = map.duplicate();
+		payload.position(offset(slot) + SLOT_HEADER_SIZE);
+		payload.limit(payload.position() + map.getInt(offset(slot) + 8));
+		return payload.slice().asReadOnlyBuffer();
+	}
+
+	/*
+	 * Writes the given payload, from its position to its limit, as the latest
+	 * checkpoint. Does nothing once the file is deleted.
+	 */
+	public void write(ByteBuffer payload) {
+		if (deleted)
+			return;
+
+		final int length = payload.remaining();
+
+		if (length > CAPACITY)
+			throw new IllegalArgumentException("Checkpoint of " + length
+					+ " bytes exceeds the capacity of " + CAPACITY + ".");
+
+		final long next = sequence + 1;
+		final int offset = offset((int) (next & 1));
+
+		view.limit(FILE_SIZE).position(offset + SLOT_HEADER_SIZE);
+		view.put(payload);
+		map.putLong(offset, next);
+		map.putInt(offset + 8, length);
+		map.putInt(offset + 12, checksum(offset, length));
+		sequence = next;
+	}
+
+	/*
+	 * Deletes the file, once the state it holds is over with.
+	 */
+	public void delete() {
+		deleted = true;
+
+		if (!file.delete() && file.exists())
+			System.err.println("Could not delete checkpoint " + file + ".");
+	}
+
+	/*
+	 * the slot holding the latest valid checkpoint, or -1 if neither does
+	 */
+	private int latest() {
+		int latest = -1;
+
+		for (int slot = 0; slot < 2; slot++) {
+			if (valid(slot)
+					&& (latest < 0 || map.getLong(offset(slot)) > map
+							.getLong(offset(latest))))
+				latest = slot;
+		}
+
+		return latest;
+	}
+
+	private boolean valid(int slot) {
+		final int offset = offset(slot);
+		final int length = map.getInt(offset + 8);
+
+		return length >= 0 && length <= CAPACITY
+				&& map.getInt(offset + 12) == checksum(offset, length);
+	}
+
+	private int checksum(int offset, int length) {
+		crc.reset();
+		view.limit(offset + 8).position(offset);
+		crc.update(view);
+		view.limit(offset + SLOT_HEADER_SIZE + length).position(
+				offset + SLOT_HEADER_SIZE);
+		crc.update(view);
+		return (int) crc.getValue();
+	}
+
+	private static int offset(int slot) {
+		return HEADER_SIZE + slot * SLOT_SIZE;
+	}
+}
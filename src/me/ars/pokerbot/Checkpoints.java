@@ -0,0 +1,95 @@
+package me.ars.pokerbot;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/*
+ * The directory holding a checkpoint of every game in progress, so that games
+ * survive the bot being restarted or dying mid-hand. Each game has its own
+ * CheckpointFile, named after its channel and number, which it overwrites
+ * after every action and deletes once it is over; whatever files are left
+ * when the bot starts belong to games to be resumed.
+ */
+public class Checkpoints {
+	private static final String SUFFIX = ".ckpt";
+
+	private final File directory;
+
+	/*
+	 * Uses the given directory, creating it if needed.
+	 */
+	public Checkpoints(File directory) throws IOException {
+		if (!directory.isDirectory() && !directory.mkdirs())
+			throw new IOException("Could not create " + directory + ".");
+
+		this.directory = directory;
+	}
+
+	/*
+	 * Creates the checkpoint file of a new game, replacing any left over from
+	 * a game of the same number.
+	 */
+	public CheckpointFile create(String channel, int game) throws IOException {
+		final File file = new File(directory, fileName(channel, game));
+
+		if (file.exists() && !file.delete())
+			throw new IOException("Could not replace " + file + ".");
+
+		return CheckpointFile.open(file);
+	}
+
+	/*
+	 * the checkpoint files left in the directory, skipping (after reporting)
+	 * those which cannot be opened
+	 */
+	public List<CheckpointFile> list() {
+		final List<CheckpointFile> files = new ArrayList<>();
+		final File[] found = directory.listFiles((dir, name) -> name
+				.endsWith(SUFFIX));
+
+		if (found == null)
+			return files;
+
+		for (File file : found) {
+			try {
+				files.add(CheckpointFile.open(file));
+			} catch (IOException ioe) {
+				System.err.println("Could not open checkpoint " + file + ": "
+						+ ioe.getMessage());
+			}
+		}
+
+		return files;
+	}
+
+	private static String fileName(String channel, int game) {
+		try {
+			return URLEncoder.encode(channel.toLowerCase(Locale.ROOT), "UTF-8")
+					+ "." + game + SUFFIX;
+		} catch (UnsupportedEncodingException uee) {
+			throw new AssertionError(uee);
+		}
+	}
+
+	/*
+	 * Strings in checkpoints: unsigned short length, then UTF-8 bytes.
+	 */
+	static void putString(ByteBuffer out, String s) {
+		final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		out.putShort((short) bytes.length);
+		out.put(bytes);
+	}
+
+	static String getString(ByteBuffer in) {
+		final byte[] bytes = new byte[in.getShort() & 0xffff];
+		in.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,71 @@
+package me.ars.pokerbot;
+
+/*
+ * A command users can issue, along with the conditions under which it may be
+ * issued. The conditions are checked by whoever dispatches the command, before
+ * its handler is called: the handler can take them for granted.
+ *
+ * @param <T> what the command acts on (the bot, or a channel's table)
+ */
+public final class Command<T> {
+	/*
+	 * flags: only admins may issue the command; a game must (or must not) be
+	 * in progress; it must be the issuer's turn, which implies a game is in
+	 * progress
+	 */
+	public static final int ADMIN = 1;
+	public static final int GAME = 1 << 1;
+	public static final int NO_GAME = 1 << 2;
+	public static final int TURN = 1 << 3;
+
+	@FunctionalInterface
+	public interface Handler<T> {
+		/*
+		 * @param channel where the command was issued (the sender, for private
+		 * messages)
+		 *
+		 * @param args the words following the command
+		 */
+		void handle(T target, String channel, String sender, String[] args);
+	}
+
+	private final String name;
+	private final int flags;
+	private final String help;
+	private final Handler<T> handler;
+
+	public Command(String name, int flags, String help, Handler<T> handler) {
+		this.name = name;
+		this.flags = flags;
+		this.help = help;
+		this.handler = handler;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getHelp() {
+		return help;
+	}
+
+	public boolean isAdminOnly() {
+		return (flags & ADMIN) != 0;
+	}
+
+	public boolean needsGame() {
+		return (flags & (GAME | TURN)) != 0;
+	}
+
+	public boolean needsNoGame() {
+		return (flags & NO_GAME) != 0;
+	}
+
+	public boolean needsTurn() {
+		return (flags & TURN) != 0;
+	}
+
+	public void handle(T target, String channel, String sender, String[] args) {
+		handler.handle(target, channel, sender, args);
+	}
+}
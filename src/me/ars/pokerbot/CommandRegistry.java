@@ -0,0 +1,157 @@
+package me.ars.pokerbot;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/*
+ * A set of commands, matched against lines of chat.
+ *
+ * Most lines a bot sees are not commands, or not its commands, so matching is
+ * meant to cost next to nothing and allocate nothing: the command keyword is
+ * compared in place against the names of that length, and only once a line
+ * turns out to be a command are its arguments split out.
+ *
+ * Commands are registered up front; a registry is safe to share once it is
+ * fully built.
+ */
+public final class CommandRegistry<T> {
+	private final char prefix;
+
+	/*
+	 * commands in order of registration, and by the length of their names
+	 * (including aliases)
+	 */
+	private final List<Command<T>> commands = new ArrayList<>();
+	private final List<List<Entry<T>>> byLength = new ArrayList<>();
+
+	public CommandRegistry(char prefix) {
+		this.prefix = prefix;
+	}
+
+	/*
+	 * Registers a command under its name and any aliases.
+	 */
+	public void register(Command<T> command, String... aliases) {
+		commands.add(command);
+		add(command.getName(), command);
+
+		for (String alias : aliases)
+			add(alias, command);
+	}
+
+	private void add(String name, Command<T> command) {
+		if (get(name) != null)
+			throw new IllegalArgumentException("Duplicate command: " + name);
+
+		while (byLength.size() <= name.length())
+			byLength.add(new ArrayList<>());
+
+		byLength.get(name.length()).add(new Entry<>(name, command));
+	}
+
+	/*
+	 * the commands, in the order they were registered
+	 */
+	public List<Command<T>> getCommands() {
+		return Collections.unmodifiableList(commands);
+	}
+
+	/*
+	 * the command by the given name or alias, or null if there is none
+	 */
+	public Command<T> get(String name) {
+		if (name.length() >= byLength.size())
+			return null;
+
+		for (Entry<T> entry : byLength.get(name.length())) {
+			if (entry.name.equals(name))
+				return entry.command;
+		}
+
+		return null;
+	}
+
+	/*
+	 * The command the given line issues, or null if it issues none of this
+	 * registry's commands.
+	 */
+	public Command<T> match(String line) {
+		if (line.isEmpty() || line.charAt(0) != prefix)
+			return null;
+
+		final int end = wordEnd(line, 1);
+		final int length = end - 1;
+
+		if (length >= byLength.size())
+			return null;
+
+		final List<Entry<T>> candidates = byLength.get(length);
+
+		for (int i = 0; i < candidates.size(); i++) {
+			final Entry<T> entry = candidates.get(i);
+
+			if (line.regionMatches(1, entry.name, 0, length))
+				return entry.command;
+		}
+
+		return null;
+	}
+
+	/*
+	 * The words of a command line that follow the command itself.
+	 */
+	public static String[] arguments(String line) {
+		int count = 0;
+		int i = wordEnd(line, 0);
+
+		while ((i = skipSpaces(line, i)) < line.length()) {
+			count++;
+			i = wordEnd(line, i);
+		}
+
+		final String[] args = new String[count];
+		i = wordEnd(line, 0);
+
+		for (int n = 0; n < count; n++) {
+			final int start = skipSpaces(line, i);
+			i = wordEnd(line, start);
+			args[n] = line.substring(start, i);
+		}
+
+		return args;
+	}
+
+	private static boolean isSpace(char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\u000B'
+				|| c == '\f' || c == '\r';
+	}
+
+	private static int wordEnd(String line, int from) {
+		int i = from;
+
+		while (i < line.length() && !isSpace(line.charAt(i)))
+			i++;
+
+		return i;
+	}
+
+	private static int skipSpaces(String line, int from) {
+		int i = from;
+
+		while (i < line.length() && isSpace(line.charAt(i)))
+			i++;
+
+		return i;
+	}
+
+	private static final class Entry<T> {
+		final String name;
+		final Command<T> command;
+
+		Entry(String name, Command<T> command) {
+			this.name = name;
+			this.command = command;
+		}
+	}
+}
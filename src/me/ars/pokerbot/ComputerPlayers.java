@@ -0,0 +1,162 @@
+package me.ars.pokerbot;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.DoubleConsumer;
+
+/*
+ * The thinking of the computer players added to games: each works out its
+ * equity on a small pool of its own, away from the tables' mailboxes and the
+ * IRC thread, and then acts on it with PotOddsStrategy.
+ *
+ * Every decision has a hard time budget, counted from when it is asked for:
+ * equities are estimated from as many Monte Carlo samples as fit in whatever
+ * is left of the first three quarters of it once a worker picks the decision
+ * up, the last quarter being left for acting on it. The pool's queue is
+ * bounded, and once it is full, or whenever a decision cannot be estimated,
+ * the player falls back to the preflop table, or failing that to an even
+ * share of the pot, straight away. Decisions no longer needed (the game moved
+ * on or was stopped) are cancelled, which interrupts their sampling.
+ *
+ * Names of computer players contain a character nicks cannot, so that they
+ * never clash with those of people.
+ */
+public class ComputerPlayers {
+	/*
+	 * default time budget of a decision
+	 */
+	public static final long DEFAULT_BUDGET_NANOS = TimeUnit.MILLISECONDS
+			.toNanos(20);
+
+	/*
+	 * share of the budget spent sampling, the rest being left for acting on
+	 * the decision back on the table's mailbox
+	 */
+	private static final double SAMPLING_SHARE = 0.75;
+
+	/*
+	 * most samples drawn for a decision, however much time is left
+	 */
+	private static final int MAX_SAMPLES = 200000;
+
+	/*
+	 * decisions waiting per worker before falling back to the preflop table
+	 */
+	private static final int QUEUE_PER_THREAD = 8;
+
+	private static final String NAME_PREFIX = "bot#";
+
+	private static final PotOddsStrategy STRATEGY = new PotOddsStrategy(
+			PreflopTable.getDefault());
+
+	private final ThreadPoolExecutor pool;
+	private final long budgetNanos;
+
+	/*
+	 * for splitting off a generator per decision; guarded by this
+	 */
+	private final SplittableRandom random = new SplittableRandom();
+
+	public ComputerPlayers() {
+		this(Math.max(1, Runtime.getRuntime().availableProcessors() / 2),
+				DEFAULT_BUDGET_NANOS);
+	}
+
+	public ComputerPlayers(int threads, long budgetNanos) {
+		final AtomicInteger threadCount = new AtomicInteger();
+
+		this.pool = new ThreadPoolExecutor(threads, threads, 0,
+				TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(threads
+						* QUEUE_PER_THREAD), r -> {
+					final Thread thread = new Thread(r, "computer-player-"
+							+ threadCount.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+		this.budgetNanos = budgetNanos;
+	}
+
+	/*
+	 * the name of the computer player with the given number
+	 */
+	public static String name(int number) {
+		return NAME_PREFIX + number;
+	}
+
+	public static boolean isComputer(String name) {
+		return name.startsWith(NAME_PREFIX);
+	}
+
+	public static PotOddsStrategy getStrategy() {
+		return STRATEGY;
+	}
+
+	public long getBudgetNanos() {
+		return budgetNanos;
+	}
+
+	/*
+	 * Works out the equity of the given hold 'em hand against the opponents
+	 * left, within the time budget, and hands it to the callback on a worker
+	 * thread, or on the calling thread if the pool is saturated. The callback
+	 * is not called if the returned decision is cancelled first.
+	 *
+	 * @param board the cards on the table
+	 */
+	public synchronized Future<?> think(long hole, long board, int opponents,
+			DoubleConsumer then) {
+		final long deadline = System.nanoTime()
+				+ (long) (budgetNanos * SAMPLING_SHARE);
+		final SplittableRandom decisionRandom = random.split();
+
+		try {
+			return pool.submit(() -> {
+				final double equity = equity(hole, board, opponents, deadline,
+						decisionRandom);
+
+				if (!Thread.currentThread().isInterrupted())
+					then.accept(equity);
+			});
+		} catch (RejectedExecutionException ree) {
+			then.accept(quickEquity(hole, board, opponents));
+			return null;
+		}
+	}
+
+	private static double equity(long hole, long board, int opponents,
+			long deadline, SplittableRandom random) {
+		final double preflop = PotOddsStrategy.preflopEquity(
+				PreflopTable.getDefault(), hole, board, opponents);
+
+		if (!Double.isNaN(preflop))
+			return preflop;
+
+		// the decision waited in the queue for all of its budget
+		if (System.nanoTime() - deadline >= 0)
+			return quickEquity(hole, board, opponents);
+
+		try {
+			return EquityCalculator.estimate(hole, board, opponents,
+					MAX_SAMPLES, deadline, random).getEquity();
+		} catch (RuntimeException e) {
+			e.printStackTrace();
+			return quickEquity(hole, board, opponents);
+		}
+	}
+
+	/*
+	 * the equity of a hand from the preflop table if it can be read from it,
+	 * or an even share of the pot otherwise
+	 */
+	private static double quickEquity(long hole, long board, int opponents) {
+		final double preflop = PotOddsStrategy.preflopEquity(
+				PreflopTable.getDefault(), hole, board, opponents);
+
+		return Double.isNaN(preflop) ? 1.0 / (opponents + 1) : preflop;
+	}
+}
@@ -0,0 +1,437 @@
+package me.ars.pokerbot;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/*
+ * A snapshot of the bot's configuration file. Snapshots are immutable and
+ * only ever created fully validated: a file with errors yields no snapshot,
+ * only the list of its errors.
+ *
+ * See Constants for the snapshot in effect.
+ */
+public final class Config {
+	private static final String DEFAULT_PREFLOP_TABLE = "preflop.dat";
+
+	private static final String DEFAULT_BANKROLL_DIR = "bankroll";
+
+	private static final String DEFAULT_HISTORY_DIR = "history";
+
+	private static final String DEFAULT_CHECKPOINT_DIR = "checkpoints";
+
+	private static final int DEFAULT_TABLE_SIZE = 9;
+
+	private static final int DEFAULT_TURN_TIME = 60;
+
+	private static final int DEFAULT_TURN_WARNING = 15;
+
+	private static final Pattern CFG_LINE = Pattern
+			.compile("^\\s*(\\S+)\\s*=\\s*(\\S+)\\s*(?:#.*)?$");
+
+	private static final Pattern CFG_COMMENT = Pattern.compile("^\\s*#.*$");
+
+	private static final String PARAM_ADMIN_KEY = "admin_key";
+	private static final String PARAM_GAME_CHANNEL = "gamechan";
+	private static final String PARAM_CHANNEL_KEY = "chan_key";
+	private static final String PARAM_HOST = "host";
+	private static final String PARAM_PORT = "port";
+	private static final String PARAM_SERVER_PASS = "serv_pass";
+	private static final String PARAM_BOT_NAME = "bot_name";
+	private static final String PARAM_CMD_PREFIX = "cmd_prefix";
+	private static final String PARAM_VERBOSE = "verbose";
+	private static final String PARAM_START_MONEY = "start_money";
+	private static final String PARAM_ANTE = "ante";
+	private static final String PARAM_STAKES = "stakes";
+	private static final String PARAM_OMAHA_STAKES = "omaha_stakes";
+	private static final String PARAM_TABLE_SIZE = "table_size";
+	private static final String PARAM_TURN_TIME = "turn_time";
+	private static final String PARAM_TURN_WARNING = "turn_warning";
+	private static final String PARAM_PREFLOP_TABLE = "preflop_table";
+	private static final String PARAM_BANKROLL_DIR = "bankroll_dir";
+	private static final String PARAM_HISTORY_DIR = "history_dir";
+	private static final String PARAM_CHECKPOINT_DIR = "checkpoint_dir";
+	private static final String PARAM_METRICS_PORT = "metrics_port";
+
+	private final String adminKey;
+
+	private final String gameChannel;
+	private final String channelKey;
+	private final String host;
+	private final int port;
+	private final String serverPass;
+
+	private final String botName;
+	private final char cmdPrefix;
+
+	private final boolean verbose;
+
+	private final int startMoney;
+	private final int ante;
+	private final int[] stakes;
+	private final Variant[] variants;
+	private final int tableSize;
+	private final int turnTime;
+	private final int turnWarning;
+
+	private final String preflopTable;
+	private final String bankrollDir;
+	private final String historyDir;
+	private final String checkpointDir;
+	private final int metricsPort;
+
+	/*
+	 * Reads and validates a configuration file.
+	 */
+	public static Config read(File file) throws IOException, ConfigException {
+		return parse(Files.readAllLines(file.toPath(), StandardCharsets.UTF_8));
+	}
+
+	/*
+	 * Validates the lines of a configuration file.
+	 */
+	public static Config parse(List<String> lines) throws ConfigException {
+		final List<String> errors = new ArrayList<>();
+		final Map<String, String> parameters = new HashMap<>();
+
+		for (int i = 0; i < lines.size(); i++) {
+			final String line = lines.get(i);
+
+			if (line.isEmpty() || CFG_COMMENT.matcher(line).matches())
+				continue;
+
+			final Matcher matcher = CFG_LINE.matcher(line);
+
+			if (!matcher.find()) {
+				errors.add("Configuration file syntax error on line " + (i + 1)
+						+ ". Parameters are assigned with the syntax:"
+						+ " <parameter> = <value>");
+				continue;
+			}
+
+			parameters.put(matcher.group(1), matcher.group(2));
+		}
+
+		final Config config = new Config(parameters, errors);
+
+		if (!errors.isEmpty())
+			throw new ConfigException(errors);
+
+		return config;
+	}
+
+	private Config(Map<String, String> parameters, List<String> errors) {
+		adminKey = required(parameters, PARAM_ADMIN_KEY, "Admin key", errors);
+		gameChannel = required(parameters, PARAM_GAME_CHANNEL, "Game channel",
+				errors);
+
+		// a null channel key means there is no channel key
+		channelKey = parameters.get(PARAM_CHANNEL_KEY);
+
+		host = required(parameters, PARAM_HOST, "Host", errors);
+
+		final String portStr = required(parameters, PARAM_PORT, "Port", errors);
+		port = portStr == null ? 0 : parseInt(portStr, 1, Integer.MAX_VALUE,
+				PARAM_PORT + " must be a positive integer.", errors);
+
+		// a null server password means there is no server password
+		serverPass = parameters.get(PARAM_SERVER_PASS);
+
+		botName = required(parameters, PARAM_BOT_NAME, "Bot name", errors);
+
+		final String cmdPrefixStr = required(parameters, PARAM_CMD_PREFIX,
+				"Command prefix", errors);
+
+		if (cmdPrefixStr != null && cmdPrefixStr.length() != 1) {
+			errors.add(PARAM_CMD_PREFIX
+					+ " must be only 1 character in length.");
+			cmdPrefix = 0;
+		} else {
+			cmdPrefix = cmdPrefixStr == null ? 0 : cmdPrefixStr.charAt(0);
+		}
+
+		final String verboseStr = required(parameters, PARAM_VERBOSE,
+				"Verbosity", errors);
+
+		if (verboseStr != null
+				&& !(verboseStr.equals("true") || verboseStr.equals("false")))
+			errors.add(PARAM_VERBOSE + " must be either 'true' or 'false'.");
+
+		verbose = Boolean.parseBoolean(verboseStr);
+
+		final String startMoneyStr = required(parameters, PARAM_START_MONEY,
+				"Starting player money", errors);
+		startMoney = startMoneyStr == null ? 0 : parseInt(startMoneyStr, 1,
+				Integer.MAX_VALUE, PARAM_START_MONEY
+						+ " must be a positive integer.", errors);
+
+		final String anteStr = required(parameters, PARAM_ANTE, "Ante", errors);
+		ante = anteStr == null ? 0 : parseInt(anteStr, 1, Integer.MAX_VALUE,
+				PARAM_ANTE + " must be a positive integer.", errors);
+
+		final String stakesStr = parameters.get(PARAM_STAKES);
+		final int[] holdemStakes = stakesStr == null ? new int[] { ante }
+				: parseAntes(stakesStr, PARAM_STAKES, errors);
+
+		// Omaha is only dealt if stakes are offered for it
+		final String omahaStakesStr = parameters.get(PARAM_OMAHA_STAKES);
+		final int[] omahaStakes = omahaStakesStr == null ? new int[0]
+				: parseAntes(omahaStakesStr, PARAM_OMAHA_STAKES, errors);
+
+		stakes = Arrays.copyOf(holdemStakes, holdemStakes.length
+				+ omahaStakes.length);
+		System.arraycopy(omahaStakes, 0, stakes, holdemStakes.length,
+				omahaStakes.length);
+
+		variants = new Variant[stakes.length];
+		Arrays.fill(variants, 0, holdemStakes.length, Variant.HOLDEM);
+		Arrays.fill(variants, holdemStakes.length, stakes.length,
+				Variant.OMAHA);
+
+		final String tableSizeStr = parameters.get(PARAM_TABLE_SIZE);
+		tableSize = tableSizeStr == null ? DEFAULT_TABLE_SIZE : parseInt(
+				tableSizeStr, GameEngine.MIN_PLAYERS, GameEngine.MAX_PLAYERS,
+				PARAM_TABLE_SIZE + " must be between " + GameEngine.MIN_PLAYERS
+						+ " and " + GameEngine.MAX_PLAYERS + ".", errors);
+
+		final String turnTimeStr = parameters.get(PARAM_TURN_TIME);
+		turnTime = turnTimeStr == null ? DEFAULT_TURN_TIME : parseInt(
+				turnTimeStr, 0, Integer.MAX_VALUE, PARAM_TURN_TIME
+						+ " must be a number of seconds, or 0 for no limit.",
+				errors);
+
+		final String turnWarningStr = parameters.get(PARAM_TURN_WARNING);
+		final int warning = turnWarningStr == null ? DEFAULT_TURN_WARNING
+				: parseInt(turnWarningStr, 0, Integer.MAX_VALUE,
+						PARAM_TURN_WARNING + " must be a number of seconds,"
+								+ " or 0 for no warning.", errors);
+
+		// a warning as early as the turn starts is no warning at all
+		turnWarning = warning < turnTime ? warning : 0;
+
+		final String preflopTableStr = parameters.get(PARAM_PREFLOP_TABLE);
+
+		// the preflop table is optional, so a missing file is not an error
+		preflopTable = (preflopTableStr == null) ? DEFAULT_PREFLOP_TABLE
+				: preflopTableStr;
+
+		final String bankrollDirStr = parameters.get(PARAM_BANKROLL_DIR);
+		bankrollDir = (bankrollDirStr == null) ? DEFAULT_BANKROLL_DIR
+				: bankrollDirStr;
+
+		final String historyDirStr = parameters.get(PARAM_HISTORY_DIR);
+		historyDir = (historyDirStr == null) ? DEFAULT_HISTORY_DIR
+				: historyDirStr;
+
+		final String checkpointDirStr = parameters.get(PARAM_CHECKPOINT_DIR);
+		checkpointDir = (checkpointDirStr == null) ? DEFAULT_CHECKPOINT_DIR
+				: checkpointDirStr;
+
+		final String metricsPortStr = parameters.get(PARAM_METRICS_PORT);
+		metricsPort = metricsPortStr == null ? 0 : parseInt(metricsPortStr, 0,
+				65535, PARAM_METRICS_PORT
+						+ " must be a port number, or 0 to disable it.", errors);
+	}
+
+	/*
+	 * a comma-separated list of antes, recording an error (and stopping at
+	 * the first) if one is not a positive integer
+	 */
+	private static int[] parseAntes(String value, String param,
+			List<String> errors) {
+		final String[] antes = value.split(",");
+		final int[] stakes = new int[antes.length];
+
+		for (int i = 0; i < antes.length; i++) {
+			stakes[i] = parseInt(antes[i], 1, Integer.MAX_VALUE, param
+					+ " must be a comma-separated list of"
+					+ " positive integers.", errors);
+
+			if (stakes[i] == 0)
+				break;
+		}
+
+		return stakes;
+	}
+
+	private static String required(Map<String, String> parameters,
+			String param, String description, List<String> errors) {
+		final String value = parameters.get(param);
+
+		if (value == null) {
+			errors.add(description
+					+ " not specified in configuration file, specify with '"
+					+ param + "'.");
+		}
+
+		return value;
+	}
+
+	/*
+	 * the value as an integer, or 0 after recording the given error if it is
+	 * not one between min and max
+	 */
+	private static int parseInt(String value, int min, int max, String error,
+			List<String> errors) {
+		try {
+			final int n = Integer.parseInt(value);
+
+			if (n >= min && n <= max)
+				return n;
+		} catch (NumberFormatException nfe) {
+			// reported below, as is a number out of range
+		}
+
+		errors.add(error);
+		return 0;
+	}
+
+	/*
+	 * The parameters which differ from the given configuration, but which
+	 * only take effect on restart.
+	 */
+	public List<String> changesNeedingRestart(Config running) {
+		final List<String> changed = new ArrayList<>();
+
+		if (!gameChannel.equals(running.gameChannel))
+			changed.add(PARAM_GAME_CHANNEL);
+		if (!Objects.equals(channelKey, running.channelKey))
+			changed.add(PARAM_CHANNEL_KEY);
+		if (!host.equals(running.host))
+			changed.add(PARAM_HOST);
+		if (port != running.port)
+			changed.add(PARAM_PORT);
+		if (!Objects.equals(serverPass, running.serverPass))
+			changed.add(PARAM_SERVER_PASS);
+		if (!botName.equals(running.botName))
+			changed.add(PARAM_BOT_NAME);
+		if (cmdPrefix != running.cmdPrefix)
+			changed.add(PARAM_CMD_PREFIX);
+		if (!preflopTable.equals(running.preflopTable))
+			changed.add(PARAM_PREFLOP_TABLE);
+		if (!bankrollDir.equals(running.bankrollDir))
+			changed.add(PARAM_BANKROLL_DIR);
+		if (!historyDir.equals(running.historyDir))
+			changed.add(PARAM_HISTORY_DIR);
+		if (!checkpointDir.equals(running.checkpointDir))
+			changed.add(PARAM_CHECKPOINT_DIR);
+		if (metricsPort != running.metricsPort)
+			changed.add(PARAM_METRICS_PORT);
+
+		return changed;
+	}
+
+	public String getAdminKey() {
+		return adminKey;
+	}
+
+	public String getGameChannel() {
+		return gameChannel;
+	}
+
+	public String getChannelKey() {
+		return channelKey;
+	}
+
+	public String getHost() {
+		return host;
+	}
+
+	public int getPort() {
+		return port;
+	}
+
+	public String getServerPass() {
+		return serverPass;
+	}
+
+	public String getBotName() {
+		return botName;
+	}
+
+	public char getCmdPrefix() {
+		return cmdPrefix;
+	}
+
+	public boolean isVerbose() {
+		return verbose;
+	}
+
+	public int getStartMoney() {
+		return startMoney;
+	}
+
+	public int getAnte() {
+		return ante;
+	}
+
+	/*
+	 * the antes of the stakes players can join at, the first being the
+	 * default: those of hold 'em, followed by those of Omaha
+	 */
+	public int[] getStakes() {
+		return Arrays.copyOf(stakes, stakes.length);
+	}
+
+	/*
+	 * the game dealt at each of the stakes
+	 */
+	public Variant[] getVariants() {
+		return Arrays.copyOf(variants, variants.length);
+	}
+
+	/*
+	 * players seated per game once enough are waiting
+	 */
+	public int getTableSize() {
+		return tableSize;
+	}
+
+	/*
+	 * seconds a player has to act before being checked or folded, or 0 for no
+	 * limit
+	 */
+	public int getTurnTime() {
+		return turnTime;
+	}
+
+	/*
+	 * seconds before the end of a turn that the player is warned, or 0 for no
+	 * warning
+	 */
+	public int getTurnWarning() {
+		return turnWarning;
+	}
+
+	public String getPreflopTable() {
+		return preflopTable;
+	}
+
+	public String getBankrollDir() {
+		return bankrollDir;
+	}
+
+	public String getHistoryDir() {
+		return historyDir;
+	}
+
+	public String getCheckpointDir() {
+		return checkpointDir;
+	}
+
+	/*
+	 * port of the metrics endpoint, or 0 if it is disabled
+	 */
+	public int getMetricsPort() {
+		return metricsPort;
+	}
+}
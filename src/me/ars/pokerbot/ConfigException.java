@@ -0,0 +1,22 @@
+package me.ars.pokerbot;
+
+import java.util.Collections;
+import java.util.List;
+
+/*
+ * Thrown when a configuration file is invalid, with every error found in it.
+ */
+public class ConfigException extends Exception {
+	private static final long serialVersionUID = 1L;
+
+	private final List<String> errors;
+
+	public ConfigException(List<String> errors) {
+		super(String.join(" ", errors));
+		this.errors = Collections.unmodifiableList(errors);
+	}
+
+	public List<String> getErrors() {
+		return errors;
+	}
+}
@@ -0,0 +1,89 @@
+package me.ars.pokerbot;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+
+/*
+ * Watches a file, on a daemon thread of its own, and runs a task whenever the
+ * file is written.
+ */
+public class ConfigWatcher {
+	/*
+	 * time left for a write to settle before the task is run: editors often
+	 * write a file in several steps
+	 */
+	private static final long SETTLE_MILLIS = 200;
+
+	private final Path file;
+	private final WatchService watcher;
+	private final Runnable onChange;
+
+	public ConfigWatcher(File file, Runnable onChange) throws IOException {
+		this.file = file.toPath().toAbsolutePath();
+		this.onChange = onChange;
+		this.watcher = FileSystems.getDefault().newWatchService();
+
+		// files cannot be watched directly, only the directories holding them
+		this.file.getParent().register(watcher, ENTRY_CREATE, ENTRY_MODIFY);
+
+		final Thread thread = new Thread(this::run, "config-watcher");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	public void close() throws IOException {
+		watcher.close();
+	}
+
+	private void run() {
+		try {
+			while (true) {
+				if (!changed(watcher.take()))
+					continue;
+
+				Thread.sleep(SETTLE_MILLIS);
+
+				// the rest of the write shows up as further events
+				WatchKey key;
+
+				while ((key = watcher.poll()) != null)
+					changed(key);
+
+				try {
+					onChange.run();
+				} catch (RuntimeException e) {
+					e.printStackTrace();
+				}
+			}
+		} catch (InterruptedException | ClosedWatchServiceException e) {
+			return;
+		}
+	}
+
+	/*
+	 * Consumes the key's events, returning whether any was about the file.
+	 */
+	private boolean changed(WatchKey key) {
+		boolean changed = false;
+
+		for (WatchEvent<?> event : key.pollEvents()) {
+			// after an overflow, events may have been lost
+			if (event.kind() == OVERFLOW
+					|| file.getFileName().equals(event.context()))
+				changed = true;
+		}
+
+		key.reset();
+		return changed;
+	}
+}
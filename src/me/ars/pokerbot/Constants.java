@@ -1,16 +1,20 @@
 package me.ars.pokerbot;
 
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Scanner;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/*
+ * The bot's configuration, read from parameters.cfg.
+ *
+ * The settings the bot connects and starts up with are constants: changing
+ * them takes a restart. The rest (stakes, money, table size, turn clocks, the
+ * admin key and verbosity) are read from the configuration in effect, which
+ * can be swapped for a new snapshot of the file at any time with reload.
+ */
 public final class Constants {
-	public static final String ADMIN_KEY;
-
 	public static final String GAME_CHANNEL;
 	public static final String CHANNEL_KEY;
 	public static final String HOST;
@@ -20,206 +24,84 @@ public final class Constants {
 	public static final String BOT_NAME;
 	public static final char CMD_PREFIX;
 
-	public static final boolean VERBOSE;
+	public static final String PREFLOP_TABLE;
 
-	public static final int START_MONEY;
-	public static final int ANTE;
+	public static final String BANKROLL_DIR;
 
-	private static final String CFG_FILENAME = "parameters.cfg";
+	public static final String HISTORY_DIR;
 
-	private static final Pattern CFG_LINE = Pattern
-			.compile("^\\s*(\\S+)\\s*=\\s*(\\S+)\\s*(?:#.*)?$");
+	public static final String CHECKPOINT_DIR;
 
-	private static final Pattern CFG_COMMENT = Pattern.compile("^\\s*#.*$");
+	/*
+	 * port of the metrics endpoint, or 0 if it is disabled
+	 */
+	public static final int METRICS_PORT;
+
+	private static final String CFG_FILENAME = "parameters.cfg";
 
-	private static final String PARAM_ADMIN_KEY = "admin_key";
-	private static final String PARAM_GAME_CHANNEL = "gamechan";
-	private static final String PARAM_CHANNEL_KEY = "chan_key";
-	private static final String PARAM_HOST = "host";
-	private static final String PARAM_PORT = "port";
-	private static final String PARAM_SERVER_PASS = "serv_pass";
-	private static final String PARAM_BOT_NAME = "bot_name";
-	private static final String PARAM_CMD_PREFIX = "cmd_prefix";
-	private static final String PARAM_VERBOSE = "verbose";
-	private static final String PARAM_START_MONEY = "start_money";
-	private static final String PARAM_ANTE = "ante";
+	public static final File CFG_FILE = new File(CFG_FILENAME);
+
+	/*
+	 * the configuration the bot started with, and the one in effect
+	 */
+	private static final Config startup;
+	private static final AtomicReference<Config> config;
 
 	private Constants() {
 	}
 
 	static {
-		Scanner cfgFile = null;
+		Config initial = null;
 
 		try {
-			cfgFile = new Scanner(new File(CFG_FILENAME));
-		} catch (FileNotFoundException fnfe) {
+			initial = Config.read(CFG_FILE);
+		} catch (NoSuchFileException nsfe) {
 			System.err.println("Could not find configuration file ("
 					+ CFG_FILENAME + ").");
 			System.exit(1);
-		}
-
-		Map<String, String> parameters = new HashMap<>();
-
-		int lineno = 0;
-		while (cfgFile.hasNextLine()) {
-			lineno++;
-
-			final String line = cfgFile.nextLine();
-
-			if (line.isEmpty() || CFG_COMMENT.matcher(line).matches())
-				continue;
-
-			final Matcher matcher = CFG_LINE.matcher(line);
-
-			if (!matcher.find())
-				cfgSyntaxError(lineno);
-
-			parameters.put(matcher.group(1), matcher.group(2));
-		}
-
-		cfgFile.close();
-		boolean error = false;
-
-		ADMIN_KEY = parameters.remove(PARAM_ADMIN_KEY);
-
-		if (ADMIN_KEY == null) {
-			cfgNotSpecifiedError("Admin key", PARAM_ADMIN_KEY);
-			error = true;
-		}
-
-		GAME_CHANNEL = parameters.remove(PARAM_GAME_CHANNEL);
-
-		if (GAME_CHANNEL == null) {
-			cfgNotSpecifiedError("Game channel", PARAM_GAME_CHANNEL);
-			error = true;
-		}
-
-		// a null channel key means there is no channel key
-		CHANNEL_KEY = parameters.remove(PARAM_CHANNEL_KEY);
-
-		HOST = parameters.remove(PARAM_HOST);
-
-		if (HOST == null) {
-			cfgNotSpecifiedError("Host", PARAM_HOST);
-			error = true;
-		}
-
-		final String portStr = parameters.remove(PARAM_PORT);
-
-		if (portStr == null) {
-			cfgNotSpecifiedError("Port", PARAM_PORT);
-			error = true;
-		}
-
-		int port = 0;
-
-		try {
-			port = Integer.parseInt(portStr);
-			if (port <= 0)
-				throw new NumberFormatException();
-		} catch (NumberFormatException nfe) {
-			System.err.println(PARAM_PORT + " must be a positive integer.");
-
-			error = true;
-		}
-
-		PORT = port;
-
-		// a null server password means there is no server password
-		SERVER_PASS = parameters.remove(PARAM_SERVER_PASS);
-
-		BOT_NAME = parameters.remove(PARAM_BOT_NAME);
-
-		if (BOT_NAME == null) {
-			cfgNotSpecifiedError("Bot name", PARAM_BOT_NAME);
-			error = true;
-		}
-
-		final String cmdPrefix = parameters.remove(PARAM_CMD_PREFIX);
-
-		if (cmdPrefix == null) {
-			cfgNotSpecifiedError("Command prefix", PARAM_CMD_PREFIX);
-			error = true;
-		} else if (cmdPrefix.length() != 1) {
-			System.err.println(PARAM_CMD_PREFIX
-					+ " must be only 1 character in length.");
-			error = true;
-		}
-
-		CMD_PREFIX = error ? 0 : cmdPrefix.charAt(0);
-
-		final String verbose = parameters.remove(PARAM_VERBOSE);
-
-		if (verbose == null) {
-			cfgNotSpecifiedError("Verbosity", PARAM_VERBOSE);
-			error = true;
-		} else if (!(verbose.equals("true") || verbose.equals("false"))) {
-			System.err.println(PARAM_VERBOSE
-					+ " must be either 'true' or 'false'.");
-			error = true;
-		}
-
-		VERBOSE = error ? false : Boolean.parseBoolean(verbose);
-
-		final String startMoneyStr = parameters.remove(PARAM_START_MONEY);
-
-		if (startMoneyStr == null) {
-			cfgNotSpecifiedError("Starting player money", PARAM_VERBOSE);
-			error = true;
-		}
-
-		int startMoney = 0;
-
-		try {
-			startMoney = Integer.parseInt(startMoneyStr);
-			if (startMoney <= 0)
-				throw new NumberFormatException();
-		} catch (NumberFormatException nfe) {
-			System.err.println(PARAM_START_MONEY
-					+ " must be a positive integer.");
-
-			error = true;
-		}
-
-		START_MONEY = startMoney;
-
-		final String anteStr = parameters.remove(PARAM_ANTE);
-
-		if (anteStr == null) {
-			cfgNotSpecifiedError("Ante", PARAM_ANTE);
-			error = true;
-		}
-
-		int ante = 0;
+		} catch (IOException ioe) {
+			System.err.println("Could not read configuration file ("
+					+ CFG_FILENAME + "): " + ioe.getMessage());
+			System.exit(1);
+		} catch (ConfigException ce) {
+			for (String error : ce.getErrors())
+				System.err.println(error);
 
-		try {
-			ante = Integer.parseInt(anteStr);
-			if (ante <= 0)
-				throw new NumberFormatException();
-		} catch (NumberFormatException nfe) {
-			System.err.println(PARAM_ANTE + " must be a positive integer.");
-			error = true;
+			System.exit(1);
 		}
 
-		ANTE = ante;
-
-		if (error)
-			System.exit(1);
+		GAME_CHANNEL = initial.getGameChannel();
+		CHANNEL_KEY = initial.getChannelKey();
+		HOST = initial.getHost();
+		PORT = initial.getPort();
+		SERVER_PASS = initial.getServerPass();
+		BOT_NAME = initial.getBotName();
+		CMD_PREFIX = initial.getCmdPrefix();
+		PREFLOP_TABLE = initial.getPreflopTable();
+		BANKROLL_DIR = initial.getBankrollDir();
+		HISTORY_DIR = initial.getHistoryDir();
+		CHECKPOINT_DIR = initial.getCheckpointDir();
+		METRICS_PORT = initial.getMetricsPort();
+
+		startup = initial;
+		config = new AtomicReference<>(initial);
 	}
 
-	private static void cfgSyntaxError(int lineno) {
-		System.err.println("Configuration file syntax error on line " + lineno
-				+ ".");
-
-		System.err
-				.println("Parameters are assigned with the syntax: <parameter> = <value>");
-
-		System.exit(1);
+	/*
+	 * the configuration in effect
+	 */
+	public static Config getConfig() {
+		return config.get();
 	}
 
-	private static void cfgNotSpecifiedError(String notSpecified, String param) {
-		System.err.println(notSpecified
-				+ " not specified in configuration file, specify with '"
-				+ param + "'.");
+	/*
+	 * Rereads the configuration file and puts it into effect, returning the
+	 * parameters changed in it that will only take effect on restart. If the
+	 * file is invalid, the configuration in effect is left as is.
+	 */
+	public static List<String> reload() throws IOException, ConfigException {
+		final Config reloaded = Config.read(CFG_FILE);
+		config.set(reloaded);
+		return reloaded.changesNeedingRestart(startup);
 	}
 }
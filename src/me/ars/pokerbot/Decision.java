@@ -0,0 +1,54 @@
+package me.ars.pokerbot;
+
+import me.ars.pokerbot.GameEngine.Action;
+
+/*
+ * An action chosen by a Strategy, along with the amount to raise by for
+ * raises. Decisions other than raises are shared constants.
+ */
+public final class Decision {
+	public static final Decision CALL = new Decision(Action.CALL, 0);
+	public static final Decision CHECK = new Decision(Action.CHECK, 0);
+	public static final Decision ALL_IN = new Decision(Action.ALL_IN, 0);
+	public static final Decision FOLD = new Decision(Action.FOLD, 0);
+
+	private final Action action;
+	private final int amount;
+
+	private Decision(Action action, int amount) {
+		this.action = action;
+		this.amount = amount;
+	}
+
+	public static Decision raise(int amount) {
+		if (amount <= 0)
+			throw new IllegalArgumentException(
+					"Can only raise by a positive amount.");
+
+		return new Decision(Action.RAISE, amount);
+	}
+
+	/*
+	 * a check if nothing is owed, or a call otherwise
+	 */
+	public static Decision checkOrCall(int owed) {
+		return owed > 0 ? CALL : CHECK;
+	}
+
+	public Action getAction() {
+		return action;
+	}
+
+	/*
+	 * the amount to raise by, or 0 if this is not a raise
+	 */
+	public int getAmount() {
+		return amount;
+	}
+
+	@Override
+	public String toString() {
+		return action == Action.RAISE ? action + " " + amount : action
+				.toString();
+	}
+}
@@ -0,0 +1,108 @@
+package me.ars.pokerbot;
+
+import java.nio.ByteBuffer;
+import java.util.function.IntUnaryOperator;
+
+/*
+ * A deck of cards, kept as an array of card indices and shuffled lazily: each
+ * card dealt is picked at random from those not yet dealt (one step of a
+ * Fisher-Yates shuffle), so only as much of the deck is shuffled as is used.
+ *
+ * Not thread-safe.
+ */
+public class Deck {
+	public static final int SIZE = 52;
+
+	private final int[] cards = new int[SIZE];
+
+	/*
+	 * returns a uniformly random int in [0, bound) given the bound
+	 */
+	private final IntUnaryOperator random;
+
+	/*
+	 * number of cards dealt, and number of leading cards already shuffled
+	 * (dealt <= shuffled)
+	 */
+	private int dealt;
+	private int shuffled;
+
+	public Deck(IntUnaryOperator random) {
+		this.random = random;
+
+		for (int i = 0; i < SIZE; i++)
+			cards[i] = i;
+	}
+
+	/*
+	 * Returns all cards to the deck, to be shuffled again as they are dealt.
+	 * The order the cards are left in doesn't matter, since every card dealt
+	 * afterwards is chosen uniformly from the rest.
+	 */
+	public void reset() {
+		dealt = 0;
+		shuffled = 0;
+	}
+
+	/*
+	 * Shuffles the next cards to be dealt ahead of time, up to the given
+	 * number of cards from the top.
+	 */
+	public void shuffleAhead(int count) {
+		while (shuffled < count)
+			shuffleNext();
+	}
+
+	private void shuffleNext() {
+		final int i = shuffled++;
+		final int j = i + random.applyAsInt(SIZE - i);
+		final int card = cards[j];
+		cards[j] = cards[i];
+		cards[i] = card;
+	}
+
+	/*
+	 * the index of the next card dealt
+	 */
+	public int nextIndex() {
+		if (dealt == SIZE)
+			throw new IllegalStateException("No cards left.");
+
+		if (dealt == shuffled)
+			shuffleNext();
+
+		return cards[dealt++];
+	}
+
+	public Card next() {
+		return Card.of(nextIndex());
+	}
+
+	public int remaining() {
+		return SIZE - dealt;
+	}
+
+	/*
+	 * Writes the order of the cards and how far they have been dealt and
+	 * shuffled, for readFrom.
+	 */
+	public void writeTo(ByteBuffer out) {
+		for (int i = 0; i < SIZE; i++)
+			out.put((byte) cards[i]);
+
+		out.put((byte) dealt);
+		out.put((byte) shuffled);
+	}
+
+	/*
+	 * Puts this deck in the state written by writeTo, to be dealt from where
+	 * the written deck left off.
+	 */
+	public void readFrom(ByteBuffer in) {
+		for (int i = 0; i < SIZE; i++)
+			cards[i] = in.get();
+
+		dealt = in.get();
+		shuffled = in.get();
+	}
+}
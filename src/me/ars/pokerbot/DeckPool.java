@@ -0,0 +1,122 @@
+package me.ars.pokerbot;
+
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntUnaryOperator;
+
+/*
+ * Supplies decks shuffled ahead of time on a background thread, so that
+ * shuffling stays off the path between one hand and the next.
+ *
+ * Decks handed back through release are reshuffled and reused. If no shuffled
+ * deck is ready, take returns an unshuffled one instead of waiting; such a
+ * deck shuffles as it is dealt, like any other.
+ */
+public class DeckPool {
+	/*
+	 * number of shuffled decks kept ready
+	 */
+	private static final int DEFAULT_CAPACITY = 256;
+
+	/*
+	 * the most cards a hand of any variant can use: the hole cards of as many
+	 * players as it seats, and the board
+	 */
+	private static final int DEFAULT_SHUFFLE_DEPTH = maxCardsDealt();
+
+	/*
+	 * safe to use from any thread, so that decks can be dealt beyond the part
+	 * shuffled ahead of time by whoever holds them
+	 */
+	private static final IntUnaryOperator RANDOM = bound -> ThreadLocalRandom
+			.current().nextInt(bound);
+
+	private final BlockingQueue<Deck> ready;
+	private final Queue<Deck> released = new ConcurrentLinkedQueue<>();
+	private final int shuffleDepth;
+
+	private static int maxCardsDealt() {
+		int holeCards = 0;
+
+		for (Variant variant : Variant.values())
+			holeCards = Math.max(holeCards,
+					variant.getHoleCards() * variant.getMaxPlayers());
+
+		return holeCards + 5;
+	}
+
+	public DeckPool() {
+		this(DEFAULT_CAPACITY, DEFAULT_SHUFFLE_DEPTH);
+	}
+
+	/*
+	 * @param capacity number of shuffled decks kept ready
+	 *
+	 * @param shuffleDepth number of cards shuffled ahead of time in each deck
+	 */
+	public DeckPool(int capacity, int shuffleDepth) {
+		this.ready = new ArrayBlockingQueue<>(capacity);
+		this.shuffleDepth = shuffleDepth;
+
+		final Thread shuffler = new Thread(this::shuffle, "deck-shuffler");
+		shuffler.setDaemon(true);
+		shuffler.start();
+	}
+
+	/*
+	 * a pool shared by all tables
+	 */
+	public static DeckPool getDefault() {
+		return DefaultHolder.POOL;
+	}
+
+	private static final class DefaultHolder {
+		static final DeckPool POOL = new DeckPool();
+	}
+
+	/*
+	 * Takes a shuffled deck, never blocking.
+	 */
+	public Deck take() {
+		Deck deck = ready.poll();
+
+		if (deck != null)
+			return deck;
+
+		// the shuffler is behind: shuffle a released deck as it is dealt
+		deck = released.poll();
+
+		if (deck == null)
+			return new Deck(RANDOM);
+
+		deck.reset();
+		return deck;
+	}
+
+	/*
+	 * Hands a deck back once it's no longer used, to be reshuffled.
+	 */
+	public void release(Deck deck) {
+		released.offer(deck);
+	}
+
+	private void shuffle() {
+		try {
+			while (true) {
+				Deck deck = released.poll();
+
+				if (deck == null)
+					deck = new Deck(RANDOM);
+
+				deck.reset();
+				deck.shuffleAhead(shuffleDepth);
+				ready.put(deck);
+			}
+		} catch (InterruptedException ie) {
+			return;
+		}
+	}
+}
@@ -0,0 +1,54 @@
+package me.ars.pokerbot;
+
+/*
+ * Result of an equity calculation: how often a hand wins outright, how often
+ * it ties for the best hand, and its overall share of the pot.
+ */
+public final class Equity {
+	private final double win;
+	private final double tie;
+	private final double equity;
+	private final long samples;
+	private final boolean exact;
+
+	Equity(double win, double tie, double equity, long samples, boolean exact) {
+		this.win = win;
+		this.tie = tie;
+		this.equity = equity;
+		this.samples = samples;
+		this.exact = exact;
+	}
+
+	public double getWin() {
+		return win;
+	}
+
+	public double getTie() {
+		return tie;
+	}
+
+	/*
+	 * expected share of the pot, counting ties as split pots
+	 */
+	public double getEquity() {
+		return equity;
+	}
+
+	/*
+	 * number of (runout, opponent hand) pairs evaluated when enumerated (all
+	 * of them only if exact), or else the number of samples drawn
+	 */
+	public long getSamples() {
+		return samples;
+	}
+
+	public boolean isExact() {
+		return exact;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%.1f%% (win %.1f%%, tie %.1f%%)",
+				100 * equity, 100 * win, 100 * tie);
+	}
+}
@@ -0,0 +1,421 @@
+package me.ars.pokerbot;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/*
+ * Computes the equity of a hold 'em hand against a number of opponents holding
+ * unknown cards, given the cards already on the board.
+ *
+ * Heads-up spots with few enough remaining (runout, opponent hand)
+ * combinations are enumerated exactly. Everything else is estimated by Monte
+ * Carlo sampling spread over a fork/join pool, in rounds of growing size, until
+ * the 95% confidence interval of the estimate is narrow enough or the time
+ * budget runs out.
+ *
+ * Enumeration is bounded by the time budget too: runouts are enumerated in
+ * random order, so that if the budget runs out first, those done so far are a
+ * uniform sample of them, and make an estimate instead.
+ */
+public class EquityCalculator {
+	/*
+	 * largest number of (runout, opponent hand) combinations enumerated
+	 * exactly; a heads-up flop has 1,070,190
+	 */
+	private static final long EXACT_LIMIT = 1500000L;
+
+	/*
+	 * default half-width of the 95% confidence interval at which sampling stops
+	 */
+	private static final double DEFAULT_PRECISION = 0.0025;
+
+	private static final double Z_95 = 1.96;
+
+	private static final int SAMPLES_PER_LEAF = 2048;
+	private static final int RUNOUTS_PER_LEAF = 16;
+
+	/*
+	 * number of samples between checks of the deadline (a power of 2)
+	 */
+	private static final int DEADLINE_CHECK_INTERVAL = 64;
+
+	private final ForkJoinPool pool;
+	private final double precision;
+
+	public EquityCalculator() {
+		this(ForkJoinPool.commonPool(), DEFAULT_PRECISION);
+	}
+
+	public EquityCalculator(ForkJoinPool pool, double precision) {
+		this.pool = pool;
+		this.precision = precision;
+	}
+
+	/*
+	 * @param hole the player's two hole cards
+	 *
+	 * @param board the 0, 3, 4 or 5 cards on the table
+	 *
+	 * @param opponents number of opponents with unknown cards
+	 *
+	 * @param budgetNanos time after which sampling or enumeration stops,
+	 * regardless of precision
+	 */
+	public Equity calculate(long hole, long board, int opponents,
+			long budgetNanos) {
+		checkArguments(hole, board, opponents);
+
+		final int[] deck = remaining(hole | board);
+		final int need = 5 - CardSet.count(board);
+		final long deadline = System.nanoTime() + budgetNanos;
+
+		if (opponents == 1
+				&& choose(deck.length, need)
+						* choose(deck.length - need, 2) <= EXACT_LIMIT) {
+			return enumerate(hole, board, deck, need, deadline);
+		}
+
+		return sample(hole, board, deck, need, opponents, deadline);
+	}
+
+	/*
+	 * Estimates the equity from a fixed number of samples, drawn on the calling
+	 * thread with the given generator. Meant for callers that need many cheap
+	 * estimates, such as simulated players.
+	 */
+	public static Equity estimate(long hole, long board, int opponents,
+			int samples, SplittableRandom random) {
+		return estimate(hole, board, opponents, samples, System.nanoTime()
+				+ Long.MAX_VALUE, random);
+	}
+
+	/*
+	 * Same as estimate, stopping early at the given deadline (in terms of
+	 * System.nanoTime) or once the calling thread is interrupted, after at
+	 * least a few dozen samples.
+	 */
+	public static Equity estimate(long hole, long board, int opponents,
+			int samples, long deadline, SplittableRandom random) {
+		checkArguments(hole, board, opponents);
+
+		final SampleTask task = new SampleTask(hole, board,
+				remaining(hole | board), 5 - CardSet.count(board), opponents,
+				samples, deadline, random);
+		task.sampleAll();
+
+		return new Equity((double) task.wins / task.samples,
+				(double) task.ties / task.samples, task.sum / task.samples,
+				task.samples, false);
+	}
+
+	private static void checkArguments(long hole, long board, int opponents) {
+		final int boardSize = CardSet.count(board);
+
+		if (CardSet.count(hole) != 2)
+			throw new IllegalArgumentException("Need exactly 2 hole cards.");
+
+		if (boardSize > 5 || boardSize == 1 || boardSize == 2)
+			throw new IllegalArgumentException("Invalid board size: "
+					+ boardSize);
+
+		if (CardSet.intersects(hole, board))
+			throw new IllegalArgumentException("Hole cards are on the board.");
+
+		if (opponents < 1
+				|| 5 - boardSize + 2 * opponents > 52 - 2 - boardSize)
+			throw new IllegalArgumentException("Invalid number of opponents: "
+					+ opponents);
+	}
+
+	private Equity enumerate(long hole, long board, int[] deck, int need,
+			long deadline) {
+		final long[] runouts = new long[(int) choose(deck.length, need)];
+		int count = 0;
+
+		if (need == 0) {
+			runouts[count++] = CardSet.EMPTY;
+		} else if (need == 1) {
+			for (int card : deck)
+				runouts[count++] = 1L << card;
+		} else {
+			for (int i = 0; i < deck.length; i++) {
+				for (int j = i + 1; j < deck.length; j++)
+					runouts[count++] = (1L << deck[i]) | (1L << deck[j]);
+			}
+		}
+
+		// so that the runouts done by the deadline are a random sample
+		final SplittableRandom random = new SplittableRandom();
+
+		for (int i = count - 1; i > 0; i--) {
+			final int j = random.nextInt(i + 1);
+			final long tmp = runouts[i];
+			runouts[i] = runouts[j];
+			runouts[j] = tmp;
+		}
+
+		final ExactTask task = new ExactTask(hole, board, deck, runouts, 0,
+				count, deadline);
+		pool.invoke(task);
+
+		final double total = task.total;
+		return new Equity(task.wins / total, task.ties / total,
+				(task.wins + task.ties / 2.0) / total, task.total,
+				task.runoutsDone == count);
+	}
+
+	private Equity sample(long hole, long board, int[] deck, int need,
+			int opponents, long deadline) {
+		final SplittableRandom random = new SplittableRandom();
+		final int roundSize = pool.getParallelism() * SAMPLES_PER_LEAF;
+
+		long samples = 0;
+		long wins = 0;
+		long ties = 0;
+		double sum = 0;
+		double sumOfSquares = 0;
+
+		for (int round = 1;; round = Math.min(2 * round, 64)) {
+			final SampleTask task = new SampleTask(hole, board, deck, need,
+					opponents, round * roundSize, deadline, random.split());
+			pool.invoke(task);
+
+			samples += task.samples;
+			wins += task.wins;
+			ties += task.ties;
+			sum += task.sum;
+			sumOfSquares += task.sumOfSquares;
+
+			final double mean = sum / samples;
+			final double variance = Math.max(0, sumOfSquares / samples - mean
+					* mean);
+
+			if (Z_95 * Math.sqrt(variance / samples) <= precision
+					|| System.nanoTime() - deadline >= 0) {
+				return new Equity((double) wins / samples, (double) ties
+						/ samples, mean, samples, false);
+			}
+		}
+	}
+
+	private static int[] remaining(long dead) {
+		final long live = CardSet.difference(CardSet.FULL_DECK, dead);
+		final int[] deck = new int[CardSet.count(live)];
+		int i = 0;
+
+		for (long s = live; s != 0; s = CardSet.rest(s))
+			deck[i++] = CardSet.first(s);
+
+		return deck;
+	}
+
+	private static long choose(int n, int k) {
+		long result = 1;
+
+		for (int i = 1; i <= k; i++)
+			result = result * (n - k + i) / i;
+
+		return result;
+	}
+
+	private static final class ExactTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final long hole;
+		private final long board;
+		private final int[] deck;
+		private final long[] runouts;
+		private final int from;
+		private final int to;
+		private final long deadline;
+
+		long wins;
+		long ties;
+		long total;
+		int runoutsDone;
+
+		ExactTask(long hole, long board, int[] deck, long[] runouts,
+				int from, int to, long deadline) {
+			this.hole = hole;
+			this.board = board;
+			this.deck = deck;
+			this.runouts = runouts;
+			this.from = from;
+			this.to = to;
+			this.deadline = deadline;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > RUNOUTS_PER_LEAF) {
+				final int mid = (from + to) >>> 1;
+				final ExactTask left = new ExactTask(hole, board, deck,
+						runouts, from, mid, deadline);
+				final ExactTask right = new ExactTask(hole, board, deck,
+						runouts, mid, to, deadline);
+				invokeAll(left, right);
+
+				wins = left.wins + right.wins;
+				ties = left.ties + right.ties;
+				total = left.total + right.total;
+				runoutsDone = left.runoutsDone + right.runoutsDone;
+				return;
+			}
+
+			final BoardEvaluator evaluator = new BoardEvaluator();
+
+			for (int r = from; r < to; r++) {
+				// at least one runout, so that the estimate is never empty
+				if (r > 0 && System.nanoTime() - deadline >= 0)
+					break;
+
+				final long runout = runouts[r];
+				evaluator.set(board | runout);
+				final int strength = evaluator.evaluate(hole);
+
+				for (int i = 0; i < deck.length; i++) {
+					final long card1 = 1L << deck[i];
+
+					if ((runout & card1) != 0)
+						continue;
+
+					for (int j = i + 1; j < deck.length; j++) {
+						final long card2 = 1L << deck[j];
+
+						if ((runout & card2) != 0)
+							continue;
+
+						final int other = evaluator.evaluate(card1 | card2);
+
+						if (strength > other)
+							wins++;
+						else if (strength == other)
+							ties++;
+
+						total++;
+					}
+				}
+
+				runoutsDone++;
+			}
+		}
+	}
+
+	private static final class SampleTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final long hole;
+		private final long board;
+		private final int[] deck;
+		private final int need;
+		private final int opponents;
+		private final int count;
+		private final long deadline;
+		private final SplittableRandom random;
+
+		long samples;
+		long wins;
+		long ties;
+		double sum;
+		double sumOfSquares;
+
+		SampleTask(long hole, long board, int[] deck, int need,
+				int opponents, int count, long deadline,
+				SplittableRandom random) {
+			this.hole = hole;
+			this.board = board;
+			this.deck = deck;
+			this.need = need;
+			this.opponents = opponents;
+			this.count = count;
+			this.deadline = deadline;
+			this.random = random;
+		}
+
+		@Override
+		protected void compute() {
+			if (count > SAMPLES_PER_LEAF) {
+				final int half = count >>> 1;
+				final SampleTask left = new SampleTask(hole, board, deck, need,
+						opponents, half, deadline, random.split());
+				final SampleTask right = new SampleTask(hole, board, deck,
+						need, opponents, count - half, deadline, random);
+				invokeAll(left, right);
+
+				samples = left.samples + right.samples;
+				wins = left.wins + right.wins;
+				ties = left.ties + right.ties;
+				sum = left.sum + right.sum;
+				sumOfSquares = left.sumOfSquares + right.sumOfSquares;
+				return;
+			}
+
+			sampleAll();
+		}
+
+		/*
+		 * draws all of this task's samples on the current thread
+		 */
+		void sampleAll() {
+			final int[] cards = deck.clone();
+			final int drawn = need + 2 * opponents;
+			final BoardEvaluator evaluator = new BoardEvaluator();
+
+			for (int n = 0; n < count; n++) {
+				if ((n & (DEADLINE_CHECK_INTERVAL - 1)) == 0
+						&& n > 0
+						&& (System.nanoTime() - deadline >= 0 || Thread
+								.currentThread().isInterrupted()))
+					break;
+
+				// partial Fisher-Yates: only shuffle the cards that are used
+				for (int i = 0; i < drawn; i++) {
+					final int j = i + random.nextInt(cards.length - i);
+					final int tmp = cards[i];
+					cards[i] = cards[j];
+					cards[j] = tmp;
+				}
+
+				long full = board;
+
+				for (int i = 0; i < need; i++)
+					full |= 1L << cards[i];
+
+				evaluator.set(full);
+				final int strength = evaluator.evaluate(hole);
+				int tied = 0;
+				boolean lost = false;
+
+				for (int o = need; o < drawn; o += 2) {
+					final int other = evaluator.evaluate((1L << cards[o])
+							| (1L << cards[o + 1]));
+
+					if (other > strength) {
+						lost = true;
+						break;
+					}
+
+					if (other == strength)
+						tied++;
+				}
+
+				samples++;
+
+				if (lost)
+					continue;
+
+				if (tied == 0) {
+					wins++;
+					sum += 1;
+					sumOfSquares += 1;
+				} else {
+					final double share = 1.0 / (tied + 1);
+					ties++;
+					sum += share;
+					sumOfSquares += share * share;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package me.ars.pokerbot;
+
+import java.util.SplittableRandom;
+
+/*
+ * Folds to any bet when its equity against the players left in the hand is
+ * below one threshold, raises by half the pot when it is above another, and
+ * checks or calls otherwise.
+ *
+ * Preflop equities come from the precomputed table when one is given;
+ * everything else is estimated from a small number of samples.
+ */
+public class EquityThresholdStrategy implements Strategy {
+	private static final int DEFAULT_SAMPLES = 100;
+
+	private final double foldBelow;
+	private final double raiseAbove;
+	private final int samples;
+	private final PreflopTable preflopTable;
+
+	public EquityThresholdStrategy(double foldBelow, double raiseAbove,
+			PreflopTable preflopTable) {
+		this(foldBelow, raiseAbove, DEFAULT_SAMPLES, preflopTable);
+	}
+
+	/*
+	 * @param samples number of samples per equity estimate
+	 *
+	 * @param preflopTable table of preflop equities, or null to estimate them
+	 * too
+	 */
+	public EquityThresholdStrategy(double foldBelow, double raiseAbove,
+			int samples, PreflopTable preflopTable) {
+		this.foldBelow = foldBelow;
+		this.raiseAbove = raiseAbove;
+		this.samples = samples;
+		this.preflopTable = preflopTable;
+	}
+
+	@Override
+	public Decision decide(GameEngine game, Player player,
+			SplittableRandom random) {
+		final int owed = game.amountOwed(player);
+		final double equity = equity(game, player, random);
+
+		if (equity < foldBelow && owed > 0)
+			return Decision.FOLD;
+
+		if (equity > raiseAbove) {
+			final int raise = Math.min(player.getMoney() - owed,
+					Math.max(game.getPot() / 2, game.getAnte()));
+
+			if (raise > 0)
+				return Decision.raise(raise);
+		}
+
+		return Decision.checkOrCall(owed);
+	}
+
+	private double equity(GameEngine game, Player player,
+			SplittableRandom random) {
+		final int opponents = game.getPlayersInHand() - 1;
+
+		if (game.getBoard().isEmpty() && preflopTable != null
+				&& opponents <= PreflopTable.MAX_OPPONENTS) {
+			return preflopTable.equity(
+					PreflopTable.classOf(player.getCard1(), player.getCard2()),
+					opponents);
+		}
+
+		final long hole = player.getCard1().getMask()
+				| player.getCard2().getMask();
+
+		return EquityCalculator.estimate(hole, CardSet.of(game.getBoard()),
+				opponents, samples, random).getEquity();
+	}
+
+	@Override
+	public String getName() {
+		return "equity(" + foldBelow + "," + raiseAbove + ")";
+	}
+}
@@ -0,0 +1,640 @@
+package me.ars.pokerbot;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.SplittableRandom;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+/*
+ * Offline tool checking hand evaluation against every one of the 133,784,560
+ * seven-card combinations, and measuring how many it gets through per second.
+ *
+ * Usage: EvaluatorVerifier [reference interval [Omaha hands]]
+ *
+ * Three passes are made over all the combinations:
+ *
+ * - HandEvaluator alone, counting the hands of each type, which must match the
+ * known distribution of seven-card hands.
+ *
+ * - BoardEvaluator, with each combination split into a board (its five lowest
+ * cards) and hole cards (its two highest), which must agree with HandEvaluator.
+ * The board is set whole, and also reached by adding cards to a flop of its
+ * three lowest cards and to a turn of its four lowest; the hole cards must
+ * agree with HandEvaluator on the flop and the turn as well.
+ *
+ * - A reference evaluator, scoring each of the 21 five-card hands of a
+ * combination by plain counting, which must agree with HandEvaluator, and the
+ * five cards Hand picks out for the winning hand, which must make the same
+ * hand. This is by far the slowest pass, so only every combination at the
+ * given interval (1 by default, every one) is checked.
+ *
+ * Combinations are spread over the common fork/join pool, by their two lowest
+ * cards.
+ *
+ * Omaha hands are too many to go through, so a last pass checks
+ * OmahaEvaluator on the given number of random hands (1,000,000 by default),
+ * half of them dealt from only two suits to make flushes common, against the
+ * best of the 60 hands of two hole cards and three board cards scored by the
+ * reference evaluator, on the flop, the turn and the river.
+ *
+ * Exits with status 1 if any check fails.
+ */
+public class EvaluatorVerifier {
+	static final long COMBINATIONS = 133784560L;
+
+	/*
+	 * number of seven-card combinations making each type of hand, from high
+	 * card to straight flush
+	 */
+	static final long[] DISTRIBUTION = { 23294460L, 58627800L,
+			31433400L, 6461620L, 6180020L, 4047644L, 3473184L, 224848L,
+			41584L };
+
+	private static final Hand.HandType[] TYPES = Hand.HandType.values();
+
+	/*
+	 * the two lowest cards of combinations, packed as (first << 8) | second,
+	 * each the unit of work of one task
+	 */
+	private static final int[] PREFIXES;
+
+	static {
+		int count = 0;
+
+		for (int c0 = 0; c0 < 52 - 6; c0++)
+			count += 52 - 6 - c0;
+
+		PREFIXES = new int[count];
+		count = 0;
+
+		for (int c0 = 0; c0 < 52 - 6; c0++) {
+			for (int c1 = c0 + 1; c1 < 52 - 5; c1++)
+				PREFIXES[count++] = (c0 << 8) | c1;
+		}
+	}
+
+	public static void main(String[] args) {
+		final int interval = args.length > 0 ? Integer.parseInt(args[0]) : 1;
+
+		final int omahaHands = args.length > 1 ? Integer.parseInt(args[1])
+				: 1000000;
+
+		if (interval < 1)
+			throw new IllegalArgumentException("Invalid interval: " + interval);
+		if (omahaHands < 0)
+			throw new IllegalArgumentException("Invalid number of hands: "
+					+ omahaHands);
+
+		final ForkJoinPool pool = ForkJoinPool.commonPool();
+		boolean passed = true;
+
+		System.out.printf("Checking %,d combinations (%d threads)...%n",
+				COMBINATIONS, pool.getParallelism());
+
+		final Tally counts = run(pool, "HandEvaluator", CountingCheck::new);
+
+		for (int type = 0; type < DISTRIBUTION.length; type++) {
+			final boolean matches = counts.types[type] == DISTRIBUTION[type];
+
+			System.out.printf("  %-16s %,12d%s%n", TYPES[type].name(),
+					counts.types[type], matches ? "" : " (expected "
+							+ String.format("%,d", DISTRIBUTION[type]) + ")");
+			passed &= matches;
+		}
+
+		passed &= counts.checked == COMBINATIONS;
+		passed &= run(pool, "BoardEvaluator", BoardCheck::new).passed();
+		passed &= run(pool, "reference", () -> new ReferenceCheck(interval))
+				.passed();
+		passed &= runOmaha(pool, omahaHands).passed();
+
+		System.out.println(passed ? "All checks passed." : "CHECKS FAILED.");
+
+		if (!passed)
+			System.exit(1);
+	}
+
+	/*
+	 * Makes one pass over all the combinations, reporting its mismatches and
+	 * throughput.
+	 */
+	private static Tally run(ForkJoinPool pool, String name,
+			Supplier<Check> checks) {
+		final long start = System.nanoTime();
+		final Tally tally = pool.invoke(new PassTask(checks, 0,
+				PREFIXES.length));
+		final double seconds = (System.nanoTime() - start) / 1e9;
+
+		System.out.printf("%s: %,d combinations checked in %.2f s"
+				+ " (%,.0f combinations/s), %,d mismatches.%n", name,
+				tally.checked, seconds, COMBINATIONS / seconds,
+				tally.mismatches);
+
+		if (tally.mismatches > 0) {
+			System.out.printf("  first mismatch: %s, expected %08x, got %08x%n",
+					CardSet.toString(tally.example), tally.expected,
+					tally.actual);
+		}
+
+		return tally;
+	}
+
+	/*
+	 * Checks the given number of random Omaha hands, reporting their
+	 * mismatches and throughput.
+	 */
+	private static Tally runOmaha(ForkJoinPool pool, int hands) {
+		final long start = System.nanoTime();
+		final Tally tally = pool.invoke(new OmahaTask(0, hands));
+		final double seconds = (System.nanoTime() - start) / 1e9;
+
+		System.out.printf("Omaha: %,d hands checked in %.2f s"
+				+ " (%,.0f hands/s), %,d mismatches.%n", tally.checked,
+				seconds, tally.checked / seconds, tally.mismatches);
+
+		if (tally.mismatches > 0) {
+			System.out.printf("  first mismatch: %s, expected %08x, got %08x%n",
+					CardSet.toString(tally.example), tally.expected,
+					tally.actual);
+		}
+
+		return tally;
+	}
+
+	/*
+	 * what one pass found over some of the combinations
+	 */
+	private static final class Tally {
+		final long[] types = new long[DISTRIBUTION.length];
+		long checked;
+		long mismatches;
+
+		/*
+		 * the first combination found to be wrong, and its strengths
+		 */
+		long example;
+		int expected;
+		int actual;
+
+		boolean check(long cards, int expected, int actual) {
+			checked++;
+			return agree(cards, expected, actual);
+		}
+
+		/*
+		 * same as check, for further checks of a combination already counted
+		 */
+		boolean agree(long cards, int expected, int actual) {
+			if (expected == actual)
+				return true;
+
+			mismatch(cards, expected, actual);
+			return false;
+		}
+
+		void mismatch(long cards, int expected, int actual) {
+			if (mismatches++ == 0) {
+				this.example = cards;
+				this.expected = expected;
+				this.actual = actual;
+			}
+		}
+
+		void add(Tally other) {
+			for (int type = 0; type < types.length; type++)
+				types[type] += other.types[type];
+
+			checked += other.checked;
+
+			if (mismatches == 0 && other.mismatches > 0) {
+				example = other.example;
+				expected = other.expected;
+				actual = other.actual;
+			}
+
+			mismatches += other.mismatches;
+		}
+
+		boolean passed() {
+			return mismatches == 0;
+		}
+	}
+
+	/*
+	 * a check of every combination, given as a board of its five lowest
+	 * cards followed by each pair of higher hole cards; each task has its own
+	 */
+	private static abstract class Check {
+		final Tally tally = new Tally();
+
+		void setBoard(long board) {
+		}
+
+		abstract void check(long board, long hole);
+	}
+
+	private static final class CountingCheck extends Check {
+		@Override
+		void check(long board, long hole) {
+			tally.types[HandEvaluator.type(HandEvaluator.evaluate(board | hole))]++;
+			tally.checked++;
+		}
+	}
+
+	private static final class BoardCheck extends Check {
+		/*
+		 * the board set whole, reached from the flop, and from the turn
+		 */
+		private final BoardEvaluator river = new BoardEvaluator();
+		private final BoardEvaluator fromFlop = new BoardEvaluator();
+		private final BoardEvaluator fromTurn = new BoardEvaluator();
+
+		private final BoardEvaluator flop = new BoardEvaluator();
+		private final BoardEvaluator turn = new BoardEvaluator();
+
+		@Override
+		void setBoard(long board) {
+			// the two highest cards
+			final long last = CardSet.rest(CardSet.rest(CardSet.rest(board)));
+			final Card fourth = Card.of(CardSet.first(last));
+			final Card fifth = Card.of(CardSet.first(CardSet.rest(last)));
+
+			// the three, and four, lowest cards
+			flop.set(board ^ fourth.getMask() ^ fifth.getMask());
+			turn.set(board ^ fifth.getMask());
+
+			river.set(board);
+			fromFlop.set(flop.getBoard());
+			fromFlop.add(fourth);
+			fromFlop.add(fifth);
+			fromTurn.set(turn.getBoard());
+			fromTurn.add(fifth);
+		}
+
+		@Override
+		void check(long board, long hole) {
+			final long all = board | hole;
+			final int expected = HandEvaluator.evaluate(all);
+
+			if (!tally.check(all, expected, river.evaluate(hole))
+					|| !tally.agree(all, expected, fromFlop.evaluate(hole))
+					|| !tally.agree(all, expected, fromTurn.evaluate(hole)))
+				return;
+
+			final long flopHand = flop.getBoard() | hole;
+			final long turnHand = turn.getBoard() | hole;
+
+			if (tally.agree(flopHand, HandEvaluator.evaluate(flopHand),
+					flop.evaluate(hole)))
+				tally.agree(turnHand, HandEvaluator.evaluate(turnHand),
+						turn.evaluate(hole));
+		}
+	}
+
+	private static final class ReferenceCheck extends Check {
+		private final ReferenceEvaluator reference = new ReferenceEvaluator();
+		private final int interval;
+		private int skipped;
+
+		ReferenceCheck(int interval) {
+			this.interval = interval;
+		}
+
+		@Override
+		void check(long board, long hole) {
+			if (++skipped < interval)
+				return;
+
+			skipped = 0;
+
+			final long all = board | hole;
+			final int strength = HandEvaluator.evaluate(all);
+
+			if (!tally.check(all, reference.evaluate(all), strength))
+				return;
+
+			// the cards shown for the hand must make it, out of those held
+			final Card[] shown = Hand.fromRank(null, strength,
+					CardSet.toCards(all)).getCards();
+			final int shownStrength = strengthOf(shown, all);
+
+			if (shownStrength != strength)
+				tally.mismatch(all, strength, shownStrength);
+		}
+	}
+
+	/*
+	 * strength of five cards picked out of the given ones, or -1 if they are
+	 * not five distinct cards among them
+	 */
+	private static int strengthOf(Card[] shown, long cards) {
+		long mask = CardSet.EMPTY;
+
+		for (Card card : shown) {
+			if (card != null)
+				mask |= card.getMask();
+		}
+
+		if (Long.bitCount(mask) != 5 || !CardSet.containsAll(cards, mask))
+			return -1;
+
+		return HandEvaluator.evaluate(mask);
+	}
+
+	/*
+	 * Scores hands the plain way, trying every five cards a hand can be made
+	 * of. Not thread-safe.
+	 */
+	static final class ReferenceEvaluator {
+		private final int[] cards = new int[9];
+		private final int[] five = new int[5];
+		private final int[] counts = new int[13];
+
+		/*
+		 * strength of the best five of 5 to 7 cards
+		 */
+		int evaluate(long all) {
+			final int n = split(all, 0);
+			int best = 0;
+
+			for (int subset = 0; subset < 1 << n; subset++) {
+				if (Integer.bitCount(subset) == 5) {
+					pick(0, subset, 0);
+					best = Math.max(best, evaluateFive());
+				}
+			}
+
+			return best;
+		}
+
+		/*
+		 * strength of the best Omaha hand, of two of the four hole cards and
+		 * three of the board's 3 to 5 cards
+		 */
+		int evaluateOmaha(long hole, long board) {
+			split(hole, 0);
+			final int n = split(board, 4);
+			int best = 0;
+
+			for (int pair = 0; pair < 1 << 4; pair++) {
+				if (Integer.bitCount(pair) != 2)
+					continue;
+
+				for (int triple = 0; triple < 1 << n; triple++) {
+					if (Integer.bitCount(triple) == 3) {
+						pick(4, triple, pick(0, pair, 0));
+						best = Math.max(best, evaluateFive());
+					}
+				}
+			}
+
+			return best;
+		}
+
+		/*
+		 * stores the indices of a set's cards from cards[offset] on, returning
+		 * how many there are
+		 */
+		private int split(long set, int offset) {
+			int n = 0;
+
+			for (long s = set; s != 0; s = CardSet.rest(s))
+				cards[offset + n++] = CardSet.first(s);
+
+			return n;
+		}
+
+		/*
+		 * copies the cards at the bits of subset, from cards[offset] on, to
+		 * five[m] on, returning the position after them
+		 */
+		private int pick(int offset, int subset, int m) {
+			for (int i = 0; subset >>> i != 0; i++) {
+				if ((subset & (1 << i)) != 0)
+					five[m++] = cards[offset + i];
+			}
+
+			return m;
+		}
+
+		/*
+		 * strength of the five cards in five, by counting their ranks and
+		 * suits, in HandEvaluator's encoding: the type, then the ranks of the
+		 * five cards, by how many of each there are and then by rank
+		 */
+		private int evaluateFive() {
+			Arrays.fill(counts, 0);
+			boolean flush = true;
+
+			for (int i = 0; i < 5; i++) {
+				counts[five[i] % 13]++;
+				flush &= five[i] / 13 == five[0] / 13;
+			}
+
+			int packed = 0;
+			int taken = 0;
+			int most = 0;
+			int pairs = 0;
+
+			for (int count = 4; count > 0; count--) {
+				for (int rank = 12; rank >= 0; rank--) {
+					if (counts[rank] != count)
+						continue;
+
+					most = Math.max(most, count);
+
+					if (count == 2)
+						pairs++;
+
+					for (int c = 0; c < count; c++)
+						packed |= rank << (16 - 4 * taken++);
+				}
+			}
+
+			boolean straight = false;
+
+			if (most == 1) {
+				final int top = (packed >>> 16) & 0xF;
+				final int bottom = packed & 0xF;
+
+				if (top - bottom == 4) {
+					straight = true;
+				} else if (top == 12 && (packed & 0xFFFF) == 0x3210) {
+					// the wheel, with the ace playing low
+					straight = true;
+					packed = 0x3210C;
+				}
+			}
+
+			final Hand.HandType type;
+
+			if (straight && flush)
+				type = Hand.HandType.STRAIGHT_FLUSH;
+			else if (most == 4)
+				type = Hand.HandType.FOUR_OF_KIND;
+			else if (most == 3 && pairs == 1)
+				type = Hand.HandType.FULL_HOUSE;
+			else if (flush)
+				type = Hand.HandType.FLUSH;
+			else if (straight)
+				type = Hand.HandType.STRAIGHT;
+			else if (most == 3)
+				type = Hand.HandType.THREE_OF_KIND;
+			else if (pairs == 2)
+				type = Hand.HandType.TWO_PAIR;
+			else if (pairs == 1)
+				type = Hand.HandType.ONE_PAIR;
+			else
+				type = Hand.HandType.HIGH_CARD;
+
+			return (type.ordinal() << HandEvaluator.TYPE_SHIFT) | packed;
+		}
+	}
+
+	/*
+	 * checks the Omaha hands [from, to), each from its own random seed
+	 */
+	private static final class OmahaTask extends RecursiveTask<Tally> {
+		private static final long serialVersionUID = 1L;
+
+		private static final int HANDS_PER_TASK = 10000;
+
+		private final int from;
+		private final int to;
+
+		OmahaTask(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected Tally compute() {
+			if (to - from > HANDS_PER_TASK) {
+				final int mid = (from + to) >>> 1;
+				final OmahaTask left = new OmahaTask(from, mid);
+				final OmahaTask right = new OmahaTask(mid, to);
+				invokeAll(left, right);
+
+				final Tally tally = left.join();
+				tally.add(right.join());
+				return tally;
+			}
+
+			final Tally tally = new Tally();
+			final OmahaEvaluator evaluator = new OmahaEvaluator();
+			final ReferenceEvaluator reference = new ReferenceEvaluator();
+			final int[] deck = new int[52];
+
+			for (int hand = from; hand < to; hand++) {
+				final SplittableRandom random = new SplittableRandom(hand);
+				int size = 0;
+
+				if (hand % 2 == 0) {
+					for (int i = 0; i < 52; i++)
+						deck[size++] = i;
+				} else {
+					final int suit1 = random.nextInt(4);
+					final int suit2 = (suit1 + 1 + random.nextInt(3)) % 4;
+
+					for (int rank = 0; rank < 13; rank++) {
+						deck[size++] = 13 * suit1 + rank;
+						deck[size++] = 13 * suit2 + rank;
+					}
+				}
+
+				// deal the four hole cards, and then the board, off the top
+				for (int i = 0; i < 9; i++) {
+					final int j = i + random.nextInt(size - i);
+					final int card = deck[j];
+					deck[j] = deck[i];
+					deck[i] = card;
+				}
+
+				final long hole = CardSet.of(deck[0], deck[1], deck[2],
+						deck[3]);
+				evaluator.set(CardSet.of(deck[4], deck[5], deck[6]));
+				tally.checked++;
+
+				for (int street = 0; street < 3; street++) {
+					if (street > 0)
+						evaluator.add(Card.of(deck[6 + street]));
+
+					final long board = evaluator.getBoard();
+					final int strength = evaluator.evaluate(hole);
+
+					if (!tally.agree(hole | board,
+							reference.evaluateOmaha(hole, board), strength))
+						break;
+
+					// two of the hole cards and three of the board's
+					final Card[] shown = evaluator.bestHand(hole, strength);
+					int shownStrength = strengthOf(shown, hole | board);
+
+					if (shownStrength >= 0
+							&& CardSet.count(CardSet.intersection(
+									CardSet.of(shown), hole)) != 2)
+						shownStrength = -1;
+
+					if (!tally.agree(hole | board, strength, shownStrength))
+						break;
+				}
+			}
+
+			return tally;
+		}
+	}
+
+	/*
+	 * checks the combinations starting with the prefixes [from, to)
+	 */
+	private static final class PassTask extends RecursiveTask<Tally> {
+		private static final long serialVersionUID = 1L;
+
+		private final Supplier<Check> checks;
+		private final int from;
+		private final int to;
+
+		PassTask(Supplier<Check> checks, int from, int to) {
+			this.checks = checks;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected Tally compute() {
+			if (to - from > 1) {
+				final int mid = (from + to) >>> 1;
+				final PassTask left = new PassTask(checks, from, mid);
+				final PassTask right = new PassTask(checks, mid, to);
+				invokeAll(left, right);
+
+				final Tally tally = left.join();
+				tally.add(right.join());
+				return tally;
+			}
+
+			final Check check = checks.get();
+			final int c0 = PREFIXES[from] >>> 8;
+			final int c1 = PREFIXES[from] & 0xFF;
+			final long prefix = (1L << c0) | (1L << c1);
+
+			for (int c2 = c1 + 1; c2 < 52 - 4; c2++) {
+				for (int c3 = c2 + 1; c3 < 52 - 3; c3++) {
+					for (int c4 = c3 + 1; c4 < 52 - 2; c4++) {
+						final long board = prefix | (1L << c2) | (1L << c3)
+								| (1L << c4);
+						check.setBoard(board);
+
+						for (int h0 = c4 + 1; h0 < 52 - 1; h0++) {
+							for (int h1 = h0 + 1; h1 < 52; h1++)
+								check.check(board, (1L << h0) | (1L << h1));
+						}
+					}
+				}
+			}
+
+			return check.tally;
+		}
+	}
+}
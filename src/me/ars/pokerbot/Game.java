@@ -0,0 +1,611 @@
+package me.ars.pokerbot;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import me.ars.pokerbot.GameEngine.Action;
+import me.ars.pokerbot.OutboundScheduler.Priority;
+
+import org.jibble.pircbot.Colors;
+
+/*
+ * One of the games being played at a channel's table: wraps a GameEngine and
+ * reports its events to the channel. While the table has more than one game
+ * open, announcements are prefixed with the game's number so that players can
+ * tell them apart.
+ *
+ * After every action, the game's state is written to its checkpoint file (if
+ * the bot keeps checkpoints), so that a hand interrupted by a restart can be
+ * resumed from the turn it was at.
+ *
+ * Computer players think on a pool of their own (see ComputerPlayers), and
+ * act back on the table's mailbox once they have, provided it is still their
+ * turn. Their turns are clocked like anyone's, in case they never do.
+ *
+ * A game belongs to its table and is confined to the table's mailbox.
+ */
+public class Game implements GameListener {
+	/*
+	 * time allowed for computing the reply to an odds request
+	 */
+	private static final long ODDS_BUDGET_NANOS = TimeUnit.MILLISECONDS
+			.toNanos(50);
+
+	private static final EquityCalculator EQUITY_CALCULATOR = new EquityCalculator();
+
+	private final PokerBot bot;
+	private final Table table;
+	private final String channel;
+	private final int id;
+	private final int stake;
+	private final Variant variant;
+
+	/*
+	 * the ante, from the next hand on if it was just changed
+	 */
+	private int ante;
+
+	private final GameEngine engine;
+
+	/*
+	 * what announcements are prefixed with while other games are being played
+	 * in the channel
+	 */
+	private final String prefix;
+
+	private final Renderer renderer = new Renderer();
+
+	/*
+	 * the clock of the current turn, if running, and the number of the turn:
+	 * a clock that runs out once its turn is over is ignored
+	 */
+	private TimingWheel.Timeout clock;
+	private int turn = 0;
+
+	/*
+	 * the decision the computer player whose turn it is is working out, if
+	 * any, cancelled along with the turn's clock
+	 */
+	private Future<?> thinking;
+
+	/*
+	 * where the game's state is written after every action, or null if it is
+	 * not, and the buffer it is written to first
+	 */
+	private final CheckpointFile checkpoint;
+	private final ByteBuffer state;
+
+	/*
+	 * @param stake the index of the game's stake in the table's lobby
+	 */
+	Game(PokerBot bot, Table table, int id, int stake, Variant variant,
+			int ante) {
+		this(bot, table, id, stake, variant, ante, createCheckpoint(bot,
+				table.getChannel(), id));
+	}
+
+	/*
+	 * a game checkpointed to the given file, or not at all if it is null
+	 */
+	Game(PokerBot bot, Table table, int id, int stake, Variant variant,
+			int ante, CheckpointFile checkpoint) {
+		this.bot = bot;
+		this.table = table;
+		this.channel = table.getChannel();
+		this.id = id;
+		this.stake = stake;
+		this.variant = variant;
+		this.ante = ante;
+		this.prefix = "[Table " + id + "] ";
+		this.engine = new GameEngine(this, Constants.getConfig()
+				.getStartMoney(), ante);
+		this.engine.setVariant(variant);
+		this.engine.setBankroll(bot.getBankroll());
+		this.engine.setMetrics(bot.getMetrics());
+		this.checkpoint = checkpoint;
+		this.state = checkpoint == null ? null : ByteBuffer
+				.allocate(CheckpointFile.CAPACITY);
+
+		if (bot.getHistory() != null)
+			this.engine.addListener(new HandRecorder(engine, channel + "/"
+					+ id, bot.getHistory()));
+	}
+
+	private static CheckpointFile createCheckpoint(PokerBot bot,
+			String channel, int id) {
+		if (bot.getCheckpoints() == null)
+			return null;
+
+		try {
+			return bot.getCheckpoints().create(channel, id);
+		} catch (IOException ioe) {
+			System.err.println("Could not create checkpoint, game " + id
+					+ " in " + channel + " will not survive a restart: "
+					+ ioe.getMessage());
+			return null;
+		}
+	}
+
+	public int getId() {
+		return id;
+	}
+
+	public int getStake() {
+		return stake;
+	}
+
+	public GameEngine getEngine() {
+		return engine;
+	}
+
+	/*
+	 * Stops the game without announcing it.
+	 */
+	void stop() {
+		stopClock();
+		engine.stopGame();
+		discardCheckpoint();
+	}
+
+	/*
+	 * Writes the state of the game to its checkpoint file, if it has one.
+	 * Called after every action, and whenever the game changes between them.
+	 */
+	void checkpoint() {
+		if (checkpoint == null || !engine.isGameInProgress())
+			return;
+
+		state.clear();
+
+		try {
+			Checkpoints.putString(state, channel);
+			state.putInt(id);
+			state.putInt(stake);
+			state.put((byte) variant.ordinal());
+			state.putInt(ante);
+			engine.saveState(state);
+		} catch (BufferOverflowException boe) {
+			System.err.println("Game " + id + " in " + channel
+					+ " is too large to checkpoint.");
+			return;
+		}
+
+		state.flip();
+		checkpoint.write(state);
+	}
+
+	private void discardCheckpoint() {
+		if (checkpoint != null)
+			checkpoint.delete();
+	}
+
+	/*
+	 * Carries on with a hand restored from a checkpoint: players are reminded
+	 * of their cards, and the player whose turn it was has their clock
+	 * started afresh.
+	 */
+	void resume() {
+		announce("Resuming the hand interrupted by a restart.");
+
+		for (Player player : engine.getPlayers()) {
+			if (!player.isFolded())
+				onCardsDealt(player, player.getCards());
+		}
+
+		onTurn(engine.getCurrentPlayer());
+	}
+
+	/*
+	 * Puts a reloaded configuration into effect, with the given ante from the
+	 * next hand on.
+	 */
+	void onConfigChanged(Config config, int ante) {
+		engine.setStartMoney(config.getStartMoney());
+
+		if (ante != this.ante) {
+			this.ante = ante;
+			engine.setAnte(ante);
+			announce(renderer.begin("The ante will be ").money(ante)
+					.text(" from the next hand.").toString());
+			checkpoint();
+		}
+	}
+
+	/*
+	 * Starts the clock of the player whose turn it is, stopping that of the
+	 * previous turn.
+	 */
+	private void startClock(Player player) {
+		stopClock();
+
+		final Config config = Constants.getConfig();
+		final int time = config.getTurnTime();
+		final int warning = config.getTurnWarning();
+
+		if (time == 0)
+			return;
+
+		final int thisTurn = turn;
+
+		if (warning > 0) {
+			clock = schedule(() -> warn(thisTurn, player, warning), time
+					- warning);
+		} else {
+			clock = schedule(() -> timeUp(thisTurn, player), time);
+		}
+	}
+
+	private void stopClock() {
+		turn++;
+
+		if (clock != null) {
+			clock.cancel();
+			clock = null;
+		}
+
+		if (thinking != null) {
+			thinking.cancel(true);
+			thinking = null;
+		}
+	}
+
+	/*
+	 * Schedules a task to be run on the table's mailbox after the given
+	 * number of seconds.
+	 */
+	private TimingWheel.Timeout schedule(Runnable task, int seconds) {
+		return bot.getTimers().schedule(
+				() -> table.execute(() -> table.onTimer(task)), seconds,
+				TimeUnit.SECONDS);
+	}
+
+	private void warn(int clockTurn, Player player, int warning) {
+		if (clockTurn != turn)
+			return;
+
+		if (!player.isComputer())
+			bot.sendReply(channel, player.getName(), warning
+					+ (warning == 1 ? " second" : " seconds")
+					+ " left to act!", Priority.HIGH);
+
+		clock = schedule(() -> timeUp(clockTurn, player), warning);
+	}
+
+	/*
+	 * The player took too long to act: they check if they can, and fold
+	 * otherwise.
+	 */
+	private void timeUp(int clockTurn, Player player) {
+		if (clockTurn != turn)
+			return;
+
+		clock = null;
+
+		if (engine.amountOwed(player) == 0) {
+			announce(player.getName() + " ran out of time, and checks.");
+			engine.act(Action.CHECK);
+		} else {
+			announce(player.getName() + " ran out of time, and folds.");
+			engine.act(Action.FOLD);
+		}
+	}
+
+	/*
+	 * Has the computer player whose turn it is work out their equity, and act
+	 * on it once they have.
+	 */
+	private void think(Player player) {
+		final int thisTurn = turn;
+		final long start = System.nanoTime();
+
+		thinking = bot.getComputerPlayers().think(
+				player.getHoleMask(),
+				CardSet.of(engine.getBoard()),
+				engine.getPlayersInHand() - 1,
+				equity -> table.execute(() -> table.onTimer(() -> decide(
+						thisTurn, player, equity, start))));
+	}
+
+	private void decide(int thinkingTurn, Player player, double equity,
+			long start) {
+		if (thinkingTurn != turn)
+			return;
+
+		thinking = null;
+		bot.getMetrics().getComputerDecision().recordSince(start);
+
+		final Decision decision = ComputerPlayers.getStrategy().decide(engine,
+				player, equity);
+
+		// a raise can fall foul of the pot limit or the minimum raise
+		if (!engine.act(decision.getAction(), decision.getAmount())
+				&& !engine.act(Action.CALL))
+			engine.act(Action.FOLD);
+	}
+
+	/*
+	 * whether all the players left, seated or arriving, are computers
+	 */
+	private boolean onlyComputersLeft() {
+		for (Player player : engine.getPlayers()) {
+			if (!player.isComputer())
+				return false;
+		}
+
+		for (Player player : engine.getArriving()) {
+			if (!player.isComputer())
+				return false;
+		}
+
+		return true;
+	}
+
+	/*
+	 * Ends the game once nobody is left to play against the computer players.
+	 */
+	private void endComputersOnly(int endingTurn) {
+		if (endingTurn != turn)
+			return;
+
+		stop();
+		announce("Only computer players are left: game ended.");
+		table.onGameOver(this);
+	}
+
+	/*
+	 * Sends the sender their current chances of winning the hand.
+	 */
+	void odds(String sender) {
+		Player player = null;
+		int opponents = -1;
+
+		for (Player p : engine.getPlayers()) {
+			if (p.isFolded())
+				continue;
+
+			if (p.getName().equals(sender))
+				player = p;
+
+			opponents++;
+		}
+
+		if (player == null) {
+			bot.sendReply(channel, sender, "You are not playing this hand.");
+			return;
+		}
+
+		final int numOpponents = opponents;
+		final List<Card> board = engine.getBoard();
+
+		if (variant != Variant.HOLDEM) {
+			bot.send(sender, (board.isEmpty() ? "" : "You have "
+					+ Hand.typeOf(engine.evaluate(player)) + ". ")
+					+ "Equities are only available in hold 'em games.");
+			return;
+		}
+		final PreflopTable preflopTable = board.isEmpty() ? PreflopTable
+				.getDefault() : null;
+
+		if (preflopTable != null && numOpponents <= PreflopTable.MAX_OPPONENTS) {
+			final int handClass = PreflopTable.classOf(player.getCard1(),
+					player.getCard2());
+
+			bot.send(sender, "Your equity against " + numOpponents
+					+ " opponent" + (numOpponents == 1 ? "" : "s") + ": "
+					+ Colors.BOLD
+					+ String.format("%.1f%%", 100 * preflopTable.equity(
+							handClass, numOpponents)) + Colors.NORMAL + " ("
+					+ PreflopTable.className(handClass) + ")");
+			return;
+		}
+
+		final long hole = player.getCard1().getMask()
+				| player.getCard2().getMask();
+		final long boardMask = CardSet.of(board);
+
+		// what the player holds now, from the board the engine has evaluated
+		final String holding = board.isEmpty() ? "" : "You have "
+				+ Hand.typeOf(engine.evaluate(player)) + ". ";
+
+		/*
+		 * the calculation is spread over the fork/join pool, so that it
+		 * neither blocks nor is limited to the IRC thread
+		 */
+		CompletableFuture.supplyAsync(
+				() -> EQUITY_CALCULATOR.calculate(hole, boardMask,
+						numOpponents, ODDS_BUDGET_NANOS), ForkJoinPool
+						.commonPool())
+				.whenComplete(
+						(equity, e) -> {
+							if (e != null) {
+								oddsFailed(sender, e);
+								return;
+							}
+
+							bot.send(sender, holding + "Your equity against "
+									+ numOpponents + " opponent"
+									+ (numOpponents == 1 ? "" : "s") + ": "
+									+ Colors.BOLD + equity + Colors.NORMAL
+									+ (equity.isExact() ? " (exact)" : ""));
+						});
+	}
+
+	private void oddsFailed(String sender, Throwable e) {
+		// the calculation's own exception, rather than what wraps it
+		final Throwable cause = e instanceof CompletionException
+				&& e.getCause() != null ? e.getCause() : e;
+
+		System.err.println("Could not compute the odds of " + sender + " in "
+				+ channel + ": " + cause);
+		bot.send(sender, "Sorry, your equity could not be worked out.");
+	}
+
+	/*
+	 * Sends a message to the channel, marked with this game's number if other
+	 * games are being played there.
+	 */
+	private void announce(String message) {
+		announce(message, Priority.NORMAL);
+	}
+
+	private void announce(String message, Priority priority) {
+		if (table.getGameCount() > 1)
+			bot.send(channel, prefix + message, priority);
+		else
+			bot.send(channel, message, priority);
+	}
+
+	/*
+	 * game events, reported to the channel (and the table, where it needs to
+	 * reseat players)
+	 */
+
+	@Override
+	public void onGameStarted() {
+		if (variant == Variant.OMAHA)
+			announce("Dealing " + variant + ": four cards each, of which"
+					+ " exactly two make a hand with three from the table."
+					+ " Raises are limited to the size of the pot.");
+
+		announce(renderer.startingGame(engine.getPlayers()));
+	}
+
+	@Override
+	public void onGameOver() {
+		stopClock();
+		discardCheckpoint();
+		announce("Not enough players left to continue: game ended.");
+		table.onGameOver(this);
+	}
+
+	@Override
+	public void onPlayerLeft(Player player) {
+		table.onPlayerLeft(this, player);
+	}
+
+	@Override
+	public void onHandStarted() {
+		announce("Starting new hand...");
+
+		announce(renderer.stacks(engine.getPlayers()));
+	}
+
+	@Override
+	public void onCardsDealt(Player player, List<Card> cards) {
+		if (!player.isComputer())
+			bot.send(player.getName(), renderer.dealt(cards), Priority.HIGH);
+	}
+
+	@Override
+	public void onAntesCollected(int ante) {
+		announce(renderer.begin("Collecting a ").money(ante)
+				.text(" ante from each player...").toString());
+	}
+
+	@Override
+	public void onTurn(Player player) {
+		announce(renderer.status(engine.getBoard(), engine.getPot()));
+
+		announce(player.getName() + "'s turn!", Priority.HIGH);
+		startClock(player);
+		checkpoint();
+
+		if (!player.isComputer())
+			return;
+
+		if (onlyComputersLeft()) {
+			// the engine cannot be stopped from within its own callback
+			final int thisTurn = turn;
+			table.execute(() -> table.onTimer(() -> endComputersOnly(thisTurn)));
+		} else {
+			think(player);
+		}
+	}
+
+	@Override
+	public void onCalled(Player player, int amount, int owed) {
+		renderer.begin("You called! (").money(amount);
+
+		if (amount != owed)
+			renderer.text(" of ").money(owed);
+
+		bot.sendReply(channel, player.getName(), renderer.text(')').toString());
+	}
+
+	@Override
+	public void onChecked(Player player) {
+		bot.sendReply(channel, player.getName(), "You checked!");
+	}
+
+	@Override
+	public void onRaised(Player player, int amount) {
+		bot.sendReply(channel, player.getName(), renderer.begin("You raised ")
+				.money(amount).text('.').toString());
+	}
+
+	@Override
+	public void onAllIn(Player player) {
+		bot.sendReply(channel, player.getName(), "Going all in...");
+	}
+
+	@Override
+	public void onFolded(Player player) {
+		bot.sendReply(channel, player.getName(), "You folded!");
+	}
+
+	@Override
+	public void onCashedOut(Player player) {
+		bot.sendReply(channel, player.getName(),
+				renderer.begin("You cashed out with ").money(player.getMoney())
+						.text('!').toString());
+	}
+
+	@Override
+	public void onActionRejected(Player player, Action action, int required) {
+		// computer players fall back to calling
+		if (player.isComputer())
+			return;
+
+		switch (action) {
+		case CHECK:
+			bot.sendReply(channel, player.getName(),
+					renderer.begin("You must at least call last raise (")
+							.money(required).text(").").toString());
+			break;
+		case RAISE:
+			bot.sendReply(channel, player.getName(),
+					renderer.begin("You don't have enough money. You need ")
+							.money(required).text(" but only have ")
+							.money(player.getMoney()).text('.').toString());
+			break;
+		default:
+			break;
+		}
+	}
+
+	@Override
+	public void onRaiseAboveLimit(Player player, int limit) {
+		if (!player.isComputer())
+			bot.sendReply(channel, player.getName(), renderer
+					.begin("Raises are limited to the pot. You can raise by ")
+					.money(limit).text(" at most.").toString());
+	}
+
+	@Override
+	public void onWinByFold(Player winner, int pot) {
+		announce(winner.getName() + " wins (all other players folded)!");
+	}
+
+	@Override
+	public void onShowdown(List<Hand> winners, int share) {
+		announce(renderer.reveal(engine.getPlayers()));
+		announce(renderer.result(winners));
+	}
+}
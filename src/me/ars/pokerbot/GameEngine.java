@@ -0,0 +1,992 @@
+package me.ars.pokerbot;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.IntUnaryOperator;
+
+/*
+ * The betting state machine of a game, independent of IRC: players act through
+ * typed actions, and everything that happens is reported to a GameListener.
+ *
+ * Not thread-safe; an engine must be confined to a single thread at a time.
+ */
+public class GameEngine {
+	public static enum Action {
+		CALL, CHECK, RAISE, ALL_IN, FOLD, CASHOUT
+	}
+
+	public static final int MIN_PLAYERS = 2;
+	public static final int MAX_PLAYERS = 15;
+
+	private GameListener listener;
+	private Variant variant = Variant.HOLDEM;
+	private int startMoney;
+	private int ante;
+
+	/*
+	 * the ante from the next hand on
+	 */
+	private int nextAnte;
+
+	private final List<Player> players = new ArrayList<>();
+	private final List<Player> playersView = Collections
+			.unmodifiableList(players);
+
+	/*
+	 * players who sat in during the game, to be dealt in from the next hand
+	 */
+	private final List<Player> arriving = new ArrayList<>();
+	private final List<Player> arrivingView = Collections
+			.unmodifiableList(arriving);
+
+	private boolean gameInProgress = false;
+
+	/*
+	 * where each hand's deck comes from, or null if this engine reuses a
+	 * single deck of its own
+	 */
+	private final DeckPool deckPool;
+	private Deck deck;
+
+	/*
+	 * where players' money is kept between games, if anywhere
+	 */
+	private Bankroll bankroll;
+	private Metrics metrics;
+
+	private final List<Card> board = new ArrayList<>(5);
+	private final List<Card> boardView = Collections.unmodifiableList(board);
+
+	/*
+	 * the board's part of evaluating every player's hand, kept up to date as
+	 * cards land
+	 */
+	private final BoardEvaluator boardEvaluator = new BoardEvaluator();
+
+	/*
+	 * the same for Omaha, created with the first Omaha game
+	 */
+	private OmahaEvaluator omahaEvaluator;
+
+	/*
+	 * scratch space for showdowns
+	 */
+	private final Card[] showdownCards = new Card[7];
+	private final int[] winnerSeats = new int[MAX_PLAYERS];
+	private final List<Hand> winners = new ArrayList<>(MAX_PLAYERS);
+
+	private int turnIndex;
+	private int lastIndex;
+	private int startPlayer;
+	private int pot;
+	private int raise;
+
+	/*
+	 * an engine dealing from decks shuffled ahead of time by the default
+	 * DeckPool
+	 */
+	public GameEngine(GameListener listener, int startMoney, int ante) {
+		this.listener = listener;
+		this.startMoney = startMoney;
+		this.ante = ante;
+		this.nextAnte = ante;
+		this.deckPool = DeckPool.getDefault();
+	}
+
+	/*
+	 * an engine shuffling its own deck as it deals, for reproducible games
+	 *
+	 * @param random returns a uniformly random int in [0, bound) given the
+	 * bound; used for shuffling
+	 */
+	public GameEngine(GameListener listener, int startMoney, int ante,
+			IntUnaryOperator random) {
+		this.listener = listener;
+		this.startMoney = startMoney;
+		this.ante = ante;
+		this.nextAnte = ante;
+		this.deckPool = null;
+		this.deck = new Deck(random);
+	}
+
+	/*
+	 * Adds a listener, notified of events after those already added.
+	 */
+	public void addListener(GameListener other) {
+		listener = new Multicaster(listener, other);
+	}
+
+	/*
+	 * Keeps the money of players joining from now on in the given bankroll.
+	 */
+	public void setBankroll(Bankroll bankroll) {
+		this.bankroll = bankroll;
+	}
+
+	/*
+	 * Sets the game to be dealt, which cannot change during a game.
+	 */
+	public void setVariant(Variant variant) {
+		if (gameInProgress)
+			throw new IllegalStateException("A game is in progress.");
+
+		this.variant = variant;
+
+		if (variant == Variant.OMAHA && omahaEvaluator == null)
+			omahaEvaluator = new OmahaEvaluator();
+	}
+
+	public Variant getVariant() {
+		return variant;
+	}
+
+	/*
+	 * Sets the ante, which takes effect from the next hand.
+	 */
+	public void setAnte(int ante) {
+		this.nextAnte = ante;
+	}
+
+	/*
+	 * Sets the money given to players joining from now on (unless their
+	 * bankroll has some).
+	 */
+	public void setStartMoney(int startMoney) {
+		this.startMoney = startMoney;
+	}
+
+	/*
+	 * Counts hands and times their setup and showdown in the given metrics.
+	 */
+	public void setMetrics(Metrics metrics) {
+		this.metrics = metrics;
+	}
+
+	public List<Player> getPlayers() {
+		return playersView;
+	}
+
+	/*
+	 * players who sat in during the game, to be dealt in from the next hand
+	 */
+	public List<Player> getArriving() {
+		return arrivingView;
+	}
+
+	public List<Card> getBoard() {
+		return boardView;
+	}
+
+	/*
+	 * Strength of the player's best hand on the current board, as computed by
+	 * HandEvaluator; the board must have been dealt, from the flop on. Costs
+	 * next to nothing, as the board's part is shared by every player.
+	 */
+	public int evaluate(Player player) {
+		if (board.isEmpty())
+			throw new IllegalStateException("No cards on the table.");
+
+		return strength(player);
+	}
+
+	private int strength(Player player) {
+		return variant == Variant.OMAHA ? omahaEvaluator.evaluate(player
+				.getHoleMask()) : boardEvaluator.evaluate(player.getCard1(),
+				player.getCard2());
+	}
+
+	public boolean isGameInProgress() {
+		return gameInProgress;
+	}
+
+	public int getPot() {
+		return pot;
+	}
+
+	public int getAnte() {
+		return ante;
+	}
+
+	/*
+	 * the player whose turn it is
+	 */
+	public Player getCurrentPlayer() {
+		ensureGameInProgress();
+		return players.get(turnIndex);
+	}
+
+	/*
+	 * number of players who have not folded this hand
+	 */
+	public int getPlayersInHand() {
+		int count = 0;
+
+		for (Player player : players) {
+			if (!player.isFolded())
+				count++;
+		}
+
+		return count;
+	}
+
+	public int amountOwed(Player player) {
+		return raise - player.getAmountPayed();
+	}
+
+	/*
+	 * Adds a player for the next game, returning null if a game is in
+	 * progress. With a bankroll, the player brings their balance from it, and
+	 * null is returned if they are already seated at another game.
+	 */
+	public Player addPlayer(String name) {
+		return addPlayer(name, false);
+	}
+
+	/*
+	 * @param computer whether the player is a computer player, which always
+	 * brings the starting money, bankroll or not
+	 */
+	public Player addPlayer(String name, boolean computer) {
+		if (gameInProgress)
+			return null;
+
+		final Player player = newPlayer(name, computer);
+
+		if (player != null)
+			players.add(player);
+
+		return player;
+	}
+
+	/*
+	 * Adds a player to the game in progress, to be dealt in from the next
+	 * hand, returning null if every seat is taken or, as for addPlayer, if
+	 * they are seated at another game. Without a game in progress, this is the
+	 * same as addPlayer.
+	 *
+	 * Unlike other methods, this may be called by listeners.
+	 */
+	public Player sitIn(String name) {
+		return sitIn(name, false);
+	}
+
+	/*
+	 * @param computer as for addPlayer
+	 */
+	public Player sitIn(String name, boolean computer) {
+		if (!gameInProgress)
+			return addPlayer(name, computer);
+
+		if (getSeatCount() >= variant.getMaxPlayers())
+			return null;
+
+		final Player player = newPlayer(name, computer);
+
+		if (player != null)
+			arriving.add(player);
+
+		return player;
+	}
+
+	/*
+	 * number of players in the game, including those yet to be dealt in
+	 */
+	public int getSeatCount() {
+		return players.size() + arriving.size();
+	}
+
+	private Player newPlayer(String name, boolean computer) {
+		if (computer)
+			return Player.computer(name, startMoney);
+
+		if (bankroll == null)
+			return new Player(name, startMoney);
+
+		final int money = bankroll.stake(name, startMoney);
+		return money < 0 ? null : new Player(name, money, bankroll);
+	}
+
+	private static void release(List<Player> players) {
+		for (int i = 0; i < players.size(); i++)
+			players.get(i).release();
+	}
+
+	/*
+	 * Removes a player joined for the next game, returning false if there is
+	 * no such player or if a game is in progress.
+	 */
+	public boolean removePlayer(String name) {
+		if (gameInProgress)
+			return false;
+
+		final Iterator<Player> iter = players.iterator();
+
+		while (iter.hasNext()) {
+			final Player player = iter.next();
+
+			if (player.getName().equals(name)) {
+				iter.remove();
+				player.release();
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	public void clearPlayers() {
+		if (gameInProgress)
+			throw new IllegalStateException("A game is in progress.");
+
+		release(players);
+		players.clear();
+	}
+
+	public void startGame() {
+		if (gameInProgress)
+			throw new IllegalStateException("A game is already in progress.");
+
+		if (players.size() < MIN_PLAYERS
+				|| players.size() > variant.getMaxPlayers())
+			throw new IllegalStateException("Cannot play with "
+					+ players.size() + " players.");
+
+		listener.onGameStarted();
+		gameInProgress = true;
+		startPlayer = 0;
+		setupHand();
+	}
+
+	/*
+	 * Ends the game in progress, if any, and removes all players.
+	 */
+	public void stopGame() {
+		gameInProgress = false;
+		release(players);
+		release(arriving);
+		players.clear();
+		arriving.clear();
+		board.clear();
+		clearBoard();
+
+		if (deckPool != null && deck != null) {
+			deckPool.release(deck);
+			deck = null;
+		}
+	}
+
+	/*
+	 * Writes the state of the game in progress, between actions, for
+	 * restoreState.
+	 */
+	public void saveState(ByteBuffer out) {
+		ensureGameInProgress();
+
+		out.put((byte) variant.ordinal());
+		out.putInt(startMoney);
+		out.putInt(ante);
+		out.putInt(nextAnte);
+		out.putInt(turnIndex);
+		out.putInt(lastIndex);
+		out.putInt(startPlayer);
+		out.putInt(pot);
+		out.putInt(raise);
+
+		out.put((byte) board.size());
+
+		for (int i = 0; i < board.size(); i++)
+			out.put((byte) board.get(i).getIndex());
+
+		deck.writeTo(out);
+		writePlayers(out, players);
+		writePlayers(out, arriving);
+	}
+
+	/*
+	 * Resumes a game written by saveState, at the turn it was written at,
+	 * without notifying listeners of anything: the game carries on with the
+	 * next action. Players' money is recorded in this engine's bankroll, if
+	 * any, from now on, and their balances are set to the money they were
+	 * checkpointed with.
+	 */
+	public void restoreState(ByteBuffer in) {
+		if (gameInProgress)
+			throw new IllegalStateException("A game is already in progress.");
+
+		setVariant(Variant.values()[in.get()]);
+		startMoney = in.getInt();
+		ante = in.getInt();
+		nextAnte = in.getInt();
+		turnIndex = in.getInt();
+		lastIndex = in.getInt();
+		startPlayer = in.getInt();
+		pot = in.getInt();
+		raise = in.getInt();
+
+		board.clear();
+		clearBoard();
+
+		for (int i = in.get(); i > 0; i--)
+			land(Card.of(in.get()));
+
+		if (deckPool != null)
+			deck = deckPool.take();
+
+		deck.readFrom(in);
+		readPlayers(in, players);
+		readPlayers(in, arriving);
+
+		if (turnIndex < 0 || turnIndex >= players.size())
+			throw new IllegalArgumentException("Invalid turn: " + turnIndex);
+
+		for (int i = 0; i < players.size(); i++)
+			players.get(i).restake();
+
+		for (int i = 0; i < arriving.size(); i++)
+			arriving.get(i).restake();
+
+		gameInProgress = true;
+	}
+
+	private static void writePlayers(ByteBuffer out, List<Player> players) {
+		out.put((byte) players.size());
+
+		for (int i = 0; i < players.size(); i++)
+			players.get(i).writeTo(out);
+	}
+
+	private void readPlayers(ByteBuffer in, List<Player> players) {
+		players.clear();
+
+		for (int i = in.get(); i > 0; i--)
+			players.add(Player.readFrom(in, bankroll));
+	}
+
+	public boolean act(Action action) {
+		return act(action, 0);
+	}
+
+	/*
+	 * Performs an action for the player whose turn it is, returning false if
+	 * the action was rejected, in which case it remains their turn.
+	 *
+	 * @param amount the amount to raise by, for RAISE
+	 */
+	public boolean act(Action action, int amount) {
+		ensureGameInProgress();
+
+		switch (action) {
+		case CALL:
+			call();
+			break;
+		case CHECK:
+			if (!check())
+				return false;
+
+			break;
+		case RAISE:
+			if (amount <= 0)
+				throw new IllegalArgumentException(
+						"Can only raise by a positive amount.");
+
+			if (!raise(amount))
+				return false;
+
+			break;
+		case ALL_IN:
+			allIn();
+			break;
+		case FOLD:
+			if (!fold())
+				return true;
+
+			break;
+		case CASHOUT:
+			if (!cashout())
+				return true;
+
+			break;
+		default:
+			throw new IllegalArgumentException(String.valueOf(action));
+		}
+
+		nextTurn();
+		return true;
+	}
+
+	private void call() {
+		final Player player = players.get(turnIndex);
+		final int owed = amountOwed(player);
+		final int bet = Math.min(owed, player.getMoney());
+
+		listener.onCalled(player, bet, owed);
+		pot += player.bet(bet);
+	}
+
+	private boolean check() {
+		final Player player = players.get(turnIndex);
+
+		if (player.getAmountPayed() >= raise) {
+			listener.onChecked(player);
+			return true;
+		} else {
+			listener.onActionRejected(player, Action.CHECK, amountOwed(player));
+			return false;
+		}
+	}
+
+	private boolean raise(int newRaise) {
+		final Player player = players.get(turnIndex);
+		final int owed = amountOwed(player);
+		final int totalBet = owed + newRaise;
+
+		if (variant.isPotLimit() && newRaise > pot + owed) {
+			listener.onRaiseAboveLimit(player, pot + owed);
+			return false;
+		}
+
+		if (totalBet <= player.getMoney()) {
+			pot += player.bet(totalBet);
+			raise += newRaise;
+
+			listener.onRaised(player, newRaise);
+
+			lastIndex = lastUnfolded(turnIndex - 1);
+			return true;
+		} else {
+			listener.onActionRejected(player, Action.RAISE, totalBet);
+			return false;
+		}
+	}
+
+	private void allIn() {
+		final Player player = players.get(turnIndex);
+		final int owed = amountOwed(player);
+		final int money = player.getMoney();
+
+		// going all in is a pot-sized raise when that is as far as one can go
+		if (variant.isPotLimit() && money - owed > pot + owed) {
+			raise(pot + owed);
+			return;
+		}
+
+		listener.onAllIn(player);
+
+		if (money > owed) {
+			raise(money - owed);
+		} else {
+			call();
+		}
+	}
+
+	/*
+	 * returns false if the hand ended as a result
+	 */
+	private boolean fold() {
+		final Player player = players.get(turnIndex);
+		player.fold();
+		listener.onFolded(player);
+
+		return !checkForWinByFold();
+	}
+
+	/*
+	 * returns false if the hand ended as a result
+	 */
+	private boolean cashout() {
+		final Player player = players.get(turnIndex);
+		player.cashout();
+		listener.onCashedOut(player);
+
+		return !checkForWinByFold();
+	}
+
+	private void setupHand() {
+		final long start = System.nanoTime();
+
+		for (Player player : players) {
+			if (player.isBroke())
+				player.cashout();
+		}
+
+		final Iterator<Player> playerIter = players.iterator();
+		int index = 0;
+
+		while (playerIter.hasNext()) {
+			Player player = playerIter.next();
+
+			if (!player.isActive()) {
+				playerIter.remove();
+				player.release();
+
+				if (index < startPlayer)
+					startPlayer = wrappedDecrement(startPlayer);
+
+				listener.onPlayerLeft(player);
+			}
+
+			index++;
+		}
+
+		players.addAll(arriving);
+		arriving.clear();
+
+		if (players.size() < MIN_PLAYERS) {
+			listener.onGameOver();
+			stopGame();
+			return;
+		}
+
+		// the player due to start may have been the last one, and removed
+		if (startPlayer >= players.size())
+			startPlayer = 0;
+
+		listener.onHandStarted();
+
+		for (Player player : players)
+			player.newHand();
+
+		shuffle();
+		board.clear();
+		clearBoard();
+		turnIndex = startPlayer;
+		lastIndex = lastUnfolded(startPlayer - 1);
+
+		startPlayer = wrappedIncrement(startPlayer);
+
+		pot = 0;
+		ante = nextAnte;
+		raise = ante;
+
+		deal();
+		collectAntes();
+		listener.onTurn(players.get(turnIndex));
+
+		if (metrics != null) {
+			metrics.handDealt();
+			metrics.getSetupHand().recordSince(start);
+		}
+	}
+
+	private void shuffle() {
+		if (deckPool == null) {
+			deck.reset();
+			return;
+		}
+
+		if (deck != null)
+			deckPool.release(deck);
+
+		deck = deckPool.take();
+	}
+
+	private void deal() {
+		final int holeCards = variant.getHoleCards();
+
+		for (Player player : players) {
+			for (int i = 0; i < holeCards; i++)
+				player.receiveCard(deck.next());
+
+			listener.onCardsDealt(player, player.getCards());
+		}
+	}
+
+	private void collectAntes() {
+		listener.onAntesCollected(ante);
+
+		for (Player player : players) {
+			pot += player.bet(ante);
+		}
+	}
+
+	private void draw() {
+		if (board.isEmpty()) {
+			land(deck.next());
+			land(deck.next());
+			land(deck.next());
+		} else if (board.size() < 5) {
+			land(deck.next());
+		}
+	}
+
+	private void land(Card card) {
+		board.add(card);
+
+		if (variant == Variant.OMAHA)
+			omahaEvaluator.add(card);
+		else
+			boardEvaluator.add(card);
+	}
+
+	private void clearBoard() {
+		boardEvaluator.clear();
+
+		if (omahaEvaluator != null)
+			omahaEvaluator.clear();
+	}
+
+	private void nextTurn() {
+		Player player = players.get(turnIndex);
+
+		if (turnIndex == lastIndex
+				&& (player.isFolded() || player.isBroke() || amountOwed(player) == 0)) {
+
+			if (board.size() == 5) {
+				showdown();
+				setupHand();
+				return;
+			} else {
+				turnIndex = -1;
+				lastIndex = lastUnfolded(players.size() - 1);
+				draw();
+			}
+		}
+
+		Player nextPlayer;
+
+		do {
+			turnIndex = wrappedIncrement(turnIndex);
+		} while ((nextPlayer = players.get(turnIndex)).isFolded());
+
+		listener.onTurn(nextPlayer);
+	}
+
+	/*
+	 * Winner selection: ranks the hands of the players still in, keeping
+	 * track of the best rank and the seats tied at it, and only builds Hands
+	 * for the winners. Each hand is ranked by adding its hole cards to the
+	 * board's evaluation; Omaha winners' five cards are then picked out of the
+	 * combinations of two hole cards and three board cards.
+	 */
+	private void showdown() {
+		final long start = System.nanoTime();
+		int best = -1;
+		int numWinners = 0;
+
+		for (int i = 0; i < players.size(); i++) {
+			final Player p = players.get(i);
+
+			if (p.isFolded())
+				continue;
+
+			final int rank = strength(p);
+
+			if (rank > best) {
+				best = rank;
+				numWinners = 0;
+			}
+
+			if (rank == best)
+				winnerSeats[numWinners++] = i;
+		}
+
+		final int share = pot / numWinners;
+		winners.clear();
+		board.toArray(showdownCards);
+
+		for (int w = 0; w < numWinners; w++) {
+			final Player p = players.get(winnerSeats[w]);
+			p.win(share);
+
+			if (variant == Variant.OMAHA) {
+				winners.add(Hand.fromRank(p, best,
+						omahaEvaluator.bestHand(p.getHoleMask(), best)));
+				continue;
+			}
+
+			showdownCards[5] = p.getCard1();
+			showdownCards[6] = p.getCard2();
+			winners.add(Hand.fromRank(p, best, showdownCards));
+		}
+
+		listener.onShowdown(winners, share);
+
+		if (metrics != null)
+			metrics.getShowdown().recordSince(start);
+	}
+
+	/*
+	 * returns true if the hand ended
+	 */
+	private boolean checkForWinByFold() {
+		Player last = null;
+		int numPlayersLeft = players.size();
+		for (Player player : players) {
+			if (player.isFolded())
+				numPlayersLeft--;
+			else
+				last = player;
+		}
+
+		if (numPlayersLeft == 1) {
+			last.win(pot);
+			listener.onWinByFold(last, pot);
+			setupHand();
+			return true;
+		}
+
+		return false;
+	}
+
+	private void ensureGameInProgress() {
+		if (!gameInProgress)
+			throw new IllegalStateException("No game is in progress.");
+	}
+
+	private void ensureNotAllFolded() {
+		for (Player player : players) {
+			if (!player.isFolded())
+				return;
+		}
+
+		throw new IllegalStateException("All players are folded.");
+	}
+
+	private int lastUnfolded(int index) {
+		ensureNotAllFolded();
+
+		if (index < 0)
+			index = players.size() - 1;
+
+		if (index >= players.size())
+			index = 0;
+
+		while (players.get(index).isFolded()) {
+			index = wrappedDecrement(index);
+		}
+		return index;
+	}
+
+	private int wrappedIncrement(int n) {
+		n++;
+		if (n >= players.size())
+			n = 0;
+		return n;
+	}
+
+	private int wrappedDecrement(int n) {
+		n--;
+		if (n < 0)
+			n = players.size() - 1;
+		return n;
+	}
+
+	/*
+	 * notifies two listeners of every event, in order
+	 */
+	private static final class Multicaster implements GameListener {
+		private final GameListener first;
+		private final GameListener second;
+
+		Multicaster(GameListener first, GameListener second) {
+			this.first = first;
+			this.second = second;
+		}
+
+		@Override
+		public void onGameStarted() {
+			first.onGameStarted();
+			second.onGameStarted();
+		}
+
+		@Override
+		public void onGameOver() {
+			first.onGameOver();
+			second.onGameOver();
+		}
+
+		@Override
+		public void onPlayerLeft(Player player) {
+			first.onPlayerLeft(player);
+			second.onPlayerLeft(player);
+		}
+
+		@Override
+		public void onHandStarted() {
+			first.onHandStarted();
+			second.onHandStarted();
+		}
+
+		@Override
+		public void onCardsDealt(Player player, List<Card> cards) {
+			first.onCardsDealt(player, cards);
+			second.onCardsDealt(player, cards);
+		}
+
+		@Override
+		public void onAntesCollected(int ante) {
+			first.onAntesCollected(ante);
+			second.onAntesCollected(ante);
+		}
+
+		@Override
+		public void onTurn(Player player) {
+			first.onTurn(player);
+			second.onTurn(player);
+		}
+
+		@Override
+		public void onCalled(Player player, int amount, int owed) {
+			first.onCalled(player, amount, owed);
+			second.onCalled(player, amount, owed);
+		}
+
+		@Override
+		public void onChecked(Player player) {
+			first.onChecked(player);
+			second.onChecked(player);
+		}
+
+		@Override
+		public void onRaised(Player player, int amount) {
+			first.onRaised(player, amount);
+			second.onRaised(player, amount);
+		}
+
+		@Override
+		public void onAllIn(Player player) {
+			first.onAllIn(player);
+			second.onAllIn(player);
+		}
+
+		@Override
+		public void onFolded(Player player) {
+			first.onFolded(player);
+			second.onFolded(player);
+		}
+
+		@Override
+		public void onCashedOut(Player player) {
+			first.onCashedOut(player);
+			second.onCashedOut(player);
+		}
+
+		@Override
+		public void onActionRejected(Player player, Action action,
+				int required) {
+			first.onActionRejected(player, action, required);
+			second.onActionRejected(player, action, required);
+		}
+
+		@Override
+		public void onRaiseAboveLimit(Player player, int limit) {
+			first.onRaiseAboveLimit(player, limit);
+			second.onRaiseAboveLimit(player, limit);
+		}
+
+		@Override
+		public void onWinByFold(Player winner, int pot) {
+			first.onWinByFold(winner, pot);
+			second.onWinByFold(winner, pot);
+		}
+
+		@Override
+		public void onShowdown(List<Hand> winners, int share) {
+			first.onShowdown(winners, share);
+			second.onShowdown(winners, share);
+		}
+	}
+}
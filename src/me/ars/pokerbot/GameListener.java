@@ -0,0 +1,113 @@
+package me.ars.pokerbot;
+
+import java.util.List;
+
+/*
+ * Receives the events of a GameEngine, synchronously and on the thread driving
+ * the engine. Every method does nothing by default, so that listeners need only
+ * implement the events they care about.
+ *
+ * Listeners must not act on the engine from within these methods, except to
+ * seat players with sitIn.
+ */
+public interface GameListener {
+	default void onGameStarted() {
+	}
+
+	/*
+	 * the game ended because fewer than two players remain
+	 */
+	default void onGameOver() {
+	}
+
+	/*
+	 * the player, having cashed out or gone broke, was removed from the game
+	 * between hands
+	 */
+	default void onPlayerLeft(Player player) {
+	}
+
+	/*
+	 * a new hand is about to be dealt to the engine's players
+	 */
+	default void onHandStarted() {
+	}
+
+	/*
+	 * @param cards the player's hole cards, as many as the game's variant
+	 * deals
+	 */
+	default void onCardsDealt(Player player, List<Card> cards) {
+	}
+
+	default void onAntesCollected(int ante) {
+	}
+
+	/*
+	 * it is the given player's turn to act
+	 */
+	default void onTurn(Player player) {
+	}
+
+	/*
+	 * @param amount the amount put in
+	 *
+	 * @param owed the amount that was owed, more than amount if the player
+	 * could not afford it
+	 */
+	default void onCalled(Player player, int amount, int owed) {
+	}
+
+	default void onChecked(Player player) {
+	}
+
+	default void onRaised(Player player, int amount) {
+	}
+
+	/*
+	 * followed by the resulting raise or call
+	 */
+	default void onAllIn(Player player) {
+	}
+
+	default void onFolded(Player player) {
+	}
+
+	default void onCashedOut(Player player) {
+	}
+
+	/*
+	 * The player's action was not allowed and it is still their turn.
+	 *
+	 * @param required the amount the action would have required: what is owed
+	 * for a check, or the total bet for a raise
+	 */
+	default void onActionRejected(Player player, GameEngine.Action action,
+			int required) {
+	}
+
+	/*
+	 * The player tried to raise by more than the pot allows, in a pot-limit
+	 * game, and it is still their turn.
+	 *
+	 * @param limit the most they could have raised by
+	 */
+	default void onRaiseAboveLimit(Player player, int limit) {
+	}
+
+	/*
+	 * all other players folded
+	 */
+	default void onWinByFold(Player winner, int pot) {
+	}
+
+	/*
+	 * The hand went to showdown.
+	 *
+	 * @param winners the winning hands, which all have equal rank
+	 *
+	 * @param share amount won by each winner
+	 */
+	default void onShowdown(List<Hand> winners, int share) {
+	}
+}
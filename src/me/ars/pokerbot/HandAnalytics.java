@@ -0,0 +1,512 @@
+package me.ars.pokerbot;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import me.ars.pokerbot.Hand.HandType;
+
+/*
+ * Reports on the hands recorded in a hand history: how often each player wins
+ * and goes to showdown, the types of hand shown down, and the size of pots.
+ *
+ * Usage: HandAnalytics [directory] [players to list]
+ *
+ * The directory defaults to the one in parameters.cfg. Segments are memory
+ * mapped and scanned in place, spread over the common fork/join pool; since
+ * each segment defines its own names, segments are the unit of work. Scanning
+ * allocates nothing per hand: a segment's totals are kept in arrays indexed by
+ * its name ids, and only turned into names once it has been scanned.
+ */
+public class HandAnalytics {
+	private static final int DEFAULT_PLAYERS_LISTED = 20;
+
+	private static final double[] PERCENTILES = { 0.5, 0.9, 0.99, 0.999 };
+
+	private static final int HAND_TYPES = HandType.values().length;
+
+	private final File[] segments;
+
+	public HandAnalytics(File directory) {
+		this.segments = HandHistoryReader.segments(directory);
+	}
+
+	public static void main(String[] args) {
+		final File directory = new File(args.length > 0 ? args[0]
+				: Constants.HISTORY_DIR);
+		final int listed = args.length > 1 ? Integer.parseInt(args[1])
+				: DEFAULT_PLAYERS_LISTED;
+
+		final HandAnalytics analytics = new HandAnalytics(directory);
+		final ForkJoinPool pool = ForkJoinPool.commonPool();
+
+		final long start = System.nanoTime();
+		final Report report = analytics.run(pool);
+		final double seconds = (System.nanoTime() - start) / 1e9;
+
+		System.out.printf("%d hands in %d segments (%d MB), scanned in %.2f s "
+				+ "(%.0f hands/s, %d threads).%n", report.hands,
+				analytics.segments.length, report.bytes >> 20, seconds,
+				report.hands / seconds, pool.getParallelism());
+
+		if (report.hands == 0)
+			return;
+
+		if (report.omahaHands > 0)
+			System.out.printf("%d of them %s.%n", report.omahaHands,
+					Variant.OMAHA);
+
+		System.out.printf("%nShowdowns: %.1f%% of hands.%n", 100.0
+				* report.showdowns / report.hands);
+
+		System.out.printf("%nPot size: mean %.1f", report.pots.getMean());
+
+		for (double p : PERCENTILES)
+			System.out.printf(", p%s %d", formatPercentile(p),
+					report.pots.getPercentile(p));
+
+		System.out.printf(", max %d%n", report.pots.getMax());
+
+		final long shown = sum(report.typesShown);
+		final long won = sum(report.typesWon);
+
+		System.out.printf("%n%-16s %10s %10s%n", "hand type", "shown", "won");
+
+		for (HandType type : HandType.values()) {
+			System.out.printf("%-16s %9.2f%% %9.2f%%%n", type, 100.0
+					* report.typesShown[type.ordinal()] / Math.max(1, shown),
+					100.0 * report.typesWon[type.ordinal()] / Math.max(1, won));
+		}
+
+		final List<Map.Entry<String, PlayerTotals>> players = new ArrayList<>(
+				report.players.entrySet());
+		players.sort((a, b) -> Long.compare(b.getValue().hands,
+				a.getValue().hands));
+
+		System.out.printf("%n%-20s %10s %8s %10s %8s%n", "player", "hands",
+				"won", "showdown", "won sd");
+
+		for (Map.Entry<String, PlayerTotals> entry : players.subList(0,
+				Math.min(listed, players.size()))) {
+			final PlayerTotals totals = entry.getValue();
+			System.out.printf("%-20s %10d %7.1f%% %9.1f%% %7.1f%%%n",
+					entry.getKey(), totals.hands, 100.0 * totals.wins
+							/ totals.hands, 100.0 * totals.showdowns
+							/ totals.hands, 100.0 * totals.showdownWins
+							/ Math.max(1, totals.showdowns));
+		}
+	}
+
+	private static String formatPercentile(double p) {
+		final String s = Double.toString(100 * p);
+		return s.endsWith(".0") ? s.substring(0, s.length() - 2) : s;
+	}
+
+	private static long sum(long[] values) {
+		long sum = 0;
+
+		for (long v : values)
+			sum += v;
+
+		return sum;
+	}
+
+	public Report run(ForkJoinPool pool) {
+		if (segments.length == 0)
+			return new Report();
+
+		return pool.invoke(new ScanTask(0, segments.length));
+	}
+
+	/*
+	 * Totals over some range of segments.
+	 */
+	public static final class Report {
+		long hands;
+		long omahaHands;
+		long showdowns;
+		long bytes;
+
+		/*
+		 * by hand type, the hands of players still in at showdown and of the
+		 * winners
+		 */
+		final long[] typesShown = new long[HAND_TYPES];
+		final long[] typesWon = new long[HAND_TYPES];
+
+		final Histogram pots = new Histogram();
+
+		/*
+		 * by lower-cased name
+		 */
+		final Map<String, PlayerTotals> players = new HashMap<>();
+
+		void add(Report other) {
+			hands += other.hands;
+			omahaHands += other.omahaHands;
+			showdowns += other.showdowns;
+			bytes += other.bytes;
+
+			for (int t = 0; t < HAND_TYPES; t++) {
+				typesShown[t] += other.typesShown[t];
+				typesWon[t] += other.typesWon[t];
+			}
+
+			pots.add(other.pots);
+
+			for (Map.Entry<String, PlayerTotals> entry : other.players
+					.entrySet())
+				player(entry.getKey()).add(entry.getValue());
+		}
+
+		PlayerTotals player(String name) {
+			return players.computeIfAbsent(name, n -> new PlayerTotals());
+		}
+
+		public long getHands() {
+			return hands;
+		}
+
+		public long getOmahaHands() {
+			return omahaHands;
+		}
+
+		public long getShowdowns() {
+			return showdowns;
+		}
+
+		public Histogram getPots() {
+			return pots;
+		}
+	}
+
+	static final class PlayerTotals {
+		long hands;
+		long wins;
+		long showdowns;
+		long showdownWins;
+
+		void add(PlayerTotals other) {
+			hands += other.hands;
+			wins += other.wins;
+			showdowns += other.showdowns;
+			showdownWins += other.showdownWins;
+		}
+	}
+
+	/*
+	 * scans the segments [from, to)
+	 */
+	private final class ScanTask extends RecursiveTask<Report> {
+		private static final long serialVersionUID = 1L;
+
+		private final int from;
+		private final int to;
+
+		ScanTask(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected Report compute() {
+			if (to - from > 1) {
+				final int mid = (from + to) >>> 1;
+				final ScanTask left = new ScanTask(from, mid);
+				final ScanTask right = new ScanTask(mid, to);
+				invokeAll(left, right);
+
+				final Report report = left.join();
+				report.add(right.join());
+				return report;
+			}
+
+			final Report report = new Report();
+
+			try {
+				new SegmentScan(report).scan(segments[from]);
+			} catch (IOException ioe) {
+				System.err.println("Could not read " + segments[from] + ": "
+						+ ioe.getMessage());
+			}
+
+			return report;
+		}
+	}
+
+	/*
+	 * Scans a single segment into a report.
+	 */
+	private static final class SegmentScan {
+		private final Report report;
+
+		private ByteBuffer data;
+		private int position;
+
+		/*
+		 * by name id: where the name is in the segment, and the player's
+		 * totals
+		 */
+		private int names;
+		private int[] nameOffsets = new int[64];
+		private int[] nameLengths = new int[64];
+		private long[] hands = new long[64];
+		private long[] wins = new long[64];
+		private long[] showdowns = new long[64];
+		private long[] showdownWins = new long[64];
+
+		/*
+		 * the current hand, by seat
+		 */
+		private final int[] ids = new int[GameEngine.MAX_PLAYERS];
+		private final long[] holes = new long[GameEngine.MAX_PLAYERS];
+		private final int[] ranks = new int[GameEngine.MAX_PLAYERS];
+		private final BoardEvaluator evaluator = new BoardEvaluator();
+		private final OmahaEvaluator omahaEvaluator = new OmahaEvaluator();
+
+		/*
+		 * the segment's format version
+		 */
+		private int version;
+
+		SegmentScan(Report report) {
+			this.report = report;
+		}
+
+		void scan(File file) throws IOException {
+			try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+					FileChannel channel = raf.getChannel()) {
+				data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel
+						.size());
+			}
+
+			report.bytes += data.limit();
+
+			if (data.limit() < 8 || data.getInt(0) != HandHistoryWriter.MAGIC)
+				throw new IOException("Not a hand history segment.");
+
+			version = data.getInt(4);
+
+			if (version != HandHistoryWriter.VERSION
+					&& version != HandHistoryWriter.HOLDEM_VERSION)
+				throw new IOException("Unknown version " + version + ".");
+
+			position = 8;
+
+			// a segment still being written may end mid-record
+			while (position < data.limit()) {
+				final int kind = data.get(position++);
+
+				if (position >= data.limit())
+					break;
+
+				final int length;
+
+				try {
+					length = readVarInt();
+				} catch (IndexOutOfBoundsException ioobe) {
+					break;
+				}
+
+				final int end = position + length;
+
+				if (end > data.limit())
+					break;
+
+				if (kind == HandHistoryWriter.NAME)
+					scanName(end);
+				else if (kind == HandHistoryWriter.HAND)
+					scanHand();
+
+				position = end;
+			}
+
+			collect();
+		}
+
+		private void scanName(int end) throws IOException {
+			final int id = readVarInt();
+
+			if (id != names)
+				throw new IOException("Unexpected name id " + id + ".");
+
+			if (names == nameOffsets.length) {
+				final int capacity = 2 * names;
+				nameOffsets = Arrays.copyOf(nameOffsets, capacity);
+				nameLengths = Arrays.copyOf(nameLengths, capacity);
+				hands = Arrays.copyOf(hands, capacity);
+				wins = Arrays.copyOf(wins, capacity);
+				showdowns = Arrays.copyOf(showdowns, capacity);
+				showdownWins = Arrays.copyOf(showdownWins, capacity);
+			}
+
+			nameOffsets[names] = position;
+			nameLengths[names] = end - position;
+			names++;
+		}
+
+		private void scanHand() {
+			readVarLong(); // timestamp
+			readVarInt(); // table
+
+			final boolean omaha = version != HandHistoryWriter.HOLDEM_VERSION
+					&& data.get(position++) == Variant.OMAHA.ordinal();
+			final int holeCards = omaha ? Variant.OMAHA.getHoleCards()
+					: Variant.HOLDEM.getHoleCards();
+			final int players = data.get(position++) & 0xFF;
+
+			for (int seat = 0; seat < players; seat++) {
+				ids[seat] = readVarInt();
+				hands[ids[seat]]++;
+			}
+
+			for (int seat = 0; seat < players; seat++)
+				readVarInt(); // stack
+
+			position++; // first to act
+
+			long bits = data.get(position++) & 0xFF;
+			int numBits = 5;
+			final int boardSize = (int) (bits & 0x7);
+			bits >>>= 3;
+			long board = 0;
+
+			for (int i = 0; i < holeCards * players + boardSize; i++) {
+				if (numBits < 6) {
+					bits |= (long) (data.get(position++) & 0xFF) << numBits;
+					numBits += 8;
+				}
+
+				final long card = 1L << (bits & 0x3F);
+				bits >>>= 6;
+				numBits -= 6;
+
+				if (i < holeCards * players) {
+					if (i % holeCards == 0)
+						holes[i / holeCards] = card;
+					else
+						holes[i / holeCards] |= card;
+				} else {
+					board |= card;
+				}
+			}
+
+			int out = 0;
+			final int actions = readVarInt();
+
+			for (int i = 0; i < actions; i++) {
+				final int b = data.get(position++) & 0xFF;
+				final int type = b & 0x7;
+
+				if (type == RecordedHand.CALL || type == RecordedHand.RAISE)
+					readVarInt();
+				else if (type == RecordedHand.FOLD
+						|| type == RecordedHand.CASHOUT)
+					out |= 1 << (b >>> 3);
+			}
+
+			final int outcome = data.get(position++) & 0xFF;
+			final boolean showdown = (outcome & 1) != 0;
+			final int winners = outcome >>> 1;
+
+			// only evaluate hands with all their cards
+			final boolean evaluate = showdown && boardSize == 5;
+
+			if (evaluate && omaha)
+				omahaEvaluator.set(board);
+			else if (evaluate)
+				evaluator.set(board);
+
+			if (showdown) {
+				report.showdowns++;
+
+				for (int seat = 0; seat < players; seat++) {
+					if ((out & 1 << seat) != 0)
+						continue;
+
+					showdowns[ids[seat]]++;
+
+					if (evaluate) {
+						ranks[seat] = omaha ? omahaEvaluator
+								.evaluate(holes[seat]) : evaluator
+								.evaluate(holes[seat]);
+						report.typesShown[ranks[seat] >>> HandEvaluator.TYPE_SHIFT]++;
+					}
+				}
+			}
+
+			for (int w = 0; w < winners; w++) {
+				final int seat = data.get(position++);
+				wins[ids[seat]]++;
+
+				if (showdown) {
+					showdownWins[ids[seat]]++;
+
+					if (evaluate)
+						report.typesWon[ranks[seat] >>> HandEvaluator.TYPE_SHIFT]++;
+				}
+			}
+
+			// antes are taken even from players short of them, which can leave
+			// the pot negative
+			report.pots.record(Math.max(0, readVarInt()));
+			report.hands++;
+
+			if (omaha)
+				report.omahaHands++;
+		}
+
+		/*
+		 * adds the totals of the players seen in the segment to the report
+		 */
+		private void collect() {
+			final byte[] bytes = new byte[256];
+
+			for (int id = 0; id < names; id++) {
+				if (hands[id] == 0)
+					continue; // a table
+
+				final byte[] name = nameLengths[id] <= bytes.length ? bytes
+						: new byte[nameLengths[id]];
+
+				for (int i = 0; i < nameLengths[id]; i++)
+					name[i] = data.get(nameOffsets[id] + i);
+
+				final PlayerTotals totals = report.player(new String(name, 0,
+						nameLengths[id], StandardCharsets.UTF_8)
+						.toLowerCase(Locale.ROOT));
+				totals.hands += hands[id];
+				totals.wins += wins[id];
+				totals.showdowns += showdowns[id];
+				totals.showdownWins += showdownWins[id];
+			}
+		}
+
+		private long readVarLong() {
+			long v = 0;
+
+			for (int shift = 0;; shift += 7) {
+				final int b = data.get(position++);
+				v |= (long) (b & 0x7F) << shift;
+
+				if (b >= 0)
+					return v;
+			}
+		}
+
+		private int readVarInt() {
+			return (int) readVarLong();
+		}
+	}
+}
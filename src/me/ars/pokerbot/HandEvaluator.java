@@ -0,0 +1,235 @@
+package me.ars.pokerbot;
+
+/*
+ * Table-driven evaluator mapping 5 to 7 cards to a single int strength.
+ *
+ * Cards are given as a CardSet bitmask. Since card indices are
+ * 13 * suit + (value - 2), each suit is a contiguous 13-bit rank mask. All
+ * lookup tables are indexed by such a rank mask and are built once when the
+ * class is loaded; evaluation itself performs no allocation.
+ *
+ * The returned strength is packed as follows: bits 20..23 hold the ordinal of
+ * the Hand.HandType, and bits 0..19 hold five 4-bit rank indices (0 = deuce,
+ * 12 = ace) of the best five cards, most significant group first (e.g. the
+ * pair rank twice followed by the three kickers). Greater strengths denote
+ * better hands, and equal strengths denote hands that split the pot.
+ */
+public final class HandEvaluator {
+	public static final int TYPE_SHIFT = 20;
+
+	static final int RANK_MASK = 0x1FFF;
+
+	private static final int HIGH_CARD = 0;
+	private static final int ONE_PAIR = 1 << TYPE_SHIFT;
+	private static final int TWO_PAIR = 2 << TYPE_SHIFT;
+	private static final int THREE_OF_KIND = 3 << TYPE_SHIFT;
+	private static final int STRAIGHT = 4 << TYPE_SHIFT;
+	private static final int FLUSH = 5 << TYPE_SHIFT;
+	private static final int FULL_HOUSE = 6 << TYPE_SHIFT;
+	private static final int FOUR_OF_KIND = 7 << TYPE_SHIFT;
+	private static final int STRAIGHT_FLUSH = 8 << TYPE_SHIFT;
+
+	/*
+	 * ranks of the (up to) five highest cards of a rank mask, packed in
+	 * descending order
+	 */
+	private static final int[] TOP_FIVE = new int[RANK_MASK + 1];
+
+	/*
+	 * ranks of the highest straight contained in a rank mask, packed in
+	 * descending order, or 0 if there is no straight (no straight can have a
+	 * deuce as its top card, so 0 is unambiguous)
+	 */
+	private static final int[] STRAIGHTS = new int[RANK_MASK + 1];
+
+	/*
+	 * complete strength of a flush (or straight flush) given the rank mask of
+	 * the flush suit; only meaningful for masks with at least 5 bits
+	 */
+	private static final int[] FLUSHES = new int[RANK_MASK + 1];
+
+	private HandEvaluator() {
+	}
+
+	static {
+		for (int mask = 0; mask <= RANK_MASK; mask++) {
+			int packed = 0;
+			int taken = 0;
+
+			for (int r = 12; r >= 0 && taken < 5; r--) {
+				if ((mask & (1 << r)) != 0) {
+					packed |= r << (16 - 4 * taken);
+					taken++;
+				}
+			}
+
+			TOP_FIVE[mask] = packed;
+
+			int straight = 0;
+
+			for (int top = 12; top >= 3; top--) {
+				if (isStraightAt(mask, top)) {
+					straight = packStraight(top);
+					break;
+				}
+			}
+
+			STRAIGHTS[mask] = straight;
+
+			if (straight != 0)
+				FLUSHES[mask] = STRAIGHT_FLUSH | straight;
+			else
+				FLUSHES[mask] = FLUSH | packed;
+		}
+	}
+
+	private static boolean isStraightAt(int mask, int top) {
+		for (int r = top; r > top - 5; r--) {
+			// rank index -1 denotes the ace playing low
+			final int bit = (r < 0) ? 12 : r;
+
+			if ((mask & (1 << bit)) == 0)
+				return false;
+		}
+
+		return true;
+	}
+
+	private static int packStraight(int top) {
+		int packed = 0;
+
+		for (int i = 0; i < 5; i++) {
+			final int r = top - i;
+			packed |= ((r < 0) ? 12 : r) << (16 - 4 * i);
+		}
+
+		return packed;
+	}
+
+	/*
+	 * @param cards bitmask of 5 to 7 distinct cards
+	 */
+	public static int evaluate(long cards) {
+		return evaluate((int) cards & RANK_MASK, (int) (cards >>> 13)
+				& RANK_MASK, (int) (cards >>> 26) & RANK_MASK,
+				(int) (cards >>> 39) & RANK_MASK, Long.bitCount(cards));
+	}
+
+	public static int evaluate(Card... cards) {
+		return evaluate(CardSet.of(cards));
+	}
+
+	/*
+	 * @param s0..s3 rank masks of each of the four suits
+	 *
+	 * @param numCards total number of cards (5 to 7)
+	 */
+	static int evaluate(int s0, int s1, int s2, int s3, int numCards) {
+		if (Integer.bitCount(s0) >= 5)
+			return FLUSHES[s0];
+		if (Integer.bitCount(s1) >= 5)
+			return FLUSHES[s1];
+		if (Integer.bitCount(s2) >= 5)
+			return FLUSHES[s2];
+		if (Integer.bitCount(s3) >= 5)
+			return FLUSHES[s3];
+
+		return evaluateUnsuited(s0, s1, s2, s3, numCards);
+	}
+
+	/*
+	 * strength of a flush (or straight flush) given the rank mask of the flush
+	 * suit, which must hold at least 5 cards
+	 */
+	static int flush(int suitRanks) {
+		return FLUSHES[suitRanks];
+	}
+
+	/*
+	 * Same as evaluate, for cards known not to make a flush.
+	 */
+	static int evaluateUnsuited(int s0, int s1, int s2, int s3, int numCards) {
+		final int ranks = s0 | s1 | s2 | s3;
+		final int numRanks = Integer.bitCount(ranks);
+
+		if (numRanks >= 5) {
+			final int straight = STRAIGHTS[ranks];
+
+			if (straight != 0)
+				return STRAIGHT | straight;
+		}
+
+		// ranks held an even number of times (pairs, or quads)
+		final int evens = ranks ^ (s0 ^ s1 ^ s2 ^ s3);
+
+		switch (numCards - numRanks) {
+		case 0:
+			return HIGH_CARD | TOP_FIVE[ranks];
+		case 1: {
+			final int pair = topRank(evens);
+			return ONE_PAIR | (pair << 16) | (pair << 12)
+					| (TOP_FIVE[ranks ^ evens] >>> 8);
+		}
+		case 2: {
+			if (evens != 0)
+				return twoPair(ranks, evens);
+
+			final int trips = topRank(threes(s0, s1, s2, s3));
+
+			return THREE_OF_KIND | (trips << 16) | (trips << 12)
+					| (trips << 8) | (TOP_FIVE[ranks ^ (1 << trips)] >>> 12);
+		}
+		default: {
+			final int quads = s0 & s1 & s2 & s3;
+
+			if (quads != 0) {
+				final int quad = topRank(quads);
+				return FOUR_OF_KIND | (quad << 16) | (quad << 12)
+						| (quad << 8) | (quad << 4)
+						| topRank(ranks ^ (1 << quad));
+			}
+
+			final int threes = threes(s0, s1, s2, s3);
+
+			if (threes != 0) {
+				final int trips = topRank(threes);
+				final int pair = topRank((evens | threes) ^ (1 << trips));
+				return FULL_HOUSE | (trips << 16) | (trips << 12)
+						| (trips << 8) | (pair << 4) | pair;
+			}
+
+			return twoPair(ranks, evens);
+		}
+		}
+	}
+
+	private static int twoPair(int ranks, int pairs) {
+		final int high = topRank(pairs);
+		final int low = topRank(pairs ^ (1 << high));
+		final int kicker = topRank(ranks ^ (1 << high) ^ (1 << low));
+		return TWO_PAIR | (high << 16) | (high << 12) | (low << 8)
+				| (low << 4) | kicker;
+	}
+
+	/*
+	 * ranks held at least three times
+	 */
+	private static int threes(int s0, int s1, int s2, int s3) {
+		return ((s0 & s1) | (s2 & s3)) & ((s0 & s2) | (s1 & s3));
+	}
+
+	private static int topRank(int mask) {
+		return 31 - Integer.numberOfLeadingZeros(mask);
+	}
+
+	public static int type(int strength) {
+		return strength >>> TYPE_SHIFT;
+	}
+
+	/*
+	 * rank index (0 = deuce, 12 = ace) of the i-th of the best five cards
+	 */
+	public static int rankAt(int strength, int i) {
+		return (strength >>> (16 - 4 * i)) & 0xF;
+	}
+}
@@ -0,0 +1,350 @@
+package me.ars.pokerbot;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * Reads back the hands written by a HandHistoryWriter, streaming through the
+ * segments of a directory in order and decoding each hand into a reused
+ * RecordedHand.
+ *
+ * Usage: HandHistoryReader [directory]
+ *
+ * Reads every hand in the directory (by default the one in parameters.cfg)
+ * and reports how many there are and how compactly they are stored.
+ */
+public class HandHistoryReader implements Closeable {
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final File[] segments;
+	private int segment = -1;
+	private InputStream in;
+
+	/*
+	 * the names defined so far in the current segment, by id
+	 */
+	private final List<String> names = new ArrayList<>();
+	private long lastTimestamp;
+	private int version;
+
+	private byte[] record = new byte[256];
+	private int position;
+	private int limit;
+
+	public HandHistoryReader(File directory) {
+		this.segments = segments(directory);
+	}
+
+	public static void main(String[] args) throws IOException {
+		final File directory = new File(args.length > 0 ? args[0]
+				: Constants.HISTORY_DIR);
+		final RecordedHand hand = new RecordedHand();
+
+		long bytes = 0;
+		long hands = 0;
+		long actions = 0;
+
+		for (File segment : segments(directory))
+			bytes += segment.length();
+
+		final long start = System.nanoTime();
+
+		try (HandHistoryReader reader = new HandHistoryReader(directory)) {
+			while (reader.next(hand)) {
+				hands++;
+				actions += hand.getActionCount();
+			}
+		}
+
+		final double seconds = (System.nanoTime() - start) / 1e9;
+
+		System.out.printf("%d hands, %d actions in %d bytes (%.1f bytes/hand).%n",
+				hands, actions, bytes, hands == 0 ? 0.0 : (double) bytes / hands);
+		System.out.printf("Read in %.2f s (%.0f hands/s).%n", seconds, hands
+				/ seconds);
+	}
+
+	/*
+	 * Decodes the next hand into the given one, returning false once there
+	 * are no more.
+	 */
+	public boolean next(RecordedHand hand) throws IOException {
+		while (true) {
+			if (in == null && !nextSegment())
+				return false;
+
+			final int kind = in.read();
+
+			if (kind < 0) {
+				closeSegment();
+				continue;
+			}
+
+			try {
+				readRecord();
+			} catch (EOFException eofe) {
+				// a crash can leave the last segment ending mid-record
+				if (segment < segments.length - 1)
+					throw eofe;
+
+				closeSegment();
+				return false;
+			}
+
+			if (kind == HandHistoryWriter.NAME) {
+				final int id = readVarInt();
+
+				if (id != names.size())
+					throw new IOException("Unexpected name id " + id + " in "
+							+ segments[segment] + ".");
+
+				names.add(new String(record, position, limit - position,
+						StandardCharsets.UTF_8));
+			} else if (kind == HandHistoryWriter.HAND) {
+				decode(hand);
+				return true;
+			}
+			// skip records of unknown kinds
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		closeSegment();
+		segment = segments.length;
+	}
+
+	private boolean nextSegment() throws IOException {
+		if (++segment >= segments.length)
+			return false;
+
+		in = new BufferedInputStream(new FileInputStream(segments[segment]),
+				BUFFER_SIZE);
+		names.clear();
+		lastTimestamp = 0;
+
+		if (readInt() != HandHistoryWriter.MAGIC)
+			throw new IOException(segments[segment]
+					+ " is not a hand history segment.");
+
+		version = readInt();
+
+		if (version != HandHistoryWriter.VERSION
+				&& version != HandHistoryWriter.HOLDEM_VERSION)
+			throw new IOException(segments[segment]
+					+ " is of unknown version " + version + ".");
+
+		return true;
+	}
+
+	private void closeSegment() throws IOException {
+		if (in != null) {
+			in.close();
+			in = null;
+		}
+	}
+
+	private int readInt() throws IOException {
+		int v = 0;
+
+		for (int i = 0; i < 4; i++)
+			v = v << 8 | readByte();
+
+		return v;
+	}
+
+	private int readByte() throws IOException {
+		final int b = in.read();
+
+		if (b < 0)
+			throw new EOFException("Truncated record in " + segments[segment]
+					+ ".");
+
+		return b;
+	}
+
+	/*
+	 * reads the length and body of a record into the record buffer
+	 */
+	private void readRecord() throws IOException {
+		int length = 0;
+
+		for (int shift = 0;; shift += 7) {
+			final int b = readByte();
+			length |= (b & 0x7F) << shift;
+
+			if ((b & 0x80) == 0)
+				break;
+		}
+
+		if (length > record.length)
+			record = Arrays.copyOf(record, Math.max(length, 2 * record.length));
+
+		for (int n = 0; n < length;) {
+			final int read = in.read(record, n, length - n);
+
+			if (read < 0)
+				throw new EOFException("Truncated record in "
+						+ segments[segment] + ".");
+
+			n += read;
+		}
+
+		position = 0;
+		limit = length;
+	}
+
+	private int nextByte() throws IOException {
+		if (position >= limit)
+			throw new IOException("Malformed record in " + segments[segment]
+					+ ".");
+
+		return record[position++] & 0xFF;
+	}
+
+	private long readVarLong() throws IOException {
+		long v = 0;
+
+		for (int shift = 0;; shift += 7) {
+			final int b = nextByte();
+			v |= (long) (b & 0x7F) << shift;
+
+			if ((b & 0x80) == 0)
+				return v;
+		}
+	}
+
+	private int readVarInt() throws IOException {
+		return (int) readVarLong();
+	}
+
+	private String name(int id) throws IOException {
+		if (id >= names.size())
+			throw new IOException("Undefined name id " + id + " in "
+					+ segments[segment] + ".");
+
+		return names.get(id);
+	}
+
+	private void decode(RecordedHand hand) throws IOException {
+		hand.clear();
+
+		final long delta = readVarLong();
+		hand.timestamp = lastTimestamp + ((delta >>> 1) ^ -(delta & 1));
+		lastTimestamp = hand.timestamp;
+		hand.table = name(readVarInt());
+
+		if (version != HandHistoryWriter.HOLDEM_VERSION) {
+			final int variant = nextByte();
+
+			if (variant >= Variant.values().length)
+				throw new IOException("Unknown variant " + variant + " in "
+						+ segments[segment] + ".");
+
+			hand.variant = Variant.values()[variant];
+		}
+
+		hand.players = nextByte();
+
+		for (int seat = 0; seat < hand.players; seat++)
+			hand.names[seat] = name(readVarInt());
+
+		for (int seat = 0; seat < hand.players; seat++)
+			hand.stacks[seat] = readVarInt();
+
+		hand.firstToAct = (byte) nextByte();
+
+		long bits = nextByte();
+		int numBits = 8;
+		hand.boardSize = (int) (bits & 0x7);
+		bits >>>= 3;
+		numBits -= 3;
+
+		final int holeCards = hand.variant.getHoleCards() * hand.players;
+
+		for (int i = 0; i < holeCards + hand.boardSize; i++) {
+			while (numBits < 6) {
+				bits |= (long) nextByte() << numBits;
+				numBits += 8;
+			}
+
+			final int card = (int) (bits & 0x3F);
+			bits >>>= 6;
+			numBits -= 6;
+
+			if (i < holeCards)
+				hand.holeCards[i] = card;
+			else
+				hand.board[i - holeCards] = card;
+		}
+
+		final int actions = readVarInt();
+
+		for (int i = 0; i < actions; i++) {
+			final int b = nextByte();
+			final byte type = (byte) (b & 0x7);
+			hand.addAction(b >>> 3, type, type == RecordedHand.CALL
+					|| type == RecordedHand.RAISE ? readVarInt() : 0);
+		}
+
+		final int outcome = nextByte();
+		hand.showdown = (outcome & 1) != 0;
+		hand.winners = outcome >>> 1;
+
+		for (int i = 0; i < hand.winners; i++)
+			hand.winnerSeats[i] = nextByte();
+
+		hand.pot = readVarInt();
+	}
+
+	static String segmentName(int number) {
+		return String.format("%s%06d%s", HandHistoryWriter.SEGMENT_PREFIX,
+				number, HandHistoryWriter.SEGMENT_SUFFIX);
+	}
+
+	static int segmentNumber(File segment) {
+		final String name = segment.getName();
+		return Integer.parseInt(name.substring(
+				HandHistoryWriter.SEGMENT_PREFIX.length(), name.length()
+						- HandHistoryWriter.SEGMENT_SUFFIX.length()));
+	}
+
+	/*
+	 * the segments in the directory, in the order they were written
+	 */
+	static File[] segments(File directory) {
+		final File[] files = directory.listFiles((dir, name) -> name
+				.startsWith(HandHistoryWriter.SEGMENT_PREFIX)
+				&& name.endsWith(HandHistoryWriter.SEGMENT_SUFFIX)
+				&& name.length() > HandHistoryWriter.SEGMENT_PREFIX.length()
+						+ HandHistoryWriter.SEGMENT_SUFFIX.length());
+
+		if (files == null)
+			return new File[0];
+
+		int count = 0;
+
+		for (File file : files) {
+			try {
+				segmentNumber(file);
+				files[count++] = file;
+			} catch (NumberFormatException nfe) {
+				continue;
+			}
+		}
+
+		final File[] result = Arrays.copyOf(files, count);
+		Arrays.sort(result, (a, b) -> Integer.compare(segmentNumber(a),
+				segmentNumber(b)));
+		return result;
+	}
+}
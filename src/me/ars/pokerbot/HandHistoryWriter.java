@@ -0,0 +1,355 @@
+package me.ars.pokerbot;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Writes recorded hands to a directory of hand history segments, on a
+ * background thread. Recorders never wait on it: if the writer falls too far
+ * behind, further hands are dropped.
+ *
+ * Segments are named hands-<number>.hh and rotated once they reach a given
+ * size. Each starts with an int magic and an int version, followed by
+ * records, each a kind byte and a varint length followed by that many bytes:
+ *
+ * NAME: varint id, then a player or table name in UTF-8. Names are given ids
+ * in order of first use within a segment, so every segment can be read on
+ * its own.
+ *
+ * HAND: varint zigzag difference between its timestamp and the previous
+ * hand's (in milliseconds; the first hand of a segment is relative to 0),
+ * varint table id, byte variant (the ordinal of a Variant), byte number of
+ * players, varint id of each player, varint stack of each player, byte seat of
+ * the first player to act; then the cards packed as bits, least significant
+ * first: 3 bits for the number of board cards, 6 bits for each hole card (as
+ * many per player as the variant deals) by seat and then each board card; then
+ * varint number of actions, each a byte (seat << 3 | type) followed, for
+ * calls and raises, by the varint amount; finally a byte (number of winners
+ * << 1 | showdown), the seat of each winner as a byte, and the varint pot.
+ *
+ * Version 1 segments, from before Omaha hands were recorded, have no variant
+ * byte: all their hands are hold 'em.
+ */
+public class HandHistoryWriter {
+	static final int MAGIC = 0x48485331; // "HHS1"
+	static final int VERSION = 2;
+
+	/*
+	 * the last version without a variant byte in hands, which can still be
+	 * read
+	 */
+	static final int HOLDEM_VERSION = 1;
+
+	static final byte NAME = 0;
+	static final byte HAND = 1;
+
+	static final String SEGMENT_PREFIX = "hands-";
+	static final String SEGMENT_SUFFIX = ".hh";
+
+	private static final long DEFAULT_SEGMENT_SIZE = 64L << 20;
+	private static final int QUEUE_CAPACITY = 1 << 16;
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final File directory;
+	private final long segmentSize;
+
+	private final BlockingQueue<RecordedHand> queue = new ArrayBlockingQueue<>(
+			QUEUE_CAPACITY);
+	private final Queue<RecordedHand> free = new ConcurrentLinkedQueue<>();
+
+	private final Thread thread;
+	private volatile boolean running = true;
+
+	/*
+	 * counted from every table's mailbox
+	 */
+	private final LongAdder dropped = new LongAdder();
+
+	/*
+	 * state owned by the writer thread
+	 */
+	private int segmentNumber;
+	private OutputStream out;
+	private long written;
+	private final Map<String, Integer> ids = new HashMap<>();
+	private long lastTimestamp;
+	private final Buffer record = new Buffer();
+	private final Buffer name = new Buffer();
+	private final List<RecordedHand> batch = new ArrayList<>();
+
+	public HandHistoryWriter(File directory) throws IOException {
+		this(directory, DEFAULT_SEGMENT_SIZE);
+	}
+
+	/*
+	 * @param segmentSize size in bytes past which a new segment is started
+	 */
+	public HandHistoryWriter(File directory, long segmentSize)
+			throws IOException {
+		if (!directory.isDirectory() && !directory.mkdirs())
+			throw new IOException("Could not create " + directory + ".");
+
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+
+		final File[] segments = HandHistoryReader.segments(directory);
+		segmentNumber = segments.length == 0 ? 0 : HandHistoryReader
+				.segmentNumber(segments[segments.length - 1]);
+		startSegment();
+
+		thread = new Thread(this::run, "hand-history-writer");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/*
+	 * a hand to fill in and pass to write
+	 */
+	public RecordedHand obtain() {
+		final RecordedHand hand = free.poll();
+		return hand != null ? hand : new RecordedHand();
+	}
+
+	/*
+	 * Queues a hand to be written, after which it must no longer be used by
+	 * the caller.
+	 */
+	public void write(RecordedHand hand) {
+		if (!queue.offer(hand)) {
+			dropped.increment();
+			free.offer(hand);
+		}
+	}
+
+	/*
+	 * number of hands dropped because the writer fell behind
+	 */
+	public long getDroppedCount() {
+		return dropped.sum();
+	}
+
+	/*
+	 * Writes out everything queued so far and closes the current segment.
+	 */
+	public void close() {
+		running = false;
+		thread.interrupt();
+
+		try {
+			thread.join();
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void run() {
+		while (running || !queue.isEmpty()) {
+			try {
+				final RecordedHand hand = queue.poll(100, TimeUnit.MILLISECONDS);
+
+				if (hand != null) {
+					batch.add(hand);
+					queue.drainTo(batch);
+
+					for (RecordedHand h : batch) {
+						encode(h);
+						free.offer(h);
+					}
+
+					batch.clear();
+				}
+
+				// only flush once caught up
+				if (queue.isEmpty())
+					out.flush();
+			} catch (InterruptedException ie) {
+				continue;
+			} catch (IOException ioe) {
+				System.err.println("Could not write hand history: "
+						+ ioe.getMessage());
+			}
+		}
+
+		try {
+			out.close();
+		} catch (IOException ioe) {
+			ioe.printStackTrace();
+		}
+	}
+
+	private void startSegment() throws IOException {
+		segmentNumber++;
+		out = new BufferedOutputStream(new FileOutputStream(new File(
+				directory, HandHistoryReader.segmentName(segmentNumber))),
+				BUFFER_SIZE);
+		written = 0;
+		ids.clear();
+		lastTimestamp = 0;
+
+		record.clear();
+		record.writeInt(MAGIC);
+		record.writeInt(VERSION);
+		written += record.writeTo(out);
+	}
+
+	private void encode(RecordedHand hand) throws IOException {
+		if (written >= segmentSize) {
+			out.close();
+			startSegment();
+		}
+
+		record.clear();
+		record.writeVarLong(zigzag(hand.timestamp - lastTimestamp));
+		lastTimestamp = hand.timestamp;
+		record.writeVarInt(id(hand.table));
+		record.writeByte(hand.variant.ordinal());
+		record.writeByte(hand.players);
+
+		for (int seat = 0; seat < hand.players; seat++)
+			record.writeVarInt(id(hand.names[seat]));
+
+		for (int seat = 0; seat < hand.players; seat++)
+			record.writeVarInt(hand.stacks[seat]);
+
+		record.writeByte(hand.firstToAct);
+
+		final int holeCards = hand.variant.getHoleCards() * hand.players;
+		long bits = hand.boardSize;
+		int numBits = 3;
+
+		for (int i = 0; i < holeCards + hand.boardSize; i++) {
+			final int card = i < holeCards ? hand.holeCards[i]
+					: hand.board[i - holeCards];
+
+			bits |= (long) card << numBits;
+			numBits += 6;
+
+			if (numBits >= 56) {
+				for (; numBits >= 8; numBits -= 8, bits >>>= 8)
+					record.writeByte((int) bits);
+			}
+		}
+
+		for (; numBits > 0; numBits -= 8, bits >>>= 8)
+			record.writeByte((int) bits);
+
+		record.writeVarInt(hand.actions);
+
+		for (int i = 0; i < hand.actions; i++) {
+			final byte type = hand.actionTypes[i];
+			record.writeByte(hand.actionSeats[i] << 3 | type);
+
+			if (type == RecordedHand.CALL || type == RecordedHand.RAISE)
+				record.writeVarInt(hand.actionAmounts[i]);
+		}
+
+		record.writeByte(hand.winners << 1 | (hand.showdown ? 1 : 0));
+
+		for (int i = 0; i < hand.winners; i++)
+			record.writeByte(hand.winnerSeats[i]);
+
+		record.writeVarInt(hand.pot);
+
+		written += writeRecord(HAND, record);
+	}
+
+	/*
+	 * the id of a name in the current segment, defining it first if needed
+	 */
+	private int id(String value) throws IOException {
+		final Integer id = ids.get(value);
+
+		if (id != null)
+			return id;
+
+		final int newId = ids.size();
+		ids.put(value, newId);
+
+		name.clear();
+		name.writeVarInt(newId);
+		name.writeBytes(value.getBytes(StandardCharsets.UTF_8));
+		written += writeRecord(NAME, name);
+		return newId;
+	}
+
+	private int writeRecord(byte kind, Buffer body) throws IOException {
+		out.write(kind);
+		int length = 1;
+
+		for (int v = body.size; (v & ~0x7F) != 0; v >>>= 7, length++)
+			out.write((v & 0x7F) | 0x80);
+
+		out.write(body.size >>> (7 * (length - 1)));
+		length++;
+
+		return length + body.writeTo(out);
+	}
+
+	private static long zigzag(long v) {
+		return (v << 1) ^ (v >> 63);
+	}
+
+	/*
+	 * growable byte buffer, reused for every record
+	 */
+	private static final class Buffer {
+		byte[] bytes = new byte[256];
+		int size;
+
+		void clear() {
+			size = 0;
+		}
+
+		void writeByte(int b) {
+			if (size == bytes.length)
+				bytes = Arrays.copyOf(bytes, 2 * size);
+
+			bytes[size++] = (byte) b;
+		}
+
+		void writeBytes(byte[] b) {
+			for (byte x : b)
+				writeByte(x);
+		}
+
+		void writeInt(int v) {
+			writeByte(v >>> 24);
+			writeByte(v >>> 16);
+			writeByte(v >>> 8);
+			writeByte(v);
+		}
+
+		void writeVarInt(int v) {
+			writeVarLong(v & 0xFFFFFFFFL);
+		}
+
+		void writeVarLong(long v) {
+			while ((v & ~0x7FL) != 0) {
+				writeByte((int) (v & 0x7F) | 0x80);
+				v >>>= 7;
+			}
+
+			writeByte((int) v);
+		}
+
+		int writeTo(OutputStream out) throws IOException {
+			out.write(bytes, 0, size);
+			return size;
+		}
+	}
+}
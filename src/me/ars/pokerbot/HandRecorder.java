@@ -0,0 +1,170 @@
+package me.ars.pokerbot;
+
+import java.util.List;
+
+/*
+ * Records the hands played by an engine into a hand history, filling in a
+ * RecordedHand as events arrive and passing it on to the writer once the hand
+ * is decided. Hands cut short by the game being stopped are dropped, and so
+ * are hands resumed from a checkpoint, which started before this recorder
+ * did.
+ *
+ * Runs on the engine's thread, like any listener.
+ */
+public class HandRecorder implements GameListener {
+	private final GameEngine engine;
+	private final String table;
+	private final HandHistoryWriter writer;
+
+	/*
+	 * the hand being recorded, or null if none is, and its players by seat
+	 */
+	private RecordedHand hand;
+	private final Player[] seats = new Player[GameEngine.MAX_PLAYERS];
+
+	public HandRecorder(GameEngine engine, String table,
+			HandHistoryWriter writer) {
+		this.engine = engine;
+		this.table = table;
+		this.writer = writer;
+	}
+
+	private int seatOf(Player player) {
+		for (int seat = 0; seat < hand.players; seat++) {
+			if (seats[seat] == player)
+				return seat;
+		}
+
+		throw new IllegalStateException("Unknown player: " + player.getName());
+	}
+
+	@Override
+	public void onHandStarted() {
+		if (hand == null)
+			hand = writer.obtain();
+
+		hand.clear();
+		hand.timestamp = System.currentTimeMillis();
+		hand.table = table;
+		hand.variant = engine.getVariant();
+
+		final List<Player> players = engine.getPlayers();
+
+		for (int seat = 0; seat < players.size(); seat++) {
+			final Player player = players.get(seat);
+			seats[seat] = player;
+			hand.names[seat] = player.getName();
+			hand.stacks[seat] = player.getMoney();
+		}
+
+		hand.players = players.size();
+	}
+
+	@Override
+	public void onCardsDealt(Player player, List<Card> cards) {
+		final int first = seatOf(player) * cards.size();
+
+		for (int i = 0; i < cards.size(); i++)
+			hand.holeCards[first + i] = cards.get(i).getIndex();
+	}
+
+	@Override
+	public void onTurn(Player player) {
+		if (hand == null)
+			return;
+
+		if (hand.firstToAct < 0)
+			hand.firstToAct = seatOf(player);
+
+		updateBoard();
+	}
+
+	@Override
+	public void onCalled(Player player, int amount, int owed) {
+		if (hand == null)
+			return;
+
+		hand.addAction(seatOf(player), RecordedHand.CALL, amount);
+	}
+
+	@Override
+	public void onChecked(Player player) {
+		if (hand == null)
+			return;
+
+		hand.addAction(seatOf(player), RecordedHand.CHECK, 0);
+	}
+
+	@Override
+	public void onRaised(Player player, int amount) {
+		if (hand == null)
+			return;
+
+		hand.addAction(seatOf(player), RecordedHand.RAISE, amount);
+	}
+
+	@Override
+	public void onFolded(Player player) {
+		if (hand == null)
+			return;
+
+		hand.addAction(seatOf(player), RecordedHand.FOLD, 0);
+	}
+
+	@Override
+	public void onCashedOut(Player player) {
+		if (hand == null)
+			return;
+
+		hand.addAction(seatOf(player), RecordedHand.CASHOUT, 0);
+	}
+
+	@Override
+	public void onWinByFold(Player winner, int pot) {
+		if (hand == null)
+			return;
+
+		hand.pot = pot;
+		hand.winnerSeats[0] = seatOf(winner);
+		hand.winners = 1;
+		finish();
+	}
+
+	@Override
+	public void onShowdown(List<Hand> winners, int share) {
+		if (hand == null)
+			return;
+
+		updateBoard();
+		hand.showdown = true;
+		hand.pot = engine.getPot();
+
+		for (int i = 0; i < winners.size(); i++)
+			hand.winnerSeats[i] = seatOf(winners.get(i).getPlayer());
+
+		hand.winners = winners.size();
+		finish();
+	}
+
+	/*
+	 * records any board cards dealt since the last action
+	 */
+	private void updateBoard() {
+		final List<Card> board = engine.getBoard();
+
+		if (board.size() > hand.boardSize) {
+			while (hand.boardSize < board.size()) {
+				hand.board[hand.boardSize] = board.get(hand.boardSize)
+						.getIndex();
+				hand.boardSize++;
+			}
+
+			hand.addAction(0, RecordedHand.STREET, 0);
+		}
+	}
+
+	private void finish() {
+		writer.write(hand);
+		hand = null;
+	}
+}
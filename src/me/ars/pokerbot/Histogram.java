@@ -0,0 +1,105 @@
+package me.ars.pokerbot;
+
+/*
+ * Counts of non-negative values in fixed buckets, from which percentiles can
+ * be read off to within about 1.6%. Values below 128 have a bucket each;
+ * above that, each power of two is split into 64 equal buckets. Recording is
+ * a shift and an increment, and the buckets never change, so histograms from
+ * different threads can simply be added together.
+ *
+ * Not thread-safe.
+ */
+public final class Histogram {
+	private static final int SUB_BUCKET_BITS = 6;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	/*
+	 * enough buckets for any long
+	 */
+	static final int BUCKETS = bucketOf(Long.MAX_VALUE) + 1;
+
+	private final long[] counts = new long[BUCKETS];
+	private long count;
+	private long sum;
+	private long max;
+
+	public void record(long value) {
+		counts[bucketOf(value)]++;
+		count++;
+		sum += value;
+
+		if (value > max)
+			max = value;
+	}
+
+	public void add(Histogram other) {
+		for (int i = 0; i < BUCKETS; i++)
+			counts[i] += other.counts[i];
+
+		count += other.count;
+		sum += other.sum;
+		max = Math.max(max, other.max);
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public long getMax() {
+		return max;
+	}
+
+	public double getMean() {
+		return count == 0 ? 0 : (double) sum / count;
+	}
+
+	/*
+	 * The value below or at which the given fraction of values lie, rounded up
+	 * to the top of its bucket (but never past the maximum).
+	 */
+	public long getPercentile(double fraction) {
+		return percentile(counts, count, max, fraction);
+	}
+
+	static long percentile(long[] counts, long count, long max,
+			double fraction) {
+		if (count == 0)
+			return 0;
+
+		final long rank = Math.max(1, (long) Math.ceil(fraction * count));
+		long seen = 0;
+
+		for (int i = 0; i < counts.length; i++) {
+			seen += counts[i];
+
+			if (seen >= rank)
+				return Math.min(upperBound(i), max);
+		}
+
+		return max;
+	}
+
+	/*
+	 * @param value a non-negative value
+	 */
+	static int bucketOf(long value) {
+		if (value < 2 * SUB_BUCKETS)
+			return (int) value;
+
+		final int shift = 64 - Long.numberOfLeadingZeros(value)
+				- (SUB_BUCKET_BITS + 1);
+		return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+	}
+
+	/*
+	 * largest value in the given bucket
+	 */
+	static long upperBound(int bucket) {
+		if (bucket < 2 * SUB_BUCKETS)
+			return bucket;
+
+		final int shift = (bucket >>> SUB_BUCKET_BITS) - 1;
+		final long subBucket = (bucket & (SUB_BUCKETS - 1)) + SUB_BUCKETS;
+		return ((subBucket + 1) << shift) - 1;
+	}
+}
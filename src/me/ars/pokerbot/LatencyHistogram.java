@@ -0,0 +1,114 @@
+package me.ars.pokerbot;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * A Histogram of durations in nanoseconds that any number of threads can
+ * record into without locking. Recording costs an atomic increment of the
+ * value's bucket and of the sum; the maximum is only written when exceeded.
+ */
+public final class LatencyHistogram {
+	private final AtomicLongArray counts = new AtomicLongArray(
+			Histogram.BUCKETS);
+	private final LongAdder sum = new LongAdder();
+	private final AtomicLong max = new AtomicLong();
+
+	public void record(long nanos) {
+		if (nanos < 0)
+			nanos = 0;
+
+		counts.incrementAndGet(Histogram.bucketOf(nanos));
+		sum.add(nanos);
+
+		long current;
+
+		while (nanos > (current = max.get())
+				&& !max.compareAndSet(current, nanos))
+			;
+	}
+
+	/*
+	 * records the time elapsed since the given System.nanoTime
+	 */
+	public void recordSince(long start) {
+		record(System.nanoTime() - start);
+	}
+
+	/*
+	 * A copy of the counts so far. Recording may go on concurrently, so the
+	 * copy need not match any single instant, but every count in it is one
+	 * that was recorded.
+	 */
+	public Snapshot snapshot() {
+		final long[] copy = new long[Histogram.BUCKETS];
+		long count = 0;
+
+		for (int i = 0; i < copy.length; i++) {
+			copy[i] = counts.get(i);
+			count += copy[i];
+		}
+
+		return new Snapshot(copy, count, sum.sum(), max.get());
+	}
+
+	public static final class Snapshot {
+		private final long[] counts;
+		private final long count;
+		private final long sum;
+		private final long max;
+
+		Snapshot(long[] counts, long count, long sum, long max) {
+			this.counts = counts;
+			this.count = count;
+			this.sum = sum;
+			this.max = max;
+		}
+
+		public long getCount() {
+			return count;
+		}
+
+		public long getSumNanos() {
+			return sum;
+		}
+
+		public long getMaxNanos() {
+			return max;
+		}
+
+		public long getPercentileNanos(double fraction) {
+			return Histogram.percentile(counts, count, max, fraction);
+		}
+
+		/*
+		 * number of durations of at most the given number of nanoseconds,
+		 * counting those in the bucket containing it
+		 */
+		public long getCountAtMost(long nanos) {
+			final int last = Histogram.bucketOf(nanos);
+			long n = 0;
+
+			for (int i = 0; i <= last; i++)
+				n += counts[i];
+
+			return n;
+		}
+	}
+
+	/*
+	 * formats a duration compactly, e.g. "850ns", "12.5us", "3.2ms"
+	 */
+	static String format(long nanos) {
+		if (nanos < TimeUnit.MICROSECONDS.toNanos(1))
+			return nanos + "ns";
+		else if (nanos < TimeUnit.MILLISECONDS.toNanos(1))
+			return String.format("%.1fus", nanos / 1e3);
+		else if (nanos < TimeUnit.SECONDS.toNanos(1))
+			return String.format("%.1fms", nanos / 1e6);
+		else
+			return String.format("%.1fs", nanos / 1e9);
+	}
+}
@@ -0,0 +1,199 @@
+package me.ars.pokerbot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/*
+ * The players of a channel waiting for a seat, in one first-come first-served
+ * waitlist per stake. Players are keyed by lower-cased nick (nicks are case
+ * insensitive), so joining, leaving and taking the next player are all
+ * constant time however many are waiting.
+ *
+ * Stakes are referred to by their index in the list of stakes offered, each
+ * being an ante and the game dealt at it. Not thread-safe: a lobby belongs to
+ * its table and is confined to its mailbox.
+ */
+public class Lobby {
+	private int[] stakes;
+	private final Variant[] variants;
+
+	/*
+	 * per stake, the nicks waiting in the order they joined
+	 */
+	private final List<LinkedHashMap<String, String>> waitlists = new ArrayList<>();
+
+	/*
+	 * the stake each waiting player is waiting for
+	 */
+	private final Map<String, Integer> stakeOf = new HashMap<>();
+
+	/*
+	 * @param stakes the antes of the stakes offered
+	 *
+	 * @param variants the game dealt at each stake
+	 */
+	public Lobby(int[] stakes, Variant[] variants) {
+		if (variants.length != stakes.length)
+			throw new IllegalArgumentException(
+					"Every stake needs a variant.");
+
+		this.stakes = stakes.clone();
+		this.variants = variants.clone();
+
+		for (int i = 0; i < stakes.length; i++)
+			waitlists.add(new LinkedHashMap<>());
+	}
+
+	public int getStakeCount() {
+		return stakes.length;
+	}
+
+	public int getAnte(int stake) {
+		return stakes[stake];
+	}
+
+	public Variant getVariant(int stake) {
+		return variants[stake];
+	}
+
+	/*
+	 * Changes the antes of the stakes offered, returning false (and changing
+	 * nothing) if the stakes do not deal the same games as before: waitlists
+	 * are kept by stake, so stakes cannot be added or removed while players
+	 * wait.
+	 */
+	public boolean setStakes(int[] antes, Variant[] variants) {
+		if (antes.length != stakes.length
+				|| !Arrays.equals(variants, this.variants))
+			return false;
+
+		stakes = antes.clone();
+		return true;
+	}
+
+	/*
+	 * the index of the stake dealing the given game at the given ante, or -1
+	 * if it is not offered
+	 */
+	public int stakeWithAnte(Variant variant, int ante) {
+		for (int i = 0; i < stakes.length; i++) {
+			if (variants[i] == variant && stakes[i] == ante)
+				return i;
+		}
+
+		return -1;
+	}
+
+	/*
+	 * the index of the first stake dealing the given game, or -1 if there is
+	 * none
+	 */
+	public int firstStake(Variant variant) {
+		for (int i = 0; i < stakes.length; i++) {
+			if (variants[i] == variant)
+				return i;
+		}
+
+		return -1;
+	}
+
+	/*
+	 * Puts the player at the back of the given stake's waitlist, returning
+	 * false if they are already waiting.
+	 */
+	public boolean join(String nick, int stake) {
+		final String key = key(nick);
+
+		if (stakeOf.containsKey(key))
+			return false;
+
+		stakeOf.put(key, stake);
+		waitlists.get(stake).put(key, nick);
+		return true;
+	}
+
+	/*
+	 * Takes the player off their waitlist, returning the stake they were
+	 * waiting for, or -1 if they were not waiting.
+	 */
+	public int leave(String nick) {
+		final String key = key(nick);
+		final Integer stake = stakeOf.remove(key);
+
+		if (stake == null)
+			return -1;
+
+		waitlists.get(stake).remove(key);
+		return stake;
+	}
+
+	public boolean isWaiting(String nick) {
+		return stakeOf.containsKey(key(nick));
+	}
+
+	public int getWaitingCount(int stake) {
+		return waitlists.get(stake).size();
+	}
+
+	public int getWaitingCount() {
+		return stakeOf.size();
+	}
+
+	public boolean isEmpty() {
+		return stakeOf.isEmpty();
+	}
+
+	/*
+	 * Takes up to the given number of players off the front of the stake's
+	 * waitlist, adding their nicks to the given list, and returns how many
+	 * were taken.
+	 */
+	public int take(int stake, int max, List<String> into) {
+		final Iterator<String> iter = waitlists.get(stake).values().iterator();
+		int taken = 0;
+
+		while (taken < max && iter.hasNext()) {
+			final String nick = iter.next();
+			iter.remove();
+			stakeOf.remove(key(nick));
+			into.add(nick);
+			taken++;
+		}
+
+		return taken;
+	}
+
+	/*
+	 * the nicks at the front of the stake's waitlist, at most the given number
+	 */
+	public List<String> peek(int stake, int max) {
+		final List<String> nicks = new ArrayList<>(Math.min(max,
+				getWaitingCount(stake)));
+
+		for (String nick : waitlists.get(stake).values()) {
+			if (nicks.size() == max)
+				break;
+
+			nicks.add(nick);
+		}
+
+		return nicks;
+	}
+
+	public void clear() {
+		for (Map<String, String> waitlist : waitlists)
+			waitlist.clear();
+
+		stakeOf.clear();
+	}
+
+	static String key(String nick) {
+		return nick.toLowerCase(Locale.ROOT);
+	}
+}
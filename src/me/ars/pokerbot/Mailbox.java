@@ -0,0 +1,58 @@
+package me.ars.pokerbot;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+ * Executor running its tasks one at a time, in submission order, on top of a
+ * shared executor. At most one drain of the mailbox is scheduled at any time,
+ * so tasks never run concurrently with each other and each sees the effects of
+ * all earlier ones, while any number of mailboxes share the same threads.
+ */
+public class Mailbox implements Executor {
+	/*
+	 * maximum number of tasks run per drain before yielding the thread to
+	 * other mailboxes
+	 */
+	private static final int BATCH_SIZE = 64;
+
+	private final Executor executor;
+	private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+	private final AtomicBoolean scheduled = new AtomicBoolean();
+
+	public Mailbox(Executor executor) {
+		this.executor = executor;
+	}
+
+	@Override
+	public void execute(Runnable task) {
+		tasks.add(task);
+		schedule();
+	}
+
+	private void schedule() {
+		if (scheduled.compareAndSet(false, true))
+			executor.execute(this::drain);
+	}
+
+	private void drain() {
+		try {
+			Runnable task;
+
+			for (int i = 0; i < BATCH_SIZE && (task = tasks.poll()) != null; i++) {
+				try {
+					task.run();
+				} catch (RuntimeException e) {
+					e.printStackTrace();
+				}
+			}
+		} finally {
+			scheduled.set(false);
+
+			if (!tasks.isEmpty())
+				schedule();
+		}
+	}
+}
@@ -1,13 +1,81 @@
 package me.ars.pokerbot;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.List;
+import java.util.Set;
 
 import org.jibble.pircbot.IrcException;
 
 public class Main {
 	public static void main(String[] args) {
-		PokerBot bot = new PokerBot(Constants.GAME_CHANNEL);
-		bot.setVerbose(Constants.VERBOSE);
+		Bankroll bankroll = null;
+
+		try {
+			bankroll = Bankroll.open(new File(Constants.BANKROLL_DIR));
+		} catch (IOException ioe) {
+			System.err.println("Could not open bankroll, money will not be "
+					+ "kept between games: " + ioe.getMessage());
+		}
+
+		if (bankroll != null) {
+			final Bankroll toClose = bankroll;
+			Runtime.getRuntime().addShutdownHook(
+					new Thread(toClose::close, "bankroll-shutdown"));
+		}
+
+		HandHistoryWriter history = null;
+
+		try {
+			history = new HandHistoryWriter(new File(Constants.HISTORY_DIR));
+		} catch (IOException ioe) {
+			System.err.println("Could not open hand history, hands will not "
+					+ "be recorded: " + ioe.getMessage());
+		}
+
+		if (history != null) {
+			final HandHistoryWriter toClose = history;
+			Runtime.getRuntime().addShutdownHook(
+					new Thread(toClose::close, "history-shutdown"));
+		}
+
+		Checkpoints checkpoints = null;
+
+		try {
+			checkpoints = new Checkpoints(new File(Constants.CHECKPOINT_DIR));
+		} catch (IOException ioe) {
+			System.err.println("Could not open checkpoints, games will not "
+					+ "survive a restart: " + ioe.getMessage());
+		}
+
+		PokerBot bot = new PokerBot(Constants.GAME_CHANNEL, bankroll, history,
+				checkpoints);
+		bot.setVerbose(Constants.getConfig().isVerbose());
+
+		// games cut short by the last shutdown carry on once we're back
+		final Set<String> restored = bot.restoreGames();
+
+		if (!restored.isEmpty())
+			System.out.println("Restored games in " + String.join(", ",
+					restored) + ".");
+
+		try {
+			new ConfigWatcher(Constants.CFG_FILE, () -> reload(bot));
+		} catch (IOException ioe) {
+			System.err.println("Could not watch the configuration file, use "
+					+ "the reload command to apply changes to it: "
+					+ ioe.getMessage());
+		}
+
+		if (Constants.METRICS_PORT != 0) {
+			try {
+				new MetricsServer(bot.getMetrics(), Constants.METRICS_PORT)
+						.start();
+			} catch (IOException ioe) {
+				System.err.println("Could not start the metrics endpoint: "
+						+ ioe.getMessage());
+			}
+		}
 
 		try {
 			if (Constants.SERVER_PASS == null) {
@@ -17,8 +85,34 @@ public class Main {
 						Constants.SERVER_PASS);
 			}
 			bot.joinGameChannel(Constants.CHANNEL_KEY);
+
+			for (String channel : restored) {
+				if (!channel.equalsIgnoreCase(Constants.GAME_CHANNEL))
+					bot.joinChannel(channel);
+			}
+
+			bot.resumeGames();
 		} catch (IrcException | IOException e) {
 			e.printStackTrace();
 		}
 	}
+
+	private static void reload(PokerBot bot) {
+		try {
+			final List<String> restart = bot.reloadConfig();
+			System.out.println("Configuration reloaded.");
+
+			if (!restart.isEmpty())
+				System.out.println("Restart to apply changes to: "
+						+ String.join(", ", restart) + ".");
+		} catch (ConfigException ce) {
+			System.err.println("Configuration not reloaded:");
+
+			for (String error : ce.getErrors())
+				System.err.println(error);
+		} catch (IOException ioe) {
+			System.err.println("Could not read configuration file: "
+					+ ioe.getMessage());
+		}
+	}
 }
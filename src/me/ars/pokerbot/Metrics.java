@@ -0,0 +1,224 @@
+package me.ars.pokerbot;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/*
+ * The bot's counters and latency histograms. Everything here is cheap enough
+ * to record on every command and every hand: counters are LongAdders and
+ * histograms are lock-free, and the set of metrics is fixed up front so that
+ * recording never allocates.
+ *
+ * Metrics can be read as a short summary, for the stats command, or in the
+ * Prometheus text format, for the MetricsServer.
+ */
+public final class Metrics {
+	/*
+	 * commands not otherwise known are counted under this name
+	 */
+	static final String OTHER_COMMAND = "other";
+
+	/*
+	 * upper bounds of the buckets exported to Prometheus, in seconds
+	 */
+	private static final double[] EXPORTED_BOUNDS = { 1e-6, 5e-6, 1e-5, 5e-5,
+			1e-4, 5e-4, 1e-3, 5e-3, 1e-2, 5e-2, 0.1, 0.5, 1 };
+
+	private final long startNanos = System.nanoTime();
+
+	private final Map<String, LatencyHistogram> commands;
+
+	private final LatencyHistogram setupHand = new LatencyHistogram();
+	private final LatencyHistogram showdown = new LatencyHistogram();
+
+	/*
+	 * time from a computer player's turn starting to it acting
+	 */
+	private final LatencyHistogram computerDecision = new LatencyHistogram();
+
+	private final LongAdder messages = new LongAdder();
+	private final LongAdder handsDealt = new LongAdder();
+
+	/*
+	 * gauges read when the metrics are, if set
+	 */
+	private volatile LongSupplier outboundQueueSize;
+	private volatile LongSupplier outboundDropped;
+
+	/*
+	 * @param commands names of the commands to time individually
+	 */
+	public Metrics(Iterable<String> commands) {
+		final Map<String, LatencyHistogram> map = new LinkedHashMap<>();
+
+		for (String command : commands)
+			map.put(command, new LatencyHistogram());
+
+		map.put(OTHER_COMMAND, new LatencyHistogram());
+		this.commands = Collections.unmodifiableMap(map);
+	}
+
+	/*
+	 * the histogram of the given command's handling time
+	 */
+	public LatencyHistogram command(String name) {
+		final LatencyHistogram histogram = commands.get(name);
+		return histogram != null ? histogram : commands.get(OTHER_COMMAND);
+	}
+
+	public LatencyHistogram getSetupHand() {
+		return setupHand;
+	}
+
+	public LatencyHistogram getShowdown() {
+		return showdown;
+	}
+
+	public LatencyHistogram getComputerDecision() {
+		return computerDecision;
+	}
+
+	/*
+	 * counts a channel message seen by the bot, command or not
+	 */
+	public void messageReceived() {
+		messages.increment();
+	}
+
+	public void handDealt() {
+		handsDealt.increment();
+	}
+
+	void setOutboundGauges(LongSupplier queueSize, LongSupplier dropped) {
+		this.outboundQueueSize = queueSize;
+		this.outboundDropped = dropped;
+	}
+
+	public long getUptimeNanos() {
+		return System.nanoTime() - startNanos;
+	}
+
+	/*
+	 * A few lines summarizing the metrics: totals and rates, then the
+	 * latencies of the commands and stages that have been timed.
+	 */
+	public String[] summarize() {
+		final double minutes = getUptimeNanos() / 6e10;
+		final StringBuilder totals = new StringBuilder();
+
+		totals.append("Up ").append(
+				TimeUnit.NANOSECONDS.toMinutes(getUptimeNanos()));
+		totals.append(" min; ").append(handsDealt.sum()).append(" hands (");
+		totals.append(String.format("%.1f", handsDealt.sum() / minutes));
+		totals.append("/min); ").append(messages.sum()).append(" messages");
+
+		if (outboundQueueSize != null) {
+			totals.append("; outbound queue ").append(
+					outboundQueueSize.getAsLong());
+			totals.append(", ").append(outboundDropped.getAsLong()).append(
+					" dropped");
+		}
+
+		final StringBuilder latencies = new StringBuilder(
+				"Latency (p50/p99/max):");
+		appendLatency(latencies, "setup", setupHand);
+		appendLatency(latencies, "showdown", showdown);
+		appendLatency(latencies, "computer", computerDecision);
+
+		for (Map.Entry<String, LatencyHistogram> entry : commands.entrySet())
+			appendLatency(latencies, entry.getKey(), entry.getValue());
+
+		return new String[] { totals.toString(), latencies.toString() };
+	}
+
+	private static void appendLatency(StringBuilder sb, String name,
+			LatencyHistogram histogram) {
+		final LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+		if (snapshot.getCount() == 0)
+			return;
+
+		sb.append(' ').append(name).append(' ');
+		sb.append(LatencyHistogram.format(snapshot.getPercentileNanos(0.5)));
+		sb.append('/');
+		sb.append(LatencyHistogram.format(snapshot.getPercentileNanos(0.99)));
+		sb.append('/');
+		sb.append(LatencyHistogram.format(snapshot.getMaxNanos()));
+		sb.append(" (").append(snapshot.getCount()).append(')');
+	}
+
+	/*
+	 * Writes all metrics in the Prometheus text exposition format.
+	 */
+	public void writePrometheus(Appendable out) throws IOException {
+		out.append("# TYPE pokerbot_uptime_seconds gauge\n");
+		out.append("pokerbot_uptime_seconds ")
+				.append(Double.toString(getUptimeNanos() / 1e9)).append('\n');
+
+		out.append("# TYPE pokerbot_messages_total counter\n");
+		out.append("pokerbot_messages_total ")
+				.append(Long.toString(messages.sum())).append('\n');
+
+		out.append("# TYPE pokerbot_hands_total counter\n");
+		out.append("pokerbot_hands_total ")
+				.append(Long.toString(handsDealt.sum())).append('\n');
+
+		if (outboundQueueSize != null) {
+			out.append("# TYPE pokerbot_outbound_queue_size gauge\n");
+			out.append("pokerbot_outbound_queue_size ")
+					.append(Long.toString(outboundQueueSize.getAsLong()))
+					.append('\n');
+
+			out.append("# TYPE pokerbot_outbound_dropped_total counter\n");
+			out.append("pokerbot_outbound_dropped_total ")
+					.append(Long.toString(outboundDropped.getAsLong()))
+					.append('\n');
+		}
+
+		writeHistogram(out, "pokerbot_setup_hand_seconds", null, setupHand);
+		writeHistogram(out, "pokerbot_showdown_seconds", null, showdown);
+		writeHistogram(out, "pokerbot_computer_decision_seconds", null,
+				computerDecision);
+
+		out.append("# TYPE pokerbot_command_seconds histogram\n");
+
+		for (Map.Entry<String, LatencyHistogram> entry : commands.entrySet())
+			writeHistogram(out, "pokerbot_command_seconds", entry.getKey(),
+					entry.getValue());
+	}
+
+	private static void writeHistogram(Appendable out, String name,
+			String command, LatencyHistogram histogram) throws IOException {
+		final LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+		final String label = command == null ? "" : "command=\"" + command
+				+ "\",";
+
+		if (command == null)
+			out.append("# TYPE ").append(name).append(" histogram\n");
+
+		for (double bound : EXPORTED_BOUNDS) {
+			out.append(name).append("_bucket{").append(label).append("le=\"")
+					.append(Double.toString(bound)).append("\"} ");
+			out.append(Long.toString(snapshot
+					.getCountAtMost((long) (bound * 1e9)))).append('\n');
+		}
+
+		out.append(name).append("_bucket{").append(label)
+				.append("le=\"+Inf\"} ")
+				.append(Long.toString(snapshot.getCount())).append('\n');
+
+		final String plainLabel = command == null ? "" : "{command=\""
+				+ command + "\"}";
+
+		out.append(name).append("_sum").append(plainLabel).append(' ')
+				.append(Double.toString(snapshot.getSumNanos() / 1e9))
+				.append('\n');
+		out.append(name).append("_count").append(plainLabel).append(' ')
+				.append(Long.toString(snapshot.getCount())).append('\n');
+	}
+}
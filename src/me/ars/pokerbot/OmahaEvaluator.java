@@ -0,0 +1,349 @@
+package me.ars.pokerbot;
+
+/*
+ * Incremental evaluation of Omaha hands, made of exactly two of a player's
+ * four hole cards and exactly three of the board's cards, against a shared
+ * board.
+ *
+ * Done naively, that is 60 five-card evaluations per hand (6 pairs of hole
+ * cards by 10 triples of board cards). Instead, hands are split into flushes
+ * and everything else:
+ *
+ * Suits aside, a five-card hand only depends on the ranks of its pair of hole
+ * cards and its triple of board cards. The strength of every such combination
+ * of ranks is tabulated when the class is loaded, and the best strength each
+ * rank pair makes with the board's (distinct) rank triples is cached for the
+ * board the first time a player holds that pair. A hand then costs at most six
+ * lookups once the board's common pairs are cached, however many players share
+ * the board.
+ *
+ * Only a suit with at least three cards on the board can make a flush, and
+ * only for players holding at least two cards of it, so flushes are only
+ * looked for in that suit, and only for those players.
+ *
+ * Strengths are those of HandEvaluator. Not thread-safe.
+ */
+public final class OmahaEvaluator {
+	private static final int RANKS = 13;
+	private static final int RANK_MASK = HandEvaluator.RANK_MASK;
+
+	/*
+	 * number of multisets of 2 and of 3 ranks
+	 */
+	private static final int RANK_PAIRS = 91;
+	private static final int RANK_TRIPLES = 455;
+
+	/*
+	 * most triples of cards on a board of 5
+	 */
+	private static final int MAX_TRIPLES = 10;
+
+	/*
+	 * index of each multiset of ranks, by its ranks in ascending order
+	 */
+	private static final int[] PAIR_INDEX = new int[RANKS * RANKS];
+	private static final int[] TRIPLE_INDEX = new int[RANKS * RANKS * RANKS];
+
+	/*
+	 * strength, flushes aside, of each rank pair with each rank triple, in
+	 * rows of RANK_TRIPLES per pair
+	 */
+	private static final int[] STRENGTHS = new int[RANK_PAIRS * RANK_TRIPLES];
+
+	static {
+		int pairs = 0;
+
+		for (int a = 0; a < RANKS; a++) {
+			for (int b = a; b < RANKS; b++)
+				PAIR_INDEX[a * RANKS + b] = pairs++;
+		}
+
+		int triples = 0;
+
+		for (int a = 0; a < RANKS; a++) {
+			for (int b = a; b < RANKS; b++) {
+				for (int c = b; c < RANKS; c++)
+					TRIPLE_INDEX[(a * RANKS + b) * RANKS + c] = triples++;
+			}
+		}
+
+		final int[] counts = new int[RANKS];
+
+		for (int a = 0; a < RANKS; a++) {
+			for (int b = a; b < RANKS; b++) {
+				for (int c = 0; c < RANKS; c++) {
+					for (int d = c; d < RANKS; d++) {
+						for (int e = d; e < RANKS; e++) {
+							counts[a]++;
+							counts[b]++;
+							counts[c]++;
+							counts[d]++;
+							counts[e]++;
+
+							STRENGTHS[PAIR_INDEX[a * RANKS + b] * RANK_TRIPLES
+									+ TRIPLE_INDEX[(c * RANKS + d) * RANKS + e]] = unsuited(counts);
+
+							counts[a] = counts[b] = counts[c] = counts[d] = counts[e] = 0;
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/*
+	 * strength of five cards with the given number of each rank, spread over
+	 * as many suits as it takes (0 for five of a rank, which cannot be dealt)
+	 */
+	private static int unsuited(int[] counts) {
+		final int[] suits = new int[4];
+
+		for (int r = 0; r < RANKS; r++) {
+			if (counts[r] > 4)
+				return 0;
+
+			for (int s = 0; s < counts[r]; s++)
+				suits[s] |= 1 << r;
+		}
+
+		return HandEvaluator.evaluateUnsuited(suits[0], suits[1], suits[2],
+				suits[3], 5);
+	}
+
+	private long board;
+	private int size;
+
+	/*
+	 * indices of the board's cards, in the order they landed
+	 */
+	private final int[] cards = new int[5];
+
+	/*
+	 * the distinct rank triples of the board
+	 */
+	private final int[] triples = new int[MAX_TRIPLES];
+	private int numTriples;
+
+	/*
+	 * the suit with 3 or more cards on the board, or -1 if there is none, and
+	 * the rank masks of the triples of board cards of that suit
+	 */
+	private int flushSuit = -1;
+	private final int[] flushTriples = new int[MAX_TRIPLES];
+	private int numFlushTriples;
+
+	/*
+	 * the best strength, flushes aside, of each rank pair on the board; only
+	 * valid where stamped with the board's generation, which changes with
+	 * every card landing
+	 */
+	private final int[] best = new int[RANK_PAIRS];
+	private final int[] stamps = new int[RANK_PAIRS];
+	private int generation = 1;
+
+	public long getBoard() {
+		return board;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public void clear() {
+		board = CardSet.EMPTY;
+		size = 0;
+		numTriples = 0;
+		flushSuit = -1;
+		numFlushTriples = 0;
+		generation++;
+	}
+
+	/*
+	 * Replaces the board with the given set of cards.
+	 */
+	public void set(long cards) {
+		board = cards;
+		size = 0;
+
+		for (long s = cards; s != 0; s = CardSet.rest(s))
+			this.cards[size++] = CardSet.first(s);
+
+		update();
+	}
+
+	/*
+	 * Adds a card landing on the board.
+	 */
+	public void add(Card card) {
+		board |= card.getMask();
+		cards[size++] = card.getIndex();
+		update();
+	}
+
+	/*
+	 * Works out the board's triples and flush suit afresh.
+	 */
+	private void update() {
+		generation++;
+		numTriples = 0;
+		numFlushTriples = 0;
+		flushSuit = -1;
+
+		final int[] suitCounts = new int[4];
+
+		for (int i = 0; i < size; i++) {
+			if (++suitCounts[cards[i] / RANKS] >= 3)
+				flushSuit = cards[i] / RANKS;
+		}
+
+		for (int i = 0; i < size; i++) {
+			for (int j = i + 1; j < size; j++) {
+				for (int k = j + 1; k < size; k++)
+					addTriple(cards[i], cards[j], cards[k]);
+			}
+		}
+	}
+
+	private void addTriple(int card1, int card2, int card3) {
+		int a = card1 % RANKS;
+		int b = card2 % RANKS;
+		int c = card3 % RANKS;
+
+		if (flushSuit >= 0 && card1 / RANKS == flushSuit
+				&& card2 / RANKS == flushSuit && card3 / RANKS == flushSuit)
+			flushTriples[numFlushTriples++] = (1 << a) | (1 << b) | (1 << c);
+
+		// sort the ranks
+		if (a > b) {
+			final int t = a;
+			a = b;
+			b = t;
+		}
+
+		if (b > c) {
+			final int t = b;
+			b = c;
+			c = t;
+		}
+
+		if (a > b) {
+			final int t = a;
+			a = b;
+			b = t;
+		}
+
+		final int triple = TRIPLE_INDEX[(a * RANKS + b) * RANKS + c];
+
+		for (int t = 0; t < numTriples; t++) {
+			if (triples[t] == triple)
+				return;
+		}
+
+		triples[numTriples++] = triple;
+	}
+
+	/*
+	 * strength of the best hand made by two of the given four hole cards with
+	 * three of the board's cards; the board must have at least 3 cards
+	 *
+	 * @param hole bitmask of four hole cards, disjoint from the board
+	 */
+	public int evaluate(long hole) {
+		final int c0 = CardSet.first(hole);
+		long rest = CardSet.rest(hole);
+		final int c1 = CardSet.first(rest);
+		rest = CardSet.rest(rest);
+		final int c2 = CardSet.first(rest);
+		final int c3 = CardSet.first(CardSet.rest(rest));
+
+		final int r0 = c0 % RANKS;
+		final int r1 = c1 % RANKS;
+		final int r2 = c2 % RANKS;
+		final int r3 = c3 % RANKS;
+
+		int strength = bestWith(r0, r1);
+		strength = Math.max(strength, bestWith(r0, r2));
+		strength = Math.max(strength, bestWith(r0, r3));
+		strength = Math.max(strength, bestWith(r1, r2));
+		strength = Math.max(strength, bestWith(r1, r3));
+		strength = Math.max(strength, bestWith(r2, r3));
+
+		if (flushSuit >= 0)
+			strength = Math.max(strength, bestFlush(hole));
+
+		return strength;
+	}
+
+	/*
+	 * the best strength, flushes aside, of the given ranks with the board
+	 */
+	private int bestWith(int rank1, int rank2) {
+		final int pair = rank1 <= rank2 ? PAIR_INDEX[rank1 * RANKS + rank2]
+				: PAIR_INDEX[rank2 * RANKS + rank1];
+
+		if (stamps[pair] == generation)
+			return best[pair];
+
+		final int row = pair * RANK_TRIPLES;
+		int max = 0;
+
+		for (int t = 0; t < numTriples; t++)
+			max = Math.max(max, STRENGTHS[row + triples[t]]);
+
+		best[pair] = max;
+		stamps[pair] = generation;
+		return max;
+	}
+
+	/*
+	 * the best flush (or straight flush) made by the hole cards, or 0 if
+	 * there is none
+	 */
+	private int bestFlush(long hole) {
+		final int suited = (int) (hole >>> (RANKS * flushSuit)) & RANK_MASK;
+
+		if (Integer.bitCount(suited) < 2)
+			return 0;
+
+		int max = 0;
+
+		for (int a = suited; a != 0; a &= a - 1) {
+			for (int b = a & (a - 1); b != 0; b &= b - 1) {
+				final int pair = (a & -a) | (b & -b);
+
+				for (int t = 0; t < numFlushTriples; t++)
+					max = Math.max(max, HandEvaluator.flush(pair
+							| flushTriples[t]));
+			}
+		}
+
+		return max;
+	}
+
+	/*
+	 * the five cards making up a hand of the given strength, as computed by
+	 * evaluate for the same hole cards
+	 */
+	public Card[] bestHand(long hole, int strength) {
+		for (long a = hole; a != 0; a = CardSet.rest(a)) {
+			for (long b = CardSet.rest(a); b != 0; b = CardSet.rest(b)) {
+				final long pair = (a & -a) | (b & -b);
+
+				for (int i = 0; i < size; i++) {
+					for (int j = i + 1; j < size; j++) {
+						for (int k = j + 1; k < size; k++) {
+							final long hand = pair | (1L << cards[i])
+									| (1L << cards[j]) | (1L << cards[k]);
+
+							if (HandEvaluator.evaluate(hand) == strength)
+								return CardSet.toCards(hand);
+						}
+					}
+				}
+			}
+		}
+
+		throw new IllegalArgumentException("No hand of strength " + strength
+				+ ".");
+	}
+}
@@ -0,0 +1,327 @@
+package me.ars.pokerbot;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+
+/*
+ * Schedules the bot's outgoing messages, taking over the rate limiting that
+ * PircBot would otherwise apply with a fixed delay per line.
+ *
+ * Messages are queued per target and always sent in order for a given target.
+ * Whenever a line can be sent, it goes to the eligible target with the most
+ * urgent message queued (oldest first among equals), where a target is
+ * eligible if both its own token bucket and the connection-wide one allow it.
+ * Consecutive messages for the same target are merged into a single line, as
+ * long as it stays within the IRC line length limit.
+ *
+ * When the backlog grows too large, low priority messages are dropped, and
+ * past a second threshold so are normal priority ones; high priority messages
+ * are never dropped.
+ */
+public class OutboundScheduler {
+	public static enum Priority {
+		// the order of these matters:
+		LOW, NORMAL, HIGH
+	}
+
+	/*
+	 * maximum size of an IRC line, including the trailing CRLF
+	 */
+	private static final int IRC_LINE_BYTES = 512;
+
+	/*
+	 * room left for the ":nick!login@host " prefix added by the server when
+	 * relaying the line
+	 */
+	private static final int PREFIX_ALLOWANCE = 110;
+
+	private static final String SEPARATOR = " | ";
+
+	private static final int DEFAULT_LOW_WATERMARK = 200;
+	private static final int DEFAULT_HIGH_WATERMARK = 1000;
+
+	private static final int GLOBAL_BURST = 5;
+	private static final long GLOBAL_REFILL_NANOS = TimeUnit.MILLISECONDS
+			.toNanos(700);
+
+	private static final int TARGET_BURST = 3;
+	private static final long TARGET_REFILL_NANOS = TimeUnit.MILLISECONDS
+			.toNanos(1500);
+
+	private final BiConsumer<String, String> output;
+	private final int lowWatermark;
+	private final int highWatermark;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition changed = lock.newCondition();
+
+	private final TokenBucket globalBucket;
+	private final Map<String, Target> targets = new HashMap<>();
+
+	private long sequence = 0;
+	private int queued = 0;
+	private long dropped = 0;
+
+	/*
+	 * @param output sends a line (second argument) to a target (first
+	 * argument)
+	 */
+	public OutboundScheduler(BiConsumer<String, String> output) {
+		this(output, DEFAULT_LOW_WATERMARK, DEFAULT_HIGH_WATERMARK);
+	}
+
+	/*
+	 * @param lowWatermark backlog above which low priority messages are
+	 * dropped
+	 *
+	 * @param highWatermark backlog above which normal priority messages are
+	 * dropped
+	 */
+	public OutboundScheduler(BiConsumer<String, String> output,
+			int lowWatermark, int highWatermark) {
+		this.output = output;
+		this.lowWatermark = lowWatermark;
+		this.highWatermark = highWatermark;
+		this.globalBucket = new TokenBucket(GLOBAL_BURST, GLOBAL_REFILL_NANOS,
+				System.nanoTime());
+
+		final Thread thread = new Thread(this::run, "irc-output");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/*
+	 * Queues a message, returning false if it was dropped.
+	 */
+	public boolean submit(String target, String message, Priority priority) {
+		lock.lock();
+
+		try {
+			if ((priority == Priority.LOW && queued >= lowWatermark)
+					|| (priority == Priority.NORMAL && queued >= highWatermark)) {
+				dropped++;
+				return false;
+			}
+
+			Target t = targets.get(target);
+
+			if (t == null) {
+				t = new Target(target, System.nanoTime());
+				targets.put(target, t);
+			}
+
+			t.messages.add(new Message(message, priority, sequence++));
+
+			if (priority.compareTo(t.maxPriority) > 0)
+				t.maxPriority = priority;
+
+			queued++;
+			changed.signal();
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/*
+	 * number of messages waiting to be sent
+	 */
+	public int getQueueSize() {
+		lock.lock();
+
+		try {
+			return queued;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/*
+	 * number of messages dropped because of backpressure
+	 */
+	public long getDroppedCount() {
+		lock.lock();
+
+		try {
+			return dropped;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void run() {
+		while (true) {
+			final String target;
+			final String line;
+
+			lock.lock();
+
+			try {
+				Target next;
+
+				while ((next = nextTarget()) == null) {
+					final long wait = nanosUntilEligible();
+
+					if (wait == Long.MAX_VALUE)
+						changed.await();
+					else
+						changed.awaitNanos(wait);
+				}
+
+				target = next.name;
+				line = takeLine(next);
+				next.bucket.take();
+				globalBucket.take();
+			} catch (InterruptedException ie) {
+				return;
+			} finally {
+				lock.unlock();
+			}
+
+			try {
+				output.accept(target, line);
+			} catch (RuntimeException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/*
+	 * the target to be served next, or null if none can be served now
+	 */
+	private Target nextTarget() {
+		final long now = System.nanoTime();
+
+		if (!globalBucket.isAvailable(now))
+			return null;
+
+		Target best = null;
+		final Iterator<Target> iter = targets.values().iterator();
+
+		while (iter.hasNext()) {
+			final Target t = iter.next();
+
+			if (t.messages.isEmpty()) {
+				// forget idle targets once they have fully recovered
+				if (t.bucket.isFull(now))
+					iter.remove();
+
+				continue;
+			}
+
+			if (!t.bucket.isAvailable(now))
+				continue;
+
+			if (best == null
+					|| t.maxPriority.compareTo(best.maxPriority) > 0
+					|| (t.maxPriority == best.maxPriority && t.messages.peek().sequence < best.messages
+							.peek().sequence))
+				best = t;
+		}
+
+		return best;
+	}
+
+	private long nanosUntilEligible() {
+		final long now = System.nanoTime();
+		long wait = Long.MAX_VALUE;
+
+		for (Target t : targets.values()) {
+			if (!t.messages.isEmpty())
+				wait = Math.min(wait, t.bucket.nanosUntilAvailable(now));
+		}
+
+		if (wait == Long.MAX_VALUE)
+			return wait;
+
+		return Math.max(Math.max(wait, globalBucket.nanosUntilAvailable(now)),
+				1);
+	}
+
+	/*
+	 * Removes as many of the target's messages as fit in one line, and returns
+	 * that line.
+	 */
+	private String takeLine(Target t) {
+		final int budget = IRC_LINE_BYTES - PREFIX_ALLOWANCE
+				- "PRIVMSG  :\r\n".length() - utf8Length(t.name);
+
+		final StringBuilder line = new StringBuilder(t.messages.poll().text);
+		int bytes = utf8Length(line);
+		queued--;
+
+		while (!t.messages.isEmpty()) {
+			final String text = t.messages.peek().text;
+			final int length = utf8Length(text) + SEPARATOR.length();
+
+			if (bytes + length > budget)
+				break;
+
+			line.append(SEPARATOR).append(text);
+			bytes += length;
+			t.messages.poll();
+			queued--;
+		}
+
+		t.maxPriority = Priority.LOW;
+
+		for (Message m : t.messages) {
+			if (m.priority.compareTo(t.maxPriority) > 0)
+				t.maxPriority = m.priority;
+		}
+
+		return line.toString();
+	}
+
+	private static int utf8Length(CharSequence s) {
+		int length = 0;
+
+		for (int i = 0; i < s.length(); i++) {
+			final char c = s.charAt(i);
+
+			if (c < 0x80) {
+				length++;
+			} else if (c < 0x800) {
+				length += 2;
+			} else if (Character.isHighSurrogate(c)) {
+				length += 4;
+				i++;
+			} else {
+				length += 3;
+			}
+		}
+
+		return length;
+	}
+
+	private static final class Message {
+		final String text;
+		final Priority priority;
+		final long sequence;
+
+		Message(String text, Priority priority, long sequence) {
+			this.text = text;
+			this.priority = priority;
+			this.sequence = sequence;
+		}
+	}
+
+	private static final class Target {
+		final String name;
+		final ArrayDeque<Message> messages = new ArrayDeque<>();
+		final TokenBucket bucket;
+		Priority maxPriority = Priority.LOW;
+
+		Target(String name, long now) {
+			this.name = name;
+			this.bucket = new TokenBucket(TARGET_BURST, TARGET_REFILL_NANOS,
+					now);
+		}
+	}
+}
@@ -1,20 +1,77 @@
 package me.ars.pokerbot;
 
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.List;
+
 public class Player {
 	private String name;
-	private int money = Constants.START_MONEY;
+	private int money;
 
 	/*
 	 * how much this player has payed in a given hand
 	 */
 	private int payed = 0;
 
-	private Card card1, card2;
+	/*
+	 * hole cards, as many as the game's variant deals
+	 */
+	private final Card[] cards = new Card[4];
+	private int numCards = 0;
+
+	private final List<Card> cardList = new AbstractList<Card>() {
+		@Override
+		public Card get(int index) {
+			if (index >= numCards)
+				throw new IndexOutOfBoundsException("Index: " + index);
+
+			return cards[index];
+		}
+
+		@Override
+		public int size() {
+			return numCards;
+		}
+	};
+
 	private boolean active = true;
 	private boolean folded = false;
 
+	/*
+	 * where changes in this player's money are recorded, if anywhere
+	 */
+	private final Bankroll bankroll;
+
+	/*
+	 * whether this player's actions are decided by ComputerPlayers
+	 */
+	private final boolean computer;
+
 	public Player(String name) {
+		this(name, Constants.getConfig().getStartMoney());
+	}
+
+	public Player(String name, int money) {
+		this(name, money, null);
+	}
+
+	public Player(String name, int money, Bankroll bankroll) {
+		this(name, money, bankroll, false);
+	}
+
+	private Player(String name, int money, Bankroll bankroll,
+			boolean computer) {
 		this.name = name;
+		this.money = money;
+		this.bankroll = bankroll;
+		this.computer = computer;
+	}
+
+	/*
+	 * a computer player, whose money is not kept anywhere
+	 */
+	public static Player computer(String name, int money) {
+		return new Player(name, money, null, true);
 	}
 
 	public String getName() {
@@ -36,19 +93,44 @@ public class Player {
 	public void newHand() {
 		payed = 0;
 		folded = false;
+		numCards = 0;
 	}
 
 	public void receiveCards(Card card1, Card card2) {
-		this.card1 = card1;
-		this.card2 = card2;
+		numCards = 0;
+		receiveCard(card1);
+		receiveCard(card2);
+	}
+
+	/*
+	 * Adds a hole card to those received since the hand started.
+	 */
+	public void receiveCard(Card card) {
+		cards[numCards++] = card;
 	}
 
 	public Card getCard1() {
-		return card1;
+		return cards[0];
 	}
 
 	public Card getCard2() {
-		return card2;
+		return cards[1];
+	}
+
+	/*
+	 * this player's hole cards, as an unmodifiable view
+	 */
+	public List<Card> getCards() {
+		return cardList;
+	}
+
+	public long getHoleMask() {
+		long mask = CardSet.EMPTY;
+
+		for (int i = 0; i < numCards; i++)
+			mask |= cards[i].getMask();
+
+		return mask;
 	}
 
 	public boolean isFolded() {
@@ -59,12 +141,20 @@ public class Player {
 		return active;
 	}
 
+	public boolean isComputer() {
+		return computer;
+	}
+
 	public int bet(int amount) {
 		if (!active)
 			return 0;
 
 		payed += amount;
 		money -= amount;
+
+		if (bankroll != null)
+			bankroll.bet(name, amount);
+
 		return amount;
 	}
 
@@ -73,6 +163,9 @@ public class Player {
 			return;
 
 		money += pot;
+
+		if (bankroll != null)
+			bankroll.win(name, pot);
 	}
 
 	public void cashout() {
@@ -83,4 +176,66 @@ public class Player {
 	public void fold() {
 		folded = true;
 	}
+
+	/*
+	 * Releases this player's stake in their bankroll, if any, once they have
+	 * left their game.
+	 */
+	void release() {
+		if (bankroll != null)
+			bankroll.release(name);
+	}
+
+	/*
+	 * Holds the stake of this player, restored from a checkpoint, in their
+	 * bankroll, if any, bringing their balance in line with their money.
+	 */
+	void restake() {
+		if (bankroll != null)
+			bankroll.restake(name, money);
+	}
+
+	/*
+	 * Writes this player's state in the hand being played, for readFrom.
+	 */
+	void writeTo(ByteBuffer out) {
+		Checkpoints.putString(out, name);
+		out.putInt(money);
+		out.putInt(payed);
+		out.put((byte) numCards);
+
+		for (int i = 0; i < numCards; i++)
+			out.put((byte) cards[i].getIndex());
+
+		out.put((byte) ((active ? 1 : 0) | (folded ? 2 : 0) | (computer ? 4
+				: 0)));
+	}
+
+	/*
+	 * a player in the state written by writeTo, whose money is recorded in the
+	 * given bankroll, if any, from now on
+	 */
+	static Player readFrom(ByteBuffer in, Bankroll bankroll) {
+		final String name = Checkpoints.getString(in);
+		final int money = in.getInt();
+		final int payed = in.getInt();
+		final Card[] cards = new Card[in.get()];
+
+		for (int i = 0; i < cards.length; i++)
+			cards[i] = Card.of(in.get());
+
+		final int flags = in.get();
+		final boolean computer = (flags & 4) != 0;
+		final Player player = new Player(name, money, computer ? null
+				: bankroll, computer);
+
+		player.payed = payed;
+		player.active = (flags & 1) != 0;
+		player.folded = (flags & 2) != 0;
+
+		for (Card card : cards)
+			player.receiveCard(card);
+
+		return player;
+	}
 }
@@ -1,19 +1,17 @@
 package me.ars.pokerbot;
 
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
-import java.util.ArrayDeque;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Queue;
 import java.util.Set;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import me.ars.pokerbot.OutboundScheduler.Priority;
 
 import org.jibble.pircbot.Colors;
 import org.jibble.pircbot.PircBot;
@@ -21,34 +19,133 @@ import org.jibble.pircbot.PircBot;
 public class PokerBot extends PircBot {
 
 	/*
-	 * pattern representing one or more contiguous whitespace characters, used
-	 * for parsing commands
+	 * resolution of the turn clocks, and the number of ticks in a turn of the
+	 * wheel (which need not cover the longest clock)
+	 */
+	private static final long TIMER_TICK_MILLIS = 100;
+	private static final int TIMER_WHEEL_SIZE = 512;
+
+	private static final String ADMIN_NEEDED = " (" + Colors.RED
+			+ "admin command" + Colors.NORMAL + ")";
+
+	/*
+	 * channel commands handled by the bot itself, rather than a table
+	 */
+	private static final CommandRegistry<PokerBot> COMMANDS = new CommandRegistry<>(
+			Constants.CMD_PREFIX);
+
+	static {
+		COMMANDS.register(new Command<>("ping", 0, "Ping me for a reply.", (
+				bot, channel, sender, args) -> bot.sendReply(channel, sender,
+				"pong", Priority.LOW)));
+
+		COMMANDS.register(new Command<>("stats", Command.ADMIN,
+				"Display the bot's latency and throughput metrics.",
+				PokerBot::stats));
+
+		COMMANDS.register(new Command<>("reload", Command.ADMIN,
+				"Reload the configuration file.", PokerBot::reload));
+
+		COMMANDS.register(new Command<>("help", 0, "Display help information.",
+				PokerBot::help));
+	}
+
+	/*
+	 * commands accepted in private messages, which act on the sender's
+	 * hostname
 	 */
-	private static final Pattern SPACES = Pattern.compile("\\s+");
+	private final CommandRegistry<String> privateCommands = new CommandRegistry<>(
+			Constants.CMD_PREFIX);
 
 	/*
-	 * channel in which the games will be played
+	 * channel joined on startup
 	 */
-	private String gameChannel;
+	private final String gameChannel;
 
 	/*
 	 * set of administrators by hostname
 	 */
-	private Set<String> admins = new HashSet<>();
+	private final Set<String> admins = ConcurrentHashMap.newKeySet();
 
-	private final List<Player> players = new ArrayList<>();
-	private boolean gameInProgress = false;
-	private final Queue<Card> deck = new ArrayDeque<>(52);
-	private final List<Card> table = new ArrayList<>(5);
+	private final TableManager tables;
 
-	private int turnIndex;
-	private int lastIndex;
-	private int startPlayer;
-	private int pot;
-	private int raise;
+	/*
+	 * where players' money is kept, or null if it is not kept between games
+	 */
+	private final Bankroll bankroll;
+
+	/*
+	 * where the hands played are recorded, or null if they are not
+	 */
+	private final HandHistoryWriter history;
+
+	/*
+	 * where games are checkpointed, or null if they do not survive restarts
+	 */
+	private final Checkpoints checkpoints;
+
+	/*
+	 * rate limits and orders the bot's output, in place of PircBot's message
+	 * delay
+	 */
+	private final OutboundScheduler outbound = new OutboundScheduler((
+			target, line) -> sendRawLine("PRIVMSG " + target + " :" + line));
+
+	private final Metrics metrics = new Metrics(commandNames());
+
+	/*
+	 * held while reloading the configuration, so that reloads are applied in
+	 * the order they were read
+	 */
+	private final Object reloadLock = new Object();
+
+	/*
+	 * runs the turn clocks of every game
+	 */
+	private final TimingWheel timers = new TimingWheel(TIMER_TICK_MILLIS,
+			TimeUnit.MILLISECONDS, TIMER_WHEEL_SIZE);
+
+	/*
+	 * decides the actions of the computer players in every game
+	 */
+	private final ComputerPlayers computerPlayers = new ComputerPlayers();
 
 	public PokerBot(String gameChannel) {
+		this(gameChannel, TableManager.newDefaultExecutor(), null, null, null);
+	}
+
+	public PokerBot(String gameChannel, Bankroll bankroll,
+			HandHistoryWriter history, Checkpoints checkpoints) {
+		this(gameChannel, TableManager.newDefaultExecutor(), bankroll, history,
+				checkpoints);
+	}
+
+	/*
+	 * @param executor executor on which the tables process their commands
+	 *
+	 * @param bankroll where players' money is kept, or null to start every
+	 * game afresh
+	 *
+	 * @param history where the hands played are recorded, or null to not
+	 * record them
+	 *
+	 * @param checkpoints where games are checkpointed, or null to not
+	 * checkpoint them
+	 */
+	public PokerBot(String gameChannel, Executor executor, Bankroll bankroll,
+			HandHistoryWriter history, Checkpoints checkpoints) {
 		this.gameChannel = gameChannel;
+		this.bankroll = bankroll;
+		this.history = history;
+		this.checkpoints = checkpoints;
+		this.metrics.setOutboundGauges(outbound::getQueueSize,
+				outbound::getDroppedCount);
+
+		this.privateCommands.register(new Command<>("auth", 0,
+				"Authenticate as an admin with the admin key.", (hostname,
+						channel, sender, args) -> authenticate(hostname, sender,
+						args)), "authenticate");
+		this.tables = new TableManager(this, executor);
 
 		setName(Constants.BOT_NAME);
 		setAutoNickChange(true);
@@ -67,686 +164,178 @@ public class PokerBot extends PircBot {
 	public void onMessage(String channel, String sender, String login,
 			String hostname, String message) {
 
-		if (!gameChannel.equals(channel) || message.isEmpty()
-				|| message.charAt(0) != Constants.CMD_PREFIX) {
-
-			return;
-		}
-
-		final String[] split = SPACES.split(message);
+		metrics.messageReceived();
 
-		switch (split[0].substring(1)) {
-		case "ping": {
-			sendReply(channel, sender, "pong");
-			break;
-		}
-		case "gamechan": {
-			if (!isAdmin(hostname)) {
-				sendReply(channel, sender,
-						"Only an admin can change the game channel.");
-				break;
-			}
+		final Command<PokerBot> command = COMMANDS.match(message);
 
-			if (gameInProgress) {
-				sendReply(
-						channel,
-						sender,
-						"A game is currently in progress. The current game "
-								+ "must be stopped before changing the game channel.");
-				break;
+		if (command != null) {
+			if (checkAdmin(command, channel, sender, hostname)) {
+				final long start = System.nanoTime();
+				command.handle(this, channel, sender,
+						CommandRegistry.arguments(message));
+				metrics.command(command.getName()).recordSince(start);
 			}
 
-			if (split.length > 2)
-				joinChannel(split[1], split[2]);
-			else
-				joinChannel(split[1]);
-
-			partChannel(gameChannel);
-			gameChannel = split[1];
-			break;
-		}
-		case "join": {
-			if (registerPlayer(sender)) {
-				sendReply(channel, sender,
-						"You have now joined! Please wait for the game to start.");
-			} else {
-				sendReply(channel, sender,
-						"Could not join. A game is already in progress.");
-			}
-			break;
-		}
-		case "unjoin": {
-			final Iterator<Player> iter = players.iterator();
-			boolean everJoined = false;
-
-			while (iter.hasNext()) {
-				Player player = iter.next();
-
-				if (player.getName().equals(sender)) {
-					iter.remove();
-					sendReply(channel, sender, "You have unjoined.");
-					everJoined = true;
-					break;
-				}
-			}
-
-			if (!everJoined)
-				sendReply(channel, sender, "You had never joined.");
-
-			break;
-		}
-		case "joined": {
-			if (players.isEmpty()) {
-				sendMessage(channel, "No joined players.");
-				break;
-			}
-
-			sendMessage(
-					channel,
-					"Joined players: "
-							+ players.stream().map(Player::getName)
-									.collect(Collectors.joining(", ")) + ".");
-
-			break;
-		}
-		case "clear": {
-			if (!isAdmin(hostname)) {
-				sendReply(channel, sender,
-						"Only an admin can clear the joined players list.");
-				break;
-			}
-
-			if (gameInProgress) {
-				sendReply(channel, sender, "A game is already in progress.");
-				break;
-			}
-
-			players.clear();
-			sendMessage(channel, "Players list cleared.");
-			break;
-		}
-		case "start": {
-			if (!isAdmin(hostname)) {
-				sendReply(channel, sender, "Only an admin can start the game.");
-				break;
-			}
-
-			if (players.size() < 2) {
-				sendReply(channel, sender,
-						"Need at least 2 players to join before starting.");
-				break;
-			}
-
-			if (players.size() > 15) {
-				sendReply(channel, sender, "Cannot play with over 15 players.");
-				break;
-			}
-
-			startGame();
-			break;
-		}
-		case "stop": {
-			if (!isAdmin(hostname)) {
-				sendReply(channel, sender, "Only an admin can stop the game.");
-				break;
-			}
-
-			if (!gameInProgress) {
-				sendReply(channel, sender, "No game is currently in progress.");
-				break;
-			}
-
-			stopGame(sender);
-			break;
-		}
-		case "call": {
-			if (!gameInProgress) {
-				noGameInProgressMsg(channel, sender);
-				break;
-			}
-
-			if (!turnCheck(sender)) {
-				break;
-			}
-
-			if (call(sender))
-				nextTurn();
-
-			break;
-		}
-		case "check": {
-			if (!gameInProgress) {
-				noGameInProgressMsg(channel, sender);
-				break;
-			}
-
-			if (!turnCheck(sender)) {
-				break;
-			}
-
-			if (check(sender))
-				nextTurn();
-
-			break;
-		}
-		case "raise": {
-			if (!gameInProgress) {
-				noGameInProgressMsg(channel, sender);
-				break;
-			}
-
-			if (!turnCheck(sender)) {
-				break;
-			}
-
-			if (split.length == 1) {
-				sendReply(channel, sender, "Specify an amount to raise by.");
-				break;
-			}
-
-			int newRaise;
-
-			try {
-				newRaise = Integer.parseInt(split[1]);
-			} catch (NumberFormatException nfe) {
-				sendReply(channel, sender, "Malformed number: " + split[1]
-						+ ".");
-				break;
-			}
-
-			if (newRaise <= 0) {
-				sendReply(channel, sender,
-						"Can only raise by a positive amount.");
-				break;
-			}
-
-			if (raise(sender, newRaise))
-				nextTurn();
-
-			break;
-		}
-		case "allin": {
-			if (!gameInProgress) {
-				noGameInProgressMsg(channel, sender);
-				break;
-			}
-
-			if (!turnCheck(sender)) {
-				break;
-			}
-
-			if (allIn(sender))
-				nextTurn();
-
-			break;
-		}
-		case "fold": {
-			if (!gameInProgress) {
-				noGameInProgressMsg(channel, sender);
-				break;
-			}
-
-			if (!turnCheck(sender)) {
-				break;
-			}
-
-			if (fold(sender))
-				nextTurn();
-
-			break;
+			return;
 		}
-		case "cashout": {
-			if (!gameInProgress) {
-				noGameInProgressMsg(channel, sender);
-				break;
-			}
-
-			if (!turnCheck(sender)) {
-				break;
-			}
 
-			if (cashout(sender))
-				nextTurn();
+		// everything else concerns the channel's game
+		final Command<Table> tableCommand = Table.COMMANDS.match(message);
 
-			break;
-		}
-		case "help": {
-			sendHelp(sender, split.length > 1 ? split[1] : null);
-			break;
-		}
-		}
+		if (tableCommand != null
+				&& checkAdmin(tableCommand, channel, sender, hostname))
+			tables.dispatch(channel, sender, tableCommand,
+					CommandRegistry.arguments(message));
 	}
 
 	@Override
 	protected void onPrivateMessage(String sender, String login,
 			String hostname, String message) {
 
-		if (message.isEmpty() || message.charAt(0) != Constants.CMD_PREFIX)
-			return;
+		final Command<String> command = privateCommands.match(message);
 
-		String[] split = SPACES.split(message, 2);
-
-		switch (split[0].substring(1)) {
-		case "auth":
-		case "authenticate":
-			if (Constants.ADMIN_KEY.equals(split[1])) {
-				addAdmin(hostname);
-				sendMessage(sender,
-						"You have successfully authenticated (hostname: "
-								+ hostname + ").");
-			} else {
-				sendMessage(sender, "Incorrect key.");
-			}
-			break;
-		}
+		if (command != null && checkAdmin(command, sender, sender, hostname))
+			command.handle(hostname, sender, sender,
+					CommandRegistry.arguments(message));
 	}
 
-	private boolean call(String sender) {
-		final Player player = players.get(turnIndex);
-		final int owed = amountOwed(player);
-		final int money = player.getMoney();
-		int bet;
-
-		if (money >= owed) {
-			sendReply(gameChannel, sender, "You called! (" + moneyString(owed)
-					+ ")");
-			bet = owed;
-		} else {
-			sendReply(gameChannel, sender, "You called! (" + moneyString(money)
-					+ " of " + moneyString(owed) + ")");
-			bet = money;
+	/*
+	 * whether the sender may issue the command, replying to them if not
+	 */
+	private boolean checkAdmin(Command<?> command, String channel,
+			String sender, String hostname) {
+		if (command.isAdminOnly() && !isAdmin(hostname)) {
+			sendReply(channel, sender, "Only an admin can use "
+					+ command.getName() + ".");
+			return false;
 		}
 
-		pot += player.bet(bet);
 		return true;
 	}
 
-	private boolean check(String sender) {
-		final Player player = players.get(turnIndex);
-
-		if (player.getAmountPayed() >= raise) {
-			sendReply(gameChannel, sender, "You checked!");
-			return true;
+	private void authenticate(String hostname, String sender, String[] args) {
+		if (args.length > 0
+				&& Constants.getConfig().getAdminKey().equals(args[0])) {
+			addAdmin(hostname);
+			send(sender, "You have successfully authenticated (hostname: "
+					+ hostname + ").");
 		} else {
-			sendReply(gameChannel, sender,
-					"You must at least call last raise ("
-							+ moneyString(amountOwed(player)) + ").");
-			return false;
+			send(sender, "Incorrect key.");
 		}
 	}
 
-	private boolean raise(String sender, int newRaise) {
-		final Player player = players.get(turnIndex);
-
-		final int totalBet = amountOwed(player) + newRaise;
-		final int money = player.getMoney();
-
-		if (totalBet <= money) {
-			pot += player.bet(totalBet);
-			raise += newRaise;
-
-			sendReply(gameChannel, sender, "You raised "
-					+ moneyString(newRaise) + ".");
+	@Override
+	protected void onInvite(String targetNick, String sourceNick,
+			String sourceLogin, String sourceHostname, String channel) {
 
-			lastIndex = lastUnfolded(turnIndex - 1);
-			return true;
-		} else {
-			sendReply(gameChannel, sender,
-					"You don't have enough money. You need "
-							+ moneyString(totalBet) + " but only have "
-							+ moneyString(money) + ".");
-			return false;
-		}
+		// admins can invite the bot to host games in further channels
+		if (isAdmin(sourceHostname))
+			joinChannel(channel);
 	}
 
-	private boolean allIn(String sender) {
-		final Player player = players.get(turnIndex);
-		final int owed = amountOwed(player);
-		final int money = player.getMoney();
-
-		sendReply(gameChannel, sender, "Going all in...");
+	@Override
+	protected void onPart(String channel, String sender, String login,
+			String hostname) {
 
-		if (money > owed) {
-			return raise(sender, money - owed);
-		} else {
-			return call(sender);
-		}
+		if (sender.equals(getNick()))
+			tables.discard(channel);
 	}
 
-	private boolean fold(String sender) {
-		final Player player = players.get(turnIndex);
-		player.fold();
-		sendReply(gameChannel, sender, "You folded!");
+	@Override
+	protected void onKick(String channel, String kickerNick,
+			String kickerLogin, String kickerHostname, String recipientNick,
+			String reason) {
 
-		return !checkForWinByFold();
+		if (recipientNick.equals(getNick()))
+			tables.discard(channel);
 	}
 
-	private boolean cashout(String sender) {
-		final Player player = players.get(turnIndex);
-		player.cashout();
-		sendReply(gameChannel, sender, "You cashed out with "
-				+ moneyString(player.getMoney()) + "!");
+	protected void send(String target, String message) {
+		send(target, message, Priority.NORMAL);
+	}
 
-		return !checkForWinByFold();
+	/*
+	 * all of the bot's output goes through this method
+	 */
+	protected void send(String target, String message, Priority priority) {
+		outbound.submit(target, message, priority);
 	}
 
 	protected void sendReply(String target, String name, String message) {
-		sendMessage(target, Colors.BOLD + name + Colors.NORMAL + ": " + message);
+		sendReply(target, name, message, Priority.NORMAL);
 	}
 
-	private boolean registerPlayer(String name) {
-		if (gameInProgress)
-			return false;
-
-		return players.add(new Player(name));
+	protected void sendReply(String target, String name, String message,
+			Priority priority) {
+		send(target, Colors.BOLD + name + Colors.NORMAL + ": " + message,
+				priority);
 	}
 
-	private void noGameInProgressMsg(String channel, String sender) {
-		sendReply(channel, sender, "No game is currently in progress.");
+	Bankroll getBankroll() {
+		return bankroll;
 	}
 
-	private void deal() {
-		for (Player player : players) {
-			Card card1 = deck.poll();
-			Card card2 = deck.poll();
-			sendMessage(player.getName(), "Your cards: " + card1 + ", " + card2);
-			player.receiveCards(card1, card2);
-		}
+	HandHistoryWriter getHistory() {
+		return history;
 	}
 
-	private void setupHand() {
-		for (Player player : players) {
-			if (player.isBroke())
-				player.cashout();
-		}
-
-		final Iterator<Player> playerIter = players.iterator();
-		int index = 0;
-
-		while (playerIter.hasNext()) {
-			Player player = playerIter.next();
-
-			if (!player.isActive()) {
-				playerIter.remove();
-
-				if (index < startPlayer)
-					startPlayer = wrappedDecrement(startPlayer);
-			}
-
-			index++;
-		}
-
-		if (players.size() < 2) {
-			sendMessage(gameChannel,
-					"Not enough players left to continue: game ended.");
-			stopGame(null);
-			return;
-		}
-
-		sendMessage(gameChannel, "Starting new hand...");
-
-		for (Player player : players)
-			player.newHand();
-
-		List<Card> rawDeck = Arrays.asList(Card.getDeck());
-		Collections.shuffle(rawDeck);
-		deck.clear();
-		deck.addAll(rawDeck);
-		table.clear();
-		turnIndex = startPlayer;
-		lastIndex = lastUnfolded(startPlayer - 1);
-
-		startPlayer = wrappedIncrement(startPlayer);
-
-		pot = 0;
-		raise = Constants.ANTE;
-
-		sendMessage(
-				gameChannel,
-				players.stream()
-						.map(p -> "[" + Colors.BOLD + p.getName()
-								+ Colors.NORMAL + " - "
-								+ moneyString(p.getMoney()) + "]")
-						.collect(Collectors.joining(" ")));
-
-		deal();
-		collectAntes();
-		sendStatus(players.get(turnIndex).getName());
+	Checkpoints getCheckpoints() {
+		return checkpoints;
 	}
 
-	private void nextTurn() {
-		Player player = players.get(turnIndex);
-
-		if (turnIndex == lastIndex
-				&& (player.isFolded() || player.isBroke() || amountOwed(player) == 0)) {
-
-			if (table.size() == 5) {
-				/*
-				 * winner selection
-				 */
-
-				List<Hand> hands = new ArrayList<>(players.size());
-
-				for (Player p : players) {
-					Card[] playerCards = table.toArray(new Card[7]);
-					playerCards[5] = p.getCard1();
-					playerCards[6] = p.getCard2();
-					hands.add(Hand.getBestHand(p, playerCards));
-				}
-
-				Collections.sort(hands, Collections.reverseOrder());
-
-				Iterator<Hand> orderedHands = hands.iterator();
-
-				Hand winningHand;
-				Player winner1;
-
-				do {
-					winningHand = orderedHands.next();
-					winner1 = winningHand.getPlayer();
-				} while (winner1.isFolded());
-
-				List<Hand> winners = new ArrayList<>(players.size());
-				winners.add(winningHand);
-
-				while (orderedHands.hasNext()) {
-					Hand next = orderedHands.next();
-
-					if (winningHand.compareTo(next) != 0)
-						break;
-
-					if (!next.getPlayer().isFolded())
-						winners.add(next);
-				}
-
-				sendMessage(
-						gameChannel,
-						Colors.BOLD
-								+ "Reveal: "
-								+ Colors.NORMAL
-								+ players
-										.stream()
-										.filter(p -> !p.isFolded())
-										.map(p -> "[" + Colors.BOLD
-												+ p.getName() + Colors.NORMAL
-												+ " - " + p.getCard1() + ", "
-												+ p.getCard2() + "]")
-										.collect(Collectors.joining(" ")));
-
-				int numWinners = winners.size();
-
-				if (numWinners == 1) {
-					sendMessage(gameChannel, Colors.BOLD + winner1.getName()
-							+ " wins" + Colors.NORMAL + " with the hand "
-							+ winningHand + "!");
-
-					winner1.win(pot);
-				} else {
-					sendMessage(
-							gameChannel,
-							"Split pot between "
-									+ winners.stream().map(Hand::getPlayer)
-											.map(Player::getName)
-											.collect(Collectors.joining(", "))
-									+ " (each with a "
-									+ winningHand.getHandType() + ").");
-
-					int winnings = pot / numWinners;
-					for (Hand hand : winners) {
-						hand.getPlayer().win(winnings);
-					}
-				}
-
-				setupHand();
-				return;
-			} else {
-				turnIndex = -1;
-				lastIndex = lastUnfolded(players.size() - 1);
-				draw();
-			}
-		}
-
-		Player nextPlayer;
-
-		do {
-			turnIndex = wrappedIncrement(turnIndex);
-		} while ((nextPlayer = players.get(turnIndex)).isFolded());
-
-		sendStatus(nextPlayer.getName());
+	public Metrics getMetrics() {
+		return metrics;
 	}
 
-	private void sendStatus(String turn) {
-		final String tableStr = table.isEmpty() ? "no cards" : table.stream()
-				.map(Card::toString).collect(Collectors.joining(", "));
-
-		sendMessage(gameChannel, "On the table: " + tableStr
-				+ " || In the pot: " + moneyString(pot));
-
-		sendMessage(gameChannel, turn + "'s turn!");
+	TimingWheel getTimers() {
+		return timers;
 	}
 
-	private void collectAntes() {
-		sendMessage(gameChannel, "Collecting a " + moneyString(Constants.ANTE)
-				+ " ante from each player...");
-
-		for (Player player : players) {
-			pot += player.bet(Constants.ANTE);
-		}
-	}
-
-	private void draw() {
-		if (table.isEmpty()) {
-			table.add(deck.poll());
-			table.add(deck.poll());
-			table.add(deck.poll());
-		} else if (table.size() < 5) {
-			table.add(deck.poll());
-		}
-	}
-
-	private void startGame() {
-		sendMessage(
-				gameChannel,
-				"Starting game with: "
-						+ players.stream().map(Player::getName)
-								.collect(Collectors.joining(", ")) + ".");
-
-		gameInProgress = true;
-		startPlayer = 0;
-		setupHand();
+	ComputerPlayers getComputerPlayers() {
+		return computerPlayers;
 	}
 
-	private void stopGame(String sender) {
-		gameInProgress = false;
-		players.clear();
-		deck.clear();
-		table.clear();
-
-		if (sender != null)
-			sendReply(gameChannel, sender, "Game stopped.");
-	}
-
-	private boolean turnCheck(String sender) {
-		if (!players.get(turnIndex).getName().equals(sender)) {
-			sendReply(gameChannel, sender, "It's not your turn!");
-			return false;
-		}
-		return true;
-	}
-
-	private boolean checkForWinByFold() {
-		Player last = null;
-		int numPlayersLeft = players.size();
-		for (Player player : players) {
-			if (player.isFolded())
-				numPlayersLeft--;
-			else
-				last = player;
-		}
-
-		if (numPlayersLeft == 1) {
-			sendMessage(gameChannel, last.getName()
-					+ " wins (all other players folded)!");
-
-			last.win(pot);
-			setupHand();
-			return true;
-		}
-
-		return false;
-	}
-
-	private int amountOwed(Player player) {
-		return raise - player.getAmountPayed();
+	public void joinGameChannel(String key) {
+		if (key == null)
+			joinChannel(gameChannel);
+		else
+			joinChannel(gameChannel, key);
 	}
 
-	private void ensureNotAllFolded() {
-		for (Player player : players) {
-			if (!player.isFolded())
-				return;
-		}
-
-		throw new IllegalStateException("All players are folded.");
-	}
+	/*
+	 * Restores the games left checkpointed when the bot last stopped,
+	 * returning the channels they are played in. The games are resumed by
+	 * resumeGames, once the bot is back in those channels.
+	 */
+	public Set<String> restoreGames() {
+		final Set<String> channels = new LinkedHashSet<>();
 
-	private int lastUnfolded(int index) {
-		ensureNotAllFolded();
+		if (checkpoints == null)
+			return channels;
 
-		if (index < 0)
-			index = players.size() - 1;
+		for (CheckpointFile checkpoint : checkpoints.list()) {
+			final ByteBuffer state = checkpoint.read();
 
-		if (index >= players.size())
-			index = 0;
+			if (state == null) {
+				System.err.println("Discarding unreadable checkpoint "
+						+ checkpoint.getFile() + ".");
+				checkpoint.delete();
+				continue;
+			}
 
-		while (players.get(index).isFolded()) {
-			index = wrappedDecrement(index);
+			final String channel = Checkpoints.getString(state);
+			tables.restore(channel, state, checkpoint);
+			channels.add(channel);
 		}
-		return index;
-	}
-
-	private static String moneyString(int amount) {
-		return Colors.BOLD + Colors.DARK_GREEN + "$" + amount + Colors.NORMAL;
-	}
-
-	private int wrappedIncrement(int n) {
-		n++;
-		if (n >= players.size())
-			n = 0;
-		return n;
-	}
 
-	private int wrappedDecrement(int n) {
-		n--;
-		if (n < 0)
-			n = players.size() - 1;
-		return n;
+		return channels;
 	}
 
-	public void joinGameChannel(String key) {
-		if (key == null)
-			joinChannel(gameChannel);
-		else
-			joinChannel(gameChannel, key);
+	/*
+	 * Carries on with the games restored by restoreGames.
+	 */
+	public void resumeGames() {
+		tables.resume();
 	}
 
 	private void addAdmin(String hostname) {
@@ -757,71 +346,79 @@ public class PokerBot extends PircBot {
 		return admins.contains(hostname);
 	}
 
-	private static final Map<String, String> commandHelp = new LinkedHashMap<>();
-
-	private static final String ADMIN_NEEDED = " (" + Colors.RED
-			+ "admin command" + Colors.NORMAL + ")";
-
-	static {
-		commandHelp.put("ping", "Ping me for a reply.");
-
-		commandHelp.put("gamechan",
-				"Change the game channel to the specified channel."
-						+ ADMIN_NEEDED);
-
-		commandHelp.put("join",
-				"Add yourself to the players list for the next game.");
+	private void stats(String channel, String sender, String[] args) {
+		for (String line : metrics.summarize())
+			sendReply(channel, sender, line, Priority.LOW);
+	}
 
-		commandHelp.put("unjoin",
-				"Remove yourself from the players list for the next game.");
+	private void reload(String channel, String sender, String[] args) {
+		try {
+			final List<String> restart = reloadConfig();
 
-		commandHelp.put("joined",
-				"Display who is in the players list for the next game.");
+			sendReply(channel, sender, "Configuration reloaded."
+					+ (restart.isEmpty() ? "" : " Restart to apply changes to: "
+							+ String.join(", ", restart) + "."));
+		} catch (ConfigException ce) {
+			sendReply(channel, sender, "Configuration not reloaded: "
+					+ String.join(" ", ce.getErrors()));
+		} catch (IOException ioe) {
+			sendReply(channel, sender, "Could not read configuration file: "
+					+ ioe.getMessage());
+		}
+	}
 
-		commandHelp.put("clear", "Clear the players list for the next game."
-				+ ADMIN_NEEDED);
+	/*
+	 * Rereads the configuration file and puts it into effect, returning the
+	 * parameters changed in it that will only take effect on restart. Games
+	 * in progress pick up the new configuration from their next hands.
+	 */
+	public List<String> reloadConfig() throws IOException, ConfigException {
+		synchronized (reloadLock) {
+			final List<String> restart = Constants.reload();
+			final Config config = Constants.getConfig();
 
-		commandHelp.put("start", "Start the game." + ADMIN_NEEDED);
+			setVerbose(config.isVerbose());
+			tables.configChanged(config);
+			return restart;
+		}
+	}
 
-		commandHelp.put("stop", "Stop the game." + ADMIN_NEEDED);
+	/*
+	 * names of all channel commands, in the order they are listed in help
+	 */
+	private static List<String> commandNames() {
+		final List<String> names = new ArrayList<>();
 
-		commandHelp.put("call", "Match the current bet.");
+		for (Command<PokerBot> command : COMMANDS.getCommands())
+			names.add(command.getName());
 
-		commandHelp.put("check", "Raise nothing, pass on to the next player.");
+		for (Command<Table> command : Table.COMMANDS.getCommands())
+			names.add(command.getName());
 
-		commandHelp.put("raise", "Raise by the specified amount " + Colors.BOLD
-				+ "on top of" + Colors.NORMAL
-				+ " the last raise (which may have been 0).");
+		return names;
+	}
 
-		commandHelp
-				.put("fold",
-						"Discard your hand and forfeit. You can resume playing next hand.");
+	private void help(String channel, String sender, String[] args) {
+		if (args.length == 0) {
+			sendReply(channel, sender, "Commands: "
+					+ String.join(", ", commandNames())
+					+ ". Use 'help <command>' for additional details "
+					+ "regarding a specific command.");
+			return;
+		}
 
-		commandHelp.put("cashout",
-				"Quit the game, taking the fortunes you've won with you.");
+		Command<?> command = COMMANDS.get(args[0]);
 
-		commandHelp.put("help", "Display help information.");
-	}
+		if (command == null)
+			command = Table.COMMANDS.get(args[0]);
 
-	private void sendHelp(String name, String command) {
-		if (command == null) {
-			sendReply(
-					gameChannel,
-					name,
-					"Commands: "
-							+ commandHelp.keySet().stream()
-									.collect(Collectors.joining(", "))
-							+ ". Use 'help <command>' for additional details "
-							+ "regarding a specific command.");
+		if (command != null) {
+			sendReply(channel, sender, "[" + Colors.DARK_BLUE + args[0]
+					+ Colors.NORMAL + "] " + command.getHelp()
+					+ (command.isAdminOnly() ? ADMIN_NEEDED : ""), Priority.LOW);
 		} else {
-			String helpText = commandHelp.get(command);
-			if (helpText != null) {
-				sendReply(gameChannel, name, "[" + Colors.DARK_BLUE + command
-						+ Colors.NORMAL + "] " + helpText);
-			} else {
-				sendReply(gameChannel, name, command
-						+ " is an unrecognized command.");
-			}
+			sendReply(channel, sender, args[0] + " is an unrecognized command.",
+					Priority.LOW);
 		}
 	}
 }
@@ -0,0 +1,109 @@
+package me.ars.pokerbot;
+
+import java.util.SplittableRandom;
+
+/*
+ * Plays by the numbers: calls when its equity beats the pot odds it is being
+ * offered and folds otherwise, and raises when its equity is well above its
+ * fair share of the pot (one in however many players are left). How much it
+ * raises depends on the stack-to-pot ratio: with little left behind compared
+ * to the pot, it commits all of it; otherwise it bets in proportion to the pot
+ * and its equity.
+ *
+ * This is the strategy of the computer players added to games, which estimate
+ * their equity ahead of time (see ComputerPlayers) and pass it to the decide
+ * method taking it; the Strategy method estimates it on the spot.
+ */
+public class PotOddsStrategy implements Strategy {
+	private static final int DEFAULT_SAMPLES = 500;
+
+	/*
+	 * multiple of its fair share of equity above which a hand raises
+	 */
+	private static final double RAISE_SHARE = 1.5;
+
+	/*
+	 * stack-to-pot ratio at or below which a raising hand goes all in
+	 */
+	private static final double COMMIT_RATIO = 1.5;
+
+	private final int samples;
+	private final PreflopTable preflopTable;
+
+	public PotOddsStrategy(PreflopTable preflopTable) {
+		this(DEFAULT_SAMPLES, preflopTable);
+	}
+
+	/*
+	 * @param samples number of samples per equity estimate
+	 *
+	 * @param preflopTable table of preflop equities, or null to estimate them
+	 * too
+	 */
+	public PotOddsStrategy(int samples, PreflopTable preflopTable) {
+		this.samples = samples;
+		this.preflopTable = preflopTable;
+	}
+
+	@Override
+	public Decision decide(GameEngine game, Player player,
+			SplittableRandom random) {
+		final int opponents = game.getPlayersInHand() - 1;
+		final long hole = player.getHoleMask();
+		final long board = CardSet.of(game.getBoard());
+		final double preflop = preflopEquity(preflopTable, hole, board,
+				opponents);
+
+		return decide(game, player, !Double.isNaN(preflop) ? preflop
+				: EquityCalculator.estimate(hole, board, opponents, samples,
+						random).getEquity());
+	}
+
+	/*
+	 * the equity of the hand read from the preflop table, or NaN if there is
+	 * no table or the board has been dealt
+	 */
+	static double preflopEquity(PreflopTable preflopTable, long hole,
+			long board, int opponents) {
+		if (preflopTable == null || board != CardSet.EMPTY
+				|| opponents > PreflopTable.MAX_OPPONENTS)
+			return Double.NaN;
+
+		final Card[] cards = CardSet.toCards(hole);
+		return preflopTable.equity(PreflopTable.classOf(cards[0], cards[1]),
+				opponents);
+	}
+
+	/*
+	 * Chooses the action of the given player, whose turn it is, given their
+	 * equity against the other players left in the hand.
+	 */
+	public Decision decide(GameEngine game, Player player, double equity) {
+		final int owed = game.amountOwed(player);
+		final int pot = game.getPot();
+		final int opponents = game.getPlayersInHand() - 1;
+
+		// what it costs to see the hand through, against what there is to win
+		if (owed > 0 && equity < (double) owed / (pot + owed))
+			return Decision.FOLD;
+
+		final int behind = player.getMoney() - owed;
+
+		if (behind > 0 && equity > RAISE_SHARE / (opponents + 1)) {
+			if (behind <= COMMIT_RATIO * (pot + owed))
+				return Decision.ALL_IN;
+
+			final int raise = (int) Math.min(behind, Math.max(game.getAnte(),
+					equity * (pot + owed)));
+
+			return Decision.raise(raise);
+		}
+
+		return Decision.checkOrCall(owed);
+	}
+
+	@Override
+	public String getName() {
+		return "pot odds";
+	}
+}
@@ -0,0 +1,151 @@
+package me.ars.pokerbot;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/*
+ * Precomputed preflop equities of the 169 classes of starting hands, read
+ * directly out of a memory-mapped file written by PreflopTableGenerator.
+ *
+ * A class is identified by its position in the usual 13x13 grid: the cell
+ * (row, column) has index 13 * row + column, where pairs lie on the diagonal,
+ * suited hands are at (higher rank, lower rank) and offsuit hands at (lower
+ * rank, higher rank), with ranks indexed 0 (deuce) to 12 (ace).
+ *
+ * File layout (big-endian):
+ *
+ * int magic, int version, int number of classes, int maximum opponents
+ *
+ * char[maximum opponents][classes]: equity against that many random hands
+ *
+ * char[classes][classes]: equity of the row class against the column class
+ *
+ * where each equity is stored as an unsigned 16-bit fraction of 65535.
+ */
+public final class PreflopTable {
+	public static final int CLASSES = 169;
+	public static final int MAX_OPPONENTS = 14;
+
+	static final int MAGIC = 0x50464551; // "PFEQ"
+	static final int VERSION = 1;
+
+	static final int HEADER_SIZE = 16;
+	static final int FILE_SIZE = HEADER_SIZE + 2 * CLASSES
+			* (MAX_OPPONENTS + CLASSES);
+
+	private static final double SCALE = 65535.0;
+
+	private static final String RANK_CHARS = "23456789TJQKA";
+
+	private final ByteBuffer data;
+
+	private PreflopTable(ByteBuffer data) {
+		this.data = data;
+	}
+
+	/*
+	 * Maps the given table file; its contents are only paged in as lookups
+	 * touch them.
+	 */
+	public static PreflopTable map(File file) throws IOException {
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+				FileChannel channel = raf.getChannel()) {
+
+			if (channel.size() != FILE_SIZE)
+				throw new IOException("Preflop table " + file
+						+ " has the wrong size.");
+
+			final MappedByteBuffer data = channel.map(
+					FileChannel.MapMode.READ_ONLY, 0, FILE_SIZE);
+
+			if (data.getInt(0) != MAGIC || data.getInt(4) != VERSION
+					|| data.getInt(8) != CLASSES
+					|| data.getInt(12) != MAX_OPPONENTS)
+				throw new IOException(file + " is not a valid preflop table.");
+
+			return new PreflopTable(data);
+		}
+	}
+
+	/*
+	 * The table named in the configuration, mapped on first use, or null if it
+	 * is not available.
+	 */
+	public static PreflopTable getDefault() {
+		return DefaultHolder.TABLE;
+	}
+
+	private static final class DefaultHolder {
+		static final PreflopTable TABLE = loadDefault();
+
+		private static PreflopTable loadDefault() {
+			final File file = new File(Constants.PREFLOP_TABLE);
+
+			if (!file.exists())
+				return null;
+
+			try {
+				return map(file);
+			} catch (IOException ioe) {
+				System.err.println("Could not load preflop table: "
+						+ ioe.getMessage());
+				return null;
+			}
+		}
+	}
+
+	/*
+	 * equity of the given class against a number of random hands
+	 */
+	public double equity(int handClass, int opponents) {
+		if (opponents < 1 || opponents > MAX_OPPONENTS)
+			throw new IllegalArgumentException("Invalid number of opponents: "
+					+ opponents);
+
+		return data.getChar(HEADER_SIZE + 2 * ((opponents - 1) * CLASSES
+				+ handClass))
+				/ SCALE;
+	}
+
+	/*
+	 * equity of the given class against another, averaged over all
+	 * non-conflicting combinations of suits
+	 */
+	public double matchup(int handClass, int otherClass) {
+		return data.getChar(HEADER_SIZE + 2 * (MAX_OPPONENTS * CLASSES
+				+ handClass * CLASSES + otherClass))
+				/ SCALE;
+	}
+
+	public static int classOf(Card card1, Card card2) {
+		final int rank1 = card1.getValue() - 2;
+		final int rank2 = card2.getValue() - 2;
+		final int high = Math.max(rank1, rank2);
+		final int low = Math.min(rank1, rank2);
+
+		if (card1.getSuit() == card2.getSuit())
+			return 13 * high + low;
+
+		return 13 * low + high;
+	}
+
+	public static String className(int handClass) {
+		final int row = handClass / 13;
+		final int column = handClass % 13;
+
+		if (row == column)
+			return new String(new char[] { RANK_CHARS.charAt(row),
+					RANK_CHARS.charAt(row) });
+
+		if (row > column)
+			return new String(new char[] { RANK_CHARS.charAt(row),
+					RANK_CHARS.charAt(column), 's' });
+
+		return new String(new char[] { RANK_CHARS.charAt(column),
+				RANK_CHARS.charAt(row), 'o' });
+	}
+}
@@ -0,0 +1,193 @@
+package me.ars.pokerbot;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/*
+ * Offline tool computing the file read by PreflopTable.
+ *
+ * Usage: PreflopTableGenerator [output file] [precision] [samples per matchup]
+ *
+ * Equities against random hands are computed with EquityCalculator to the
+ * given confidence half-width; class-versus-class equities are sampled over
+ * random suit assignments and boards. All work is spread over the common
+ * fork/join pool.
+ */
+public class PreflopTableGenerator {
+	private static final String DEFAULT_OUTPUT = "preflop.dat";
+	private static final double DEFAULT_PRECISION = 0.001;
+	private static final int DEFAULT_MATCHUP_SAMPLES = 20000;
+
+	private static final long SEED = 0x5EED5EEDL;
+
+	/*
+	 * every concrete pair of hole cards belonging to each class
+	 */
+	private static final long[][] COMBOS = new long[PreflopTable.CLASSES][];
+
+	static {
+		final int[] counts = new int[PreflopTable.CLASSES];
+		final Card[] deck = Card.getDeck();
+
+		for (int i = 0; i < PreflopTable.CLASSES; i++)
+			COMBOS[i] = new long[i / 13 == i % 13 ? 6 : (i / 13 > i % 13) ? 4
+					: 12];
+
+		for (int i = 0; i < deck.length; i++) {
+			for (int j = i + 1; j < deck.length; j++) {
+				final int handClass = PreflopTable.classOf(deck[i], deck[j]);
+				COMBOS[handClass][counts[handClass]++] = deck[i].getMask()
+						| deck[j].getMask();
+			}
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		final String output = args.length > 0 ? args[0] : DEFAULT_OUTPUT;
+		final double precision = args.length > 1 ? Double
+				.parseDouble(args[1]) : DEFAULT_PRECISION;
+		final int matchupSamples = args.length > 2 ? Integer
+				.parseInt(args[2]) : DEFAULT_MATCHUP_SAMPLES;
+
+		final ForkJoinPool pool = ForkJoinPool.commonPool();
+		final EquityCalculator calculator = new EquityCalculator(pool,
+				precision);
+		final long start = System.nanoTime();
+
+		final char[][] versusRandom = new char[PreflopTable.MAX_OPPONENTS][PreflopTable.CLASSES];
+
+		for (int opponents = 1; opponents <= PreflopTable.MAX_OPPONENTS; opponents++) {
+			for (int c = 0; c < PreflopTable.CLASSES; c++) {
+				final Equity equity = calculator.calculate(COMBOS[c][0],
+						CardSet.EMPTY, opponents, Long.MAX_VALUE);
+				versusRandom[opponents - 1][c] = toFixed(equity.getEquity());
+			}
+
+			System.out.println("Computed equities against " + opponents
+					+ " opponent(s).");
+		}
+
+		final char[][] matchups = new char[PreflopTable.CLASSES][PreflopTable.CLASSES];
+		pool.invoke(new MatchupTask(matchups, matchupSamples, 0,
+				PreflopTable.CLASSES));
+		System.out.println("Computed class matchups.");
+
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(output)))) {
+			out.writeInt(PreflopTable.MAGIC);
+			out.writeInt(PreflopTable.VERSION);
+			out.writeInt(PreflopTable.CLASSES);
+			out.writeInt(PreflopTable.MAX_OPPONENTS);
+
+			for (char[] row : versusRandom) {
+				for (char equity : row)
+					out.writeChar(equity);
+			}
+
+			for (char[] row : matchups) {
+				for (char equity : row)
+					out.writeChar(equity);
+			}
+		}
+
+		System.out.printf("Wrote %s in %.1f s.%n", output,
+				(System.nanoTime() - start) / 1e9);
+	}
+
+	private static char toFixed(double equity) {
+		return (char) Math.round(equity * 65535);
+	}
+
+	/*
+	 * computes the rows [from, to) of the upper triangle of the matchup table,
+	 * along with their mirrored entries
+	 */
+	private static final class MatchupTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final char[][] matchups;
+		private final int samples;
+		private final int from;
+		private final int to;
+
+		MatchupTask(char[][] matchups, int samples, int from, int to) {
+			this.matchups = matchups;
+			this.samples = samples;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > 1) {
+				final int mid = (from + to) >>> 1;
+				invokeAll(new MatchupTask(matchups, samples, from, mid),
+						new MatchupTask(matchups, samples, mid, to));
+				return;
+			}
+
+			final int c = from;
+			final SplittableRandom random = new SplittableRandom(SEED + c);
+			final int[] deck = new int[52];
+
+			matchups[c][c] = toFixed(0.5);
+
+			for (int other = c + 1; other < PreflopTable.CLASSES; other++) {
+				double sum = 0;
+
+				for (int n = 0; n < samples; n++) {
+					final long hole = COMBOS[c][random.nextInt(COMBOS[c].length)];
+					long otherHole;
+
+					do {
+						otherHole = COMBOS[other][random
+								.nextInt(COMBOS[other].length)];
+					} while (CardSet.intersects(hole, otherHole));
+
+					final long board = randomBoard(hole | otherHole, deck,
+							random);
+					final int strength = HandEvaluator.evaluate(hole | board);
+					final int otherStrength = HandEvaluator
+							.evaluate(otherHole | board);
+
+					if (strength > otherStrength)
+						sum += 1;
+					else if (strength == otherStrength)
+						sum += 0.5;
+				}
+
+				final double equity = sum / samples;
+				matchups[c][other] = toFixed(equity);
+				matchups[other][c] = toFixed(1 - equity);
+			}
+		}
+
+		private static long randomBoard(long dead, int[] deck,
+				SplittableRandom random) {
+			for (int i = 0; i < deck.length; i++)
+				deck[i] = i;
+
+			long board = CardSet.EMPTY;
+			int drawn = 0;
+
+			for (int i = 0; drawn < 5; i++) {
+				final int j = i + random.nextInt(deck.length - i);
+				final int card = deck[j];
+				deck[j] = deck[i];
+				deck[i] = card;
+
+				if (!CardSet.contains(dead, card)) {
+					board |= 1L << card;
+					drawn++;
+				}
+			}
+
+			return board;
+		}
+	}
+}
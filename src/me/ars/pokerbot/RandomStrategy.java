@@ -0,0 +1,36 @@
+package me.ars.pokerbot;
+
+import java.util.SplittableRandom;
+
+/*
+ * Folds, checks or calls, or raises up to the size of the pot, with equal
+ * probability.
+ */
+public class RandomStrategy implements Strategy {
+	@Override
+	public Decision decide(GameEngine game, Player player,
+			SplittableRandom random) {
+		final int owed = game.amountOwed(player);
+		final int maxRaise = Math.min(player.getMoney() - owed, game.getPot());
+
+		switch (random.nextInt(3)) {
+		case 0:
+			if (owed > 0)
+				return Decision.FOLD;
+
+			break;
+		case 1:
+			if (maxRaise > 0)
+				return Decision.raise(1 + random.nextInt(maxRaise));
+
+			break;
+		}
+
+		return Decision.checkOrCall(owed);
+	}
+
+	@Override
+	public String getName() {
+		return "random";
+	}
+}
@@ -0,0 +1,178 @@
+package me.ars.pokerbot;
+
+import java.util.Arrays;
+
+/*
+ * Everything that happened in one hand, as written to and read back from the
+ * hand history. Instances are mutable and meant to be reused: the recorder
+ * fills them in as a hand is played, and the reader decodes into them.
+ *
+ * Players are referred to by seat, their index in the hand's list of players.
+ * Cards are stored as their indices (see Card.getIndex).
+ */
+public final class RecordedHand {
+	/*
+	 * action types; STREET marks the dealing of more board cards
+	 */
+	public static final byte CALL = 0;
+	public static final byte CHECK = 1;
+	public static final byte RAISE = 2;
+	public static final byte FOLD = 3;
+	public static final byte CASHOUT = 4;
+	public static final byte STREET = 5;
+
+	private static final int INITIAL_ACTIONS = 32;
+
+	/*
+	 * most hole cards dealt to a player, in Omaha
+	 */
+	private static final int MAX_HOLE_CARDS = 4;
+
+	/*
+	 * when the hand started, in milliseconds since the epoch
+	 */
+	long timestamp;
+	String table;
+
+	/*
+	 * the game dealt, which sets how many hole cards each player has
+	 */
+	Variant variant = Variant.HOLDEM;
+
+	int players;
+	final String[] names = new String[GameEngine.MAX_PLAYERS];
+	final int[] stacks = new int[GameEngine.MAX_PLAYERS];
+	final int[] holeCards = new int[MAX_HOLE_CARDS * GameEngine.MAX_PLAYERS];
+	int firstToAct;
+
+	int boardSize;
+	final int[] board = new int[5];
+
+	int actions;
+	byte[] actionSeats = new byte[INITIAL_ACTIONS];
+	byte[] actionTypes = new byte[INITIAL_ACTIONS];
+
+	/*
+	 * amount put in for calls and raised by for raises, 0 otherwise
+	 */
+	int[] actionAmounts = new int[INITIAL_ACTIONS];
+
+	boolean showdown;
+	int pot;
+	int winners;
+	final int[] winnerSeats = new int[GameEngine.MAX_PLAYERS];
+
+	void clear() {
+		variant = Variant.HOLDEM;
+		players = 0;
+		firstToAct = -1;
+		boardSize = 0;
+		actions = 0;
+		showdown = false;
+		pot = 0;
+		winners = 0;
+	}
+
+	void addAction(int seat, byte type, int amount) {
+		if (actions == actionTypes.length) {
+			actionSeats = Arrays.copyOf(actionSeats, 2 * actions);
+			actionTypes = Arrays.copyOf(actionTypes, 2 * actions);
+			actionAmounts = Arrays.copyOf(actionAmounts, 2 * actions);
+		}
+
+		actionSeats[actions] = (byte) seat;
+		actionTypes[actions] = type;
+		actionAmounts[actions] = amount;
+		actions++;
+	}
+
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	public String getTable() {
+		return table;
+	}
+
+	public Variant getVariant() {
+		return variant;
+	}
+
+	public int getPlayerCount() {
+		return players;
+	}
+
+	public String getName(int seat) {
+		return names[seat];
+	}
+
+	/*
+	 * the player's money at the start of the hand, before the ante
+	 */
+	public int getStack(int seat) {
+		return stacks[seat];
+	}
+
+	/*
+	 * number of hole cards each player was dealt
+	 */
+	public int getHoleCardCount() {
+		return variant.getHoleCards();
+	}
+
+	/*
+	 * index of the given one of the player's hole cards, from 0 to
+	 * getHoleCardCount() - 1
+	 */
+	public int getHoleCard(int seat, int which) {
+		return holeCards[variant.getHoleCards() * seat + which];
+	}
+
+	public int getFirstToAct() {
+		return firstToAct;
+	}
+
+	public int getBoardSize() {
+		return boardSize;
+	}
+
+	public int getBoardCard(int i) {
+		return board[i];
+	}
+
+	public int getActionCount() {
+		return actions;
+	}
+
+	public int getActionSeat(int i) {
+		return actionSeats[i];
+	}
+
+	public byte getActionType(int i) {
+		return actionTypes[i];
+	}
+
+	public int getActionAmount(int i) {
+		return actionAmounts[i];
+	}
+
+	/*
+	 * whether the hand was decided at showdown, rather than by everyone else
+	 * folding
+	 */
+	public boolean isShowdown() {
+		return showdown;
+	}
+
+	public int getPot() {
+		return pot;
+	}
+
+	public int getWinnerCount() {
+		return winners;
+	}
+
+	public int getWinnerSeat(int i) {
+		return winnerSeats[i];
+	}
+}
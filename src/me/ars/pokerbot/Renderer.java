@@ -0,0 +1,208 @@
+package me.ars.pokerbot;
+
+import java.util.List;
+
+import org.jibble.pircbot.Colors;
+
+/*
+ * Renders the messages the bot sends about a game. Everything constant in a
+ * message (its wording with the formatting codes around it, and the text of
+ * every card and hand type) is rendered once up front, so that rendering a
+ * message only copies those pieces and the few numbers and names that vary
+ * into a reused buffer.
+ *
+ * Messages are rendered either whole, by the methods named after them, or
+ * piece by piece, starting with begin and ending with toString.
+ *
+ * Not thread-safe: a renderer belongs to a game or table, and is confined to
+ * its mailbox.
+ */
+public final class Renderer {
+	private static final String MONEY_START = Colors.BOLD + Colors.DARK_GREEN
+			+ "$";
+	private static final String MONEY_END = Colors.NORMAL;
+
+	private static final String NAME_START = Colors.BOLD;
+	private static final String NAME_END = Colors.NORMAL;
+
+	private static final String CARD_SEPARATOR = ", ";
+	private static final String NO_CARDS = "no cards";
+
+	private static final String YOUR_CARDS = "Your cards: ";
+	private static final String STARTING_GAME = "Starting game with: ";
+	private static final String BOARD = "On the table: ";
+	private static final String POT = " || In the pot: ";
+	private static final String REVEAL = Colors.BOLD + "Reveal: "
+			+ Colors.NORMAL;
+	private static final String WINS = " wins" + Colors.NORMAL
+			+ " with the hand ";
+	private static final String SPLIT_POT = "Split pot between ";
+	private static final String EACH_WITH = " (each with a ";
+
+	private final StringBuilder sb = new StringBuilder(512);
+
+	/*
+	 * Starts a new message with the given text.
+	 */
+	public Renderer begin(String text) {
+		sb.setLength(0);
+		sb.append(text);
+		return this;
+	}
+
+	public Renderer text(String text) {
+		sb.append(text);
+		return this;
+	}
+
+	public Renderer text(char c) {
+		sb.append(c);
+		return this;
+	}
+
+	public Renderer number(int n) {
+		sb.append(n);
+		return this;
+	}
+
+	public Renderer money(int amount) {
+		sb.append(MONEY_START).append(amount).append(MONEY_END);
+		return this;
+	}
+
+	public Renderer name(Player player) {
+		sb.append(NAME_START).append(player.getName()).append(NAME_END);
+		return this;
+	}
+
+	public Renderer card(Card card) {
+		sb.append(card.toString());
+		return this;
+	}
+
+	/*
+	 * the cards, separated by commas, or "no cards" if there are none
+	 */
+	public Renderer cards(List<Card> cards) {
+		if (cards.isEmpty())
+			return text(NO_CARDS);
+
+		for (int i = 0; i < cards.size(); i++) {
+			if (i > 0)
+				sb.append(CARD_SEPARATOR);
+
+			sb.append(cards.get(i).toString());
+		}
+
+		return this;
+	}
+
+	/*
+	 * the hand's cards, followed by its type
+	 */
+	public Renderer hand(Hand hand) {
+		hand.appendTo(sb);
+		return this;
+	}
+
+	/*
+	 * the message rendered since begin
+	 */
+	@Override
+	public String toString() {
+		return sb.toString();
+	}
+
+	public String startingGame(List<Player> players) {
+		begin(STARTING_GAME);
+
+		for (int i = 0; i < players.size(); i++) {
+			if (i > 0)
+				sb.append(", ");
+
+			sb.append(players.get(i).getName());
+		}
+
+		return text('.').toString();
+	}
+
+	/*
+	 * each player's name and money
+	 */
+	public String stacks(List<Player> players) {
+		sb.setLength(0);
+
+		for (int i = 0; i < players.size(); i++) {
+			final Player p = players.get(i);
+
+			if (i > 0)
+				sb.append(' ');
+
+			sb.append('[');
+			name(p).text(" - ").money(p.getMoney());
+			sb.append(']');
+		}
+
+		return sb.toString();
+	}
+
+	public String dealt(List<Card> cards) {
+		return begin(YOUR_CARDS).cards(cards).toString();
+	}
+
+	/*
+	 * the cards on the table and the pot
+	 */
+	public String status(List<Card> board, int pot) {
+		return begin(BOARD).cards(board).text(POT).money(pot).toString();
+	}
+
+	/*
+	 * the cards of the players still in the hand
+	 */
+	public String reveal(List<Player> players) {
+		begin(REVEAL);
+		boolean first = true;
+
+		for (int i = 0; i < players.size(); i++) {
+			final Player p = players.get(i);
+
+			if (p.isFolded())
+				continue;
+
+			if (!first)
+				sb.append(' ');
+
+			sb.append('[');
+			name(p).text(" - ").cards(p.getCards());
+			sb.append(']');
+			first = false;
+		}
+
+		return sb.toString();
+	}
+
+	/*
+	 * who won the showdown, and with what
+	 */
+	public String result(List<Hand> winners) {
+		final Hand winningHand = winners.get(0);
+
+		if (winners.size() == 1) {
+			return begin(NAME_START).text(winningHand.getPlayer().getName())
+					.text(WINS).hand(winningHand).text('!').toString();
+		}
+
+		begin(SPLIT_POT);
+
+		for (int i = 0; i < winners.size(); i++) {
+			if (i > 0)
+				sb.append(", ");
+
+			sb.append(winners.get(i).getPlayer().getName());
+		}
+
+		return text(EACH_WITH).text(winningHand.getHandType().toString())
+				.text(").").toString();
+	}
+}
@@ -0,0 +1,301 @@
+package me.ars.pokerbot;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import me.ars.pokerbot.GameEngine.Action;
+
+/*
+ * Plays complete games between computer players, under the bot's rules, to
+ * compare strategies and tune the stakes.
+ *
+ * Usage: Simulator [hands] [players per table] [ante] [start money] [seed]
+ *
+ * The ante and starting money default to those in parameters.cfg. Tables are
+ * spread over the common fork/join pool, each with its own random stream split
+ * off the seed, so a run is reproducible regardless of scheduling. Every table
+ * plays games to completion (until one player has all the money), restarting
+ * with fresh stacks, until it has played its share of hands.
+ */
+public class Simulator {
+	private static final long DEFAULT_HANDS = 1000000;
+	private static final int DEFAULT_PLAYERS = 6;
+
+	private final Strategy[] strategies;
+	private final int playersPerTable;
+	private final int startMoney;
+	private final int ante;
+
+	public Simulator(Strategy[] strategies, int playersPerTable,
+			int startMoney, int ante) {
+		if (playersPerTable < GameEngine.MIN_PLAYERS
+				|| playersPerTable > GameEngine.MAX_PLAYERS)
+			throw new IllegalArgumentException("Invalid number of players: "
+					+ playersPerTable);
+
+		this.strategies = strategies;
+		this.playersPerTable = playersPerTable;
+		this.startMoney = startMoney;
+		this.ante = ante;
+	}
+
+	public static void main(String[] args) {
+		final long hands = args.length > 0 ? Long.parseLong(args[0])
+				: DEFAULT_HANDS;
+		final int players = args.length > 1 ? Integer.parseInt(args[1])
+				: DEFAULT_PLAYERS;
+		final int ante = args.length > 2 ? Integer.parseInt(args[2])
+				: Constants.getConfig().getAnte();
+		final int startMoney = args.length > 3 ? Integer.parseInt(args[3])
+				: Constants.getConfig().getStartMoney();
+		final long seed = args.length > 4 ? Long.parseLong(args[4]) : System
+				.nanoTime();
+
+		final PreflopTable preflopTable = PreflopTable.getDefault();
+		final Strategy[] strategies = {
+				new RandomStrategy(),
+				new CallingStationStrategy(),
+				new EquityThresholdStrategy(0.3, 0.6, preflopTable),
+				new EquityThresholdStrategy(0.2, 0.8, preflopTable),
+				new PotOddsStrategy(preflopTable) };
+
+		final Simulator simulator = new Simulator(strategies, players,
+				startMoney, ante);
+		final ForkJoinPool pool = ForkJoinPool.commonPool();
+
+		System.out.printf("Simulating %d hands at %d-player tables "
+				+ "(ante %d, start money %d, seed %d, %d threads)...%n", hands,
+				players, ante, startMoney, seed, pool.getParallelism());
+
+		final long start = System.nanoTime();
+		final Results results = simulator.run(pool, hands, seed);
+		final double seconds = (System.nanoTime() - start) / 1e9;
+
+		System.out.printf("%-20s %12s %12s %10s %10s%n", "strategy", "hands",
+				"chips/hand", "games", "bust rate");
+
+		for (int s = 0; s < strategies.length; s++) {
+			System.out.printf("%-20s %12d %12.3f %10d %9.1f%%%n",
+					strategies[s].getName(), results.hands[s],
+					results.getChipEv(s), results.games[s],
+					100 * results.getBustRate(s));
+		}
+
+		System.out.printf("%d hands in %.2f s (%.0f hands/s).%n",
+				results.totalHands, seconds, results.totalHands / seconds);
+	}
+
+	/*
+	 * Plays about the given number of hands, over enough tables to keep the
+	 * pool busy.
+	 */
+	public Results run(ForkJoinPool pool, long hands, long seed) {
+		final int tables = 4 * pool.getParallelism();
+		return pool.invoke(new SimulationTask(0, tables, Math.max(1, hands
+				/ tables), new SplittableRandom(seed)));
+	}
+
+	/*
+	 * Per-strategy totals, indexed like the simulator's strategies.
+	 */
+	public static final class Results {
+		/*
+		 * number of hands each strategy was dealt into
+		 */
+		final long[] hands;
+
+		/*
+		 * total chips won (or lost, if negative)
+		 */
+		final long[] chips;
+
+		/*
+		 * number of games each strategy sat in, and went broke in
+		 */
+		final long[] games;
+		final long[] busts;
+
+		long totalHands;
+
+		Results(int strategies) {
+			hands = new long[strategies];
+			chips = new long[strategies];
+			games = new long[strategies];
+			busts = new long[strategies];
+		}
+
+		void add(Results other) {
+			for (int s = 0; s < hands.length; s++) {
+				hands[s] += other.hands[s];
+				chips[s] += other.chips[s];
+				games[s] += other.games[s];
+				busts[s] += other.busts[s];
+			}
+
+			totalHands += other.totalHands;
+		}
+
+		public long getTotalHands() {
+			return totalHands;
+		}
+
+		/*
+		 * average chips won per hand dealt
+		 */
+		public double getChipEv(int strategy) {
+			return (double) chips[strategy] / hands[strategy];
+		}
+
+		/*
+		 * fraction of games ending with the strategy broke
+		 */
+		public double getBustRate(int strategy) {
+			return (double) busts[strategy] / games[strategy];
+		}
+	}
+
+	/*
+	 * plays the tables [from, to)
+	 */
+	private final class SimulationTask extends RecursiveTask<Results> {
+		private static final long serialVersionUID = 1L;
+
+		private final int from;
+		private final int to;
+		private final long handsPerTable;
+		private final SplittableRandom random;
+
+		SimulationTask(int from, int to, long handsPerTable,
+				SplittableRandom random) {
+			this.from = from;
+			this.to = to;
+			this.handsPerTable = handsPerTable;
+			this.random = random;
+		}
+
+		@Override
+		protected Results compute() {
+			if (to - from > 1) {
+				final int mid = (from + to) >>> 1;
+				final SimulationTask left = new SimulationTask(from, mid,
+						handsPerTable, random.split());
+				final SimulationTask right = new SimulationTask(mid, to,
+						handsPerTable, random);
+				invokeAll(left, right);
+
+				final Results results = left.join();
+				results.add(right.join());
+				return results;
+			}
+
+			return new TableRun(from, random).play(handsPerTable);
+		}
+	}
+
+	/*
+	 * a single simulated table
+	 */
+	private final class TableRun implements GameListener {
+		private final SplittableRandom random;
+		private final GameEngine engine;
+		private final Results results = new Results(strategies.length);
+
+		/*
+		 * the players of the current game, and the index of their strategies
+		 */
+		private final Player[] seats = new Player[playersPerTable];
+		private final int[] seatStrategies = new int[playersPerTable];
+
+		private long handsPlayed;
+
+		TableRun(int table, SplittableRandom random) {
+			this.random = random;
+			this.engine = new GameEngine(this, startMoney, ante,
+					random::nextInt);
+
+			// rotate the seating from one table to the next
+			for (int seat = 0; seat < playersPerTable; seat++)
+				seatStrategies[seat] = (table + seat) % strategies.length;
+		}
+
+		Results play(long hands) {
+			while (handsPlayed < hands) {
+				if (!engine.isGameInProgress()) {
+					if (seats[0] != null)
+						settle();
+
+					for (int seat = 0; seat < playersPerTable; seat++)
+						seats[seat] = engine.addPlayer("seat" + seat);
+
+					engine.startGame();
+					continue;
+				}
+
+				final Player player = engine.getCurrentPlayer();
+				final Decision decision = strategies[strategyOf(player)]
+						.decide(engine, player, random);
+
+				// fall back to calling when a check or raise isn't allowed
+				if (!engine.act(decision.getAction(), decision.getAmount()))
+					engine.act(Action.CALL);
+			}
+
+			settle();
+			results.totalHands = handsPlayed;
+			return results;
+		}
+
+		private int strategyOf(Player player) {
+			for (int seat = 0; seat < playersPerTable; seat++) {
+				if (seats[seat] == player)
+					return seatStrategies[seat];
+			}
+
+			throw new IllegalStateException("Unknown player: "
+					+ player.getName());
+		}
+
+		/*
+		 * records the outcome of the current game; a game still in progress is
+		 * between hands, where the only bets made are the antes of the players
+		 * still in it
+		 */
+		private void settle() {
+			final boolean inProgress = engine.isGameInProgress();
+
+			for (int seat = 0; seat < playersPerTable; seat++) {
+				final Player player = seats[seat];
+				final int s = seatStrategies[seat];
+				final int money = player.getMoney()
+						+ (inProgress && player.isActive() ? player
+								.getAmountPayed() : 0);
+
+				results.chips[s] += money - startMoney;
+				results.games[s]++;
+
+				if (money == 0)
+					results.busts[s]++;
+			}
+		}
+
+		@Override
+		public void onHandStarted() {
+			final List<Player> players = engine.getPlayers();
+
+			for (int i = 0; i < players.size(); i++)
+				results.hands[strategyOf(players.get(i))]++;
+		}
+
+		@Override
+		public void onWinByFold(Player winner, int pot) {
+			handsPlayed++;
+		}
+
+		@Override
+		public void onShowdown(List<Hand> winners, int share) {
+			handsPlayed++;
+		}
+	}
+}
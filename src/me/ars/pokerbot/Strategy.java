@@ -0,0 +1,22 @@
+package me.ars.pokerbot;
+
+import java.util.SplittableRandom;
+
+/*
+ * Decides the actions of a computer player.
+ */
+public interface Strategy {
+	/*
+	 * Chooses the action of the given player, whose turn it is in the given
+	 * game. Implementations must not act on the engine themselves.
+	 *
+	 * @param random generator to use for any randomness, so that results can
+	 * be reproduced
+	 */
+	Decision decide(GameEngine game, Player player, SplittableRandom random);
+
+	/*
+	 * short name used when reporting results
+	 */
+	String getName();
+}
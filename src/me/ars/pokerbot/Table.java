@@ -0,0 +1,743 @@
+package me.ars.pokerbot;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import me.ars.pokerbot.GameEngine.Action;
+import me.ars.pokerbot.OutboundScheduler.Priority;
+
+import org.jibble.pircbot.Colors;
+
+/*
+ * The games of one channel: adapts IRC commands to the actions of the games'
+ * engines, and seats the players waiting in the channel's lobby.
+ *
+ * Players join the waitlist of a stake, and are seated first come first served:
+ * in the free seats of games already being played at that stake, or at a new
+ * game once enough of them are waiting to fill one.
+ *
+ * All of a table's state is confined to its mailbox: commands are handed to
+ * the table through execute and are processed one at a time, in order, on a
+ * worker thread shared with other tables.
+ */
+public class Table {
+	/*
+	 * how many of the waiting players joined lists at most
+	 */
+	private static final int MAX_LISTED = 20;
+
+	private final PokerBot bot;
+	private final TableManager manager;
+	private final String channel;
+	private final Mailbox mailbox;
+
+	private final Lobby lobby = new Lobby(Constants.getConfig().getStakes(),
+			Constants.getConfig().getVariants());
+
+	/*
+	 * the games being played, by number, and the game each seated player
+	 * (keyed as in the lobby) is playing
+	 */
+	private final Map<Integer, Game> games = new LinkedHashMap<>();
+	private final Map<String, Game> seated = new HashMap<>();
+
+	/*
+	 * per stake, the games being played with seats to spare
+	 */
+	private final List<Set<Game>> freeSeats = new ArrayList<>();
+
+	private int nextGameId = 1;
+	private int nextComputerId = 1;
+
+	private final Renderer renderer = new Renderer();
+
+	/*
+	 * reused for taking players off the waitlists
+	 */
+	private final List<String> taken = new ArrayList<>(GameEngine.MAX_PLAYERS);
+
+	/*
+	 * whether this table has been removed from its manager
+	 */
+	private boolean closed = false;
+
+	Table(PokerBot bot, TableManager manager, String channel, Mailbox mailbox) {
+		this.bot = bot;
+		this.manager = manager;
+		this.channel = channel;
+		this.mailbox = mailbox;
+
+		for (int i = 0; i < lobby.getStakeCount(); i++)
+			freeSeats.add(new LinkedHashSet<>());
+	}
+
+	public String getChannel() {
+		return channel;
+	}
+
+	public int getGameCount() {
+		return games.size();
+	}
+
+	/*
+	 * Queues a task to be run on this table's mailbox.
+	 */
+	public void execute(Runnable task) {
+		mailbox.execute(task);
+	}
+
+	/*
+	 * the commands handled by tables, in the order they are listed in help
+	 */
+	static final CommandRegistry<Table> COMMANDS = new CommandRegistry<>(
+			Constants.CMD_PREFIX);
+
+	static {
+		COMMANDS.register(new Command<>("gamechan", Command.ADMIN
+				| Command.NO_GAME,
+				"Move this channel's game to the specified channel.",
+				Table::gamechan));
+
+		COMMANDS.register(new Command<>("join", 0,
+				"Wait for a seat, at the specified ante if several are offered"
+						+ " (after omaha for Pot-Limit Omaha).",
+				Table::join));
+
+		COMMANDS.register(new Command<>("unjoin", 0,
+				"Stop waiting for a seat.", Table::unjoin));
+
+		COMMANDS.register(new Command<>("joined", 0,
+				"Display who is waiting for a seat.", Table::joined));
+
+		COMMANDS.register(new Command<>("clear", Command.ADMIN,
+				"Clear the lists of players waiting for a seat.", Table::clear));
+
+		COMMANDS.register(new Command<>("start", Command.ADMIN,
+				"Start a game at the specified ante (after omaha for"
+						+ " Pot-Limit Omaha) with the players waiting, without"
+						+ " waiting for a full table.", Table::start));
+
+		COMMANDS.register(new Command<>("addbot", Command.ADMIN,
+				"Add a computer player to wait for a hold 'em seat, at the"
+						+ " specified ante if several are offered.",
+				Table::addbot));
+
+		COMMANDS.register(new Command<>("stop", Command.ADMIN | Command.GAME,
+				"Stop all games.", Table::stop));
+
+		COMMANDS.register(new Command<>("call", Command.TURN,
+				"Match the current bet.", act(Action.CALL)));
+
+		COMMANDS.register(new Command<>("check", Command.TURN,
+				"Raise nothing, pass on to the next player.", act(Action.CHECK)));
+
+		COMMANDS.register(new Command<>("raise", Command.TURN,
+				"Raise by the specified amount " + Colors.BOLD + "on top of"
+						+ Colors.NORMAL
+						+ " the last raise (which may have been 0).",
+				Table::raise));
+
+		COMMANDS.register(new Command<>("allin", Command.TURN,
+				"Bet all of your money.", act(Action.ALL_IN)));
+
+		COMMANDS.register(new Command<>("fold", Command.TURN,
+				"Discard your hand and forfeit. You can resume playing next hand.",
+				act(Action.FOLD)));
+
+		COMMANDS.register(new Command<>("cashout", Command.TURN,
+				"Quit the game, taking the fortunes you've won with you.",
+				act(Action.CASHOUT)));
+
+		COMMANDS.register(new Command<>("odds", Command.GAME,
+				"Privately receive your current chances of winning the hand,"
+						+ " and from the flop on, the hand you hold.",
+				Table::odds));
+	}
+
+	private static Command.Handler<Table> act(Action action) {
+		return (table, channel, sender, args) -> table.gameOf(sender)
+				.getEngine().act(action);
+	}
+
+	/*
+	 * Handles a channel command, whose sender has already been checked to be
+	 * an admin if need be; must be run on this table's mailbox.
+	 */
+	void onCommand(String sender, Command<Table> command, String[] args) {
+		if (closed) {
+			// the command raced with this table being torn down
+			manager.dispatch(channel, sender, command, args);
+			return;
+		}
+
+		final long start = System.nanoTime();
+
+		if (command.needsTurn()) {
+			if (canAct(sender))
+				command.handle(this, channel, sender, args);
+		} else if (command.needsGame() && games.isEmpty()) {
+			noGameInProgressMsg(channel, sender);
+		} else if (command.needsNoGame() && !games.isEmpty()) {
+			bot.sendReply(channel, sender, "A game is already in progress.");
+		} else {
+			command.handle(this, channel, sender, args);
+		}
+
+		closeIfIdle();
+		bot.getMetrics().command(command.getName()).recordSince(start);
+	}
+
+	/*
+	 * Runs a task of one of this table's games that was not prompted by a
+	 * command, such as a turn clock running out; must be run on this table's
+	 * mailbox.
+	 */
+	void onTimer(Runnable task) {
+		if (closed)
+			return;
+
+		task.run();
+		closeIfIdle();
+	}
+
+	private void closeIfIdle() {
+		if (games.isEmpty() && lobby.isEmpty())
+			close();
+	}
+
+	private void gamechan(String channel, String sender, String[] args) {
+		if (args.length == 0) {
+			bot.sendReply(channel, sender, "Specify a channel to move to.");
+			return;
+		}
+
+		if (args.length > 1)
+			bot.joinChannel(args[0], args[1]);
+		else
+			bot.joinChannel(args[0]);
+
+		bot.partChannel(channel);
+		close();
+	}
+
+	private void join(String channel, String sender, String[] args) {
+		if (gameOf(sender) != null) {
+			bot.sendReply(channel, sender, "You are already playing.",
+					Priority.LOW);
+			return;
+		}
+
+		if (lobby.isWaiting(sender)) {
+			bot.sendReply(channel, sender, "You have already joined.",
+					Priority.LOW);
+			return;
+		}
+
+		if (bot.getBankroll() != null && bot.getBankroll().isStaked(sender)) {
+			bot.sendReply(channel, sender, "You are already playing in another"
+					+ " channel.", Priority.LOW);
+			return;
+		}
+
+		final int stake = stakeOf(channel, sender, args);
+
+		if (stake < 0)
+			return;
+
+		lobby.join(sender, stake);
+
+		/*
+		 * the player joined at the back of the waitlist, so its length is
+		 * their position in it
+		 */
+		final int position = lobby.getWaitingCount(stake);
+
+		matchmake(stake);
+
+		if (lobby.isWaiting(sender)) {
+			bot.sendReply(channel, sender, "You have now joined! You are #"
+					+ position + " in line for a seat.", Priority.LOW);
+		}
+	}
+
+	private void unjoin(String channel, String sender, String[] args) {
+		if (gameOf(sender) != null) {
+			bot.sendReply(channel, sender,
+					"A game is in progress. Use cashout to leave it.");
+		} else if (lobby.leave(sender) >= 0) {
+			bot.sendReply(channel, sender, "You have unjoined.", Priority.LOW);
+		} else {
+			bot.sendReply(channel, sender, "You had never joined.",
+					Priority.LOW);
+		}
+	}
+
+	private void joined(String channel, String sender, String[] args) {
+		renderer.begin("");
+		boolean any = false;
+
+		for (int stake = 0; stake < lobby.getStakeCount(); stake++) {
+			final int waiting = lobby.getWaitingCount(stake);
+
+			if (waiting == 0)
+				continue;
+
+			if (any)
+				renderer.text(' ');
+
+			renderer.text("Waiting");
+
+			if (lobby.getStakeCount() > 1)
+				renderer.text(" at ").money(lobby.getAnte(stake));
+
+			if (lobby.getVariant(stake) != Variant.HOLDEM)
+				renderer.text(" (").text(lobby.getVariant(stake).toString())
+						.text(')');
+
+			renderer.text(": ").text(
+					String.join(", ", lobby.peek(stake, MAX_LISTED)));
+
+			if (waiting > MAX_LISTED)
+				renderer.text(" and ").number(waiting - MAX_LISTED)
+						.text(" more");
+
+			renderer.text('.');
+			any = true;
+		}
+
+		if (!any)
+			renderer.text("No joined players.");
+
+		if (!games.isEmpty())
+			renderer.text(" Games in progress: ").number(games.size())
+					.text('.');
+
+		bot.send(channel, renderer.toString(), Priority.LOW);
+	}
+
+	private void clear(String channel, String sender, String[] args) {
+		lobby.clear();
+		bot.send(channel, "Players list cleared.");
+	}
+
+	private void start(String channel, String sender, String[] args) {
+		final int stake = stakeOf(channel, sender, args);
+
+		if (stake < 0)
+			return;
+
+		final int waiting = lobby.getWaitingCount(stake);
+
+		if (waiting < GameEngine.MIN_PLAYERS) {
+			bot.sendReply(channel, sender,
+					"Need at least 2 players to join before starting.");
+			return;
+		}
+
+		open(stake, Math.min(waiting, tableSize(stake)));
+	}
+
+	private void addbot(String channel, String sender, String[] args) {
+		final int stake = stakeOf(channel, sender, args);
+
+		if (stake < 0)
+			return;
+
+		if (lobby.getVariant(stake) != Variant.HOLDEM) {
+			bot.sendReply(channel, sender,
+					"Computer players only play hold 'em.");
+			return;
+		}
+
+		String name = ComputerPlayers.name(nextComputerId++);
+
+		// those restored from checkpoints keep their names
+		while (gameOf(name) != null || lobby.isWaiting(name))
+			name = ComputerPlayers.name(nextComputerId++);
+
+		lobby.join(name, stake);
+		bot.send(channel, name + " has joined.", Priority.LOW);
+		matchmake(stake);
+	}
+
+	private void stop(String channel, String sender, String[] args) {
+		for (Game game : games.values())
+			game.stop();
+
+		games.clear();
+		seated.clear();
+
+		for (Set<Game> free : freeSeats)
+			free.clear();
+
+		bot.sendReply(channel, sender, "Game stopped.");
+	}
+
+	private void raise(String channel, String sender, String[] args) {
+		if (args.length == 0) {
+			bot.sendReply(channel, sender, "Specify an amount to raise by.");
+			return;
+		}
+
+		int newRaise;
+
+		try {
+			newRaise = Integer.parseInt(args[0]);
+		} catch (NumberFormatException nfe) {
+			bot.sendReply(channel, sender, "Malformed number: " + args[0] + ".");
+			return;
+		}
+
+		if (newRaise <= 0) {
+			bot.sendReply(channel, sender,
+					"Can only raise by a positive amount.");
+			return;
+		}
+
+		gameOf(sender).getEngine().act(Action.RAISE, newRaise);
+	}
+
+	private void odds(String channel, String sender, String[] args) {
+		final Game game = gameOf(sender);
+
+		if (game == null) {
+			bot.sendReply(channel, sender, "You are not playing this hand.");
+			return;
+		}
+
+		game.odds(sender);
+	}
+
+	/*
+	 * the stake named by a command's arguments, an ante optionally preceded by
+	 * omaha (or plo) for Pot-Limit Omaha (the first stake offered for the game
+	 * if they name no ante), or -1 after replying to the sender if it is not
+	 * offered
+	 */
+	private int stakeOf(String channel, String sender, String[] args) {
+		Variant variant = Variant.HOLDEM;
+		int anteArg = 0;
+
+		if (args.length > 0
+				&& (args[0].equalsIgnoreCase("omaha") || args[0]
+						.equalsIgnoreCase("plo"))) {
+			variant = Variant.OMAHA;
+			anteArg = 1;
+		}
+
+		int stake = -1;
+
+		if (args.length <= anteArg) {
+			stake = lobby.firstStake(variant);
+		} else {
+			try {
+				stake = lobby.stakeWithAnte(variant,
+						Integer.parseInt(args[anteArg]));
+			} catch (NumberFormatException nfe) {
+				// not a number, so not an ante offered either
+			}
+		}
+
+		if (stake < 0) {
+			bot.sendReply(channel, sender, "The antes offered are: "
+					+ antesOffered(Variant.HOLDEM) + "."
+					+ (lobby.firstStake(Variant.OMAHA) < 0 ? "" : " For "
+							+ Variant.OMAHA + " (omaha <ante>): "
+							+ antesOffered(Variant.OMAHA) + "."));
+		}
+
+		return stake;
+	}
+
+	private String antesOffered(Variant variant) {
+		final StringBuilder antes = new StringBuilder();
+
+		for (int i = 0; i < lobby.getStakeCount(); i++) {
+			if (lobby.getVariant(i) != variant)
+				continue;
+
+			if (antes.length() > 0)
+				antes.append(", ");
+
+			antes.append(lobby.getAnte(i));
+		}
+
+		return antes.toString();
+	}
+
+	/*
+	 * players seated per game at the stake: the configured table size, unless
+	 * the game cannot be dealt to that many
+	 */
+	private int tableSize(int stake) {
+		return tableSize(Constants.getConfig(), stake);
+	}
+
+	private int tableSize(Config config, int stake) {
+		return Math.min(config.getTableSize(), lobby.getVariant(stake)
+				.getMaxPlayers());
+	}
+
+	/*
+	 * Seats the players waiting at the given stake where possible: first in
+	 * the free seats of games already being played, then at new games as long
+	 * as enough are waiting to fill one. Each player seated costs constant
+	 * time.
+	 */
+	private void matchmake(int stake) {
+		final int tableSize = tableSize(stake);
+		final Iterator<Game> iter = freeSeats.get(stake).iterator();
+
+		while (iter.hasNext() && lobby.getWaitingCount(stake) > 0) {
+			final Game game = iter.next();
+			final GameEngine engine = game.getEngine();
+
+			taken.clear();
+			lobby.take(stake, tableSize - engine.getSeatCount(), taken);
+
+			for (int i = 0; i < taken.size(); i++) {
+				final String nick = taken.get(i);
+
+				if (seat(game, nick) && !ComputerPlayers.isComputer(nick))
+					bot.sendReply(channel, nick, "You have a seat"
+							+ (games.size() > 1 ? " at table " + game.getId()
+									: "")
+							+ ", and will be dealt in from the next hand.",
+							Priority.LOW);
+			}
+
+			game.checkpoint();
+
+			if (engine.getSeatCount() >= tableSize)
+				iter.remove();
+		}
+
+		while (lobby.getWaitingCount(stake) >= tableSize)
+			open(stake, tableSize);
+	}
+
+	/*
+	 * Starts a new game with the given number of players from the front of
+	 * the stake's waitlist.
+	 */
+	private void open(int stake, int players) {
+		final Game game = new Game(bot, this, nextGameId++, stake,
+				lobby.getVariant(stake), lobby.getAnte(stake));
+
+		final GameEngine engine = game.getEngine();
+
+		taken.clear();
+		lobby.take(stake, players, taken);
+
+		for (int i = 0; i < taken.size(); i++)
+			seat(game, taken.get(i));
+
+		/*
+		 * too many of them sat down elsewhere in the meantime: the others wait
+		 * again, and as those refused are not, matchmake cannot keep opening
+		 * games for them
+		 */
+		if (engine.getPlayers().size() < GameEngine.MIN_PLAYERS) {
+			for (Player player : engine.getPlayers()) {
+				seated.remove(Lobby.key(player.getName()));
+				lobby.join(player.getName(), stake);
+			}
+
+			game.stop();
+			return;
+		}
+
+		games.put(game.getId(), game);
+
+		if (engine.getSeatCount() < tableSize(stake))
+			freeSeats.get(stake).add(game);
+
+		engine.startGame();
+	}
+
+	/*
+	 * Seats a player taken off a waitlist at the given game, returning false
+	 * after telling them if they are already seated in another channel.
+	 */
+	private boolean seat(Game game, String nick) {
+		final boolean computer = ComputerPlayers.isComputer(nick);
+
+		if (game.getEngine().sitIn(nick, computer) == null) {
+			bot.sendReply(channel, nick, "You are already playing in another"
+					+ " channel.", Priority.LOW);
+			return false;
+		}
+
+		seated.put(Lobby.key(nick), game);
+		return true;
+	}
+
+	/*
+	 * Restores a game from the state in its checkpoint, to be resumed once the
+	 * bot is back in the channel. A checkpoint which cannot be restored is
+	 * deleted. Must be run on this table's mailbox.
+	 */
+	void restore(ByteBuffer state, CheckpointFile checkpoint) {
+		final Game game;
+
+		try {
+			final int id = state.getInt();
+			final int savedStake = state.getInt();
+			final Variant variant = Variant.values()[state.get()];
+			final int ante = state.getInt();
+
+			// the stakes offered may have changed since
+			int stake = savedStake < lobby.getStakeCount()
+					&& lobby.getVariant(savedStake) == variant ? savedStake
+					: lobby.stakeWithAnte(variant, ante);
+
+			if (stake < 0)
+				stake = lobby.firstStake(variant);
+
+			if (stake < 0)
+				throw new IllegalStateException(variant
+						+ " is no longer offered");
+
+			game = new Game(bot, this, id, stake, variant, ante, checkpoint);
+			game.getEngine().restoreState(state);
+		} catch (RuntimeException e) {
+			System.err.println("Could not restore checkpoint "
+					+ checkpoint.getFile() + ": " + e);
+			checkpoint.delete();
+			return;
+		}
+
+		final GameEngine engine = game.getEngine();
+		games.put(game.getId(), game);
+		nextGameId = Math.max(nextGameId, game.getId() + 1);
+
+		for (Player player : engine.getPlayers())
+			seated.put(Lobby.key(player.getName()), game);
+
+		for (Player player : engine.getArriving())
+			seated.put(Lobby.key(player.getName()), game);
+
+		if (engine.getSeatCount() < tableSize(game.getStake()))
+			freeSeats.get(game.getStake()).add(game);
+	}
+
+	/*
+	 * Carries on with the games restored from checkpoints; must be run on
+	 * this table's mailbox.
+	 */
+	void resume() {
+		if (closed)
+			return;
+
+		for (Game game : games.values())
+			game.resume();
+
+		closeIfIdle();
+	}
+
+	/*
+	 * Puts a reloaded configuration into effect: the games' antes change from
+	 * their next hands, and seats are given out by the new table size. A
+	 * different set of stakes only applies to tables opened from now on.
+	 */
+	void onConfigChanged(Config config) {
+		if (closed)
+			return;
+
+		lobby.setStakes(config.getStakes(), config.getVariants());
+
+		for (Game game : games.values()) {
+			game.onConfigChanged(config, lobby.getAnte(game.getStake()));
+
+			final Set<Game> free = freeSeats.get(game.getStake());
+
+			if (game.getEngine().getSeatCount() < tableSize(config,
+					game.getStake()))
+				free.add(game);
+			else
+				free.remove(game);
+		}
+
+		for (int stake = 0; stake < lobby.getStakeCount(); stake++)
+			matchmake(stake);
+	}
+
+	/*
+	 * A player left the game between hands: their seat is given to the next
+	 * player waiting.
+	 */
+	void onPlayerLeft(Game game, Player player) {
+		seated.remove(Lobby.key(player.getName()));
+		freeSeats.get(game.getStake()).add(game);
+		matchmake(game.getStake());
+	}
+
+	/*
+	 * The game ended for lack of players: those left are unseated, and may
+	 * join again.
+	 */
+	void onGameOver(Game game) {
+		for (Player player : game.getEngine().getPlayers())
+			seated.remove(Lobby.key(player.getName()));
+
+		games.remove(game.getId());
+		freeSeats.get(game.getStake()).remove(game);
+	}
+
+	/*
+	 * the game the player is seated at, or null if they are not seated
+	 */
+	private Game gameOf(String nick) {
+		return seated.get(Lobby.key(nick));
+	}
+
+	/*
+	 * Stops any games in progress, clears the lobby and removes this table
+	 * from its manager; must be run on this table's mailbox.
+	 */
+	void close() {
+		if (closed)
+			return;
+
+		for (Game game : games.values())
+			game.stop();
+
+		games.clear();
+		seated.clear();
+		lobby.clear();
+		closed = true;
+		manager.remove(this);
+	}
+
+	/*
+	 * whether the sender may act now, replying to them if not
+	 */
+	private boolean canAct(String sender) {
+		if (games.isEmpty()) {
+			noGameInProgressMsg(channel, sender);
+			return false;
+		}
+
+		final Game game = gameOf(sender);
+
+		if (game == null || !game.getEngine().isGameInProgress()
+				|| !game.getEngine().getCurrentPlayer().getName()
+						.equals(sender)) {
+			bot.sendReply(channel, sender, "It's not your turn!");
+			return false;
+		}
+
+		return true;
+	}
+
+	private void noGameInProgressMsg(String channel, String sender) {
+		bot.sendReply(channel, sender, "No game is currently in progress.");
+	}
+}
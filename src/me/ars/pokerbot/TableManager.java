@@ -0,0 +1,112 @@
+package me.ars.pokerbot;
+
+import java.nio.ByteBuffer;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Tracks the tables of every channel. Tables are created on the first command
+ * issued in a channel and remove themselves once they have neither a game in
+ * progress nor joined players.
+ */
+public class TableManager {
+	private final PokerBot bot;
+	private final Executor executor;
+
+	/*
+	 * tables by lower-cased channel name (channel names are case insensitive)
+	 */
+	private final ConcurrentMap<String, Table> tables = new ConcurrentHashMap<>();
+
+	public TableManager(PokerBot bot, Executor executor) {
+		this.bot = bot;
+		this.executor = executor;
+	}
+
+	/*
+	 * An executor with one daemon thread per core, on which the mailboxes of
+	 * all tables are run.
+	 */
+	public static ExecutorService newDefaultExecutor() {
+		final AtomicInteger threadCount = new AtomicInteger();
+
+		return Executors.newFixedThreadPool(Runtime.getRuntime()
+				.availableProcessors(), r -> {
+			final Thread thread = new Thread(r, "table-worker-"
+					+ threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	public Table get(String channel) {
+		return tables.get(key(channel));
+	}
+
+	public int size() {
+		return tables.size();
+	}
+
+	/*
+	 * Hands a channel command to the channel's table, creating it if needed.
+	 */
+	public void dispatch(String channel, String sender,
+			Command<Table> command, String[] args) {
+		final Table table = getOrCreate(channel);
+		table.execute(() -> table.onCommand(sender, command, args));
+	}
+
+	/*
+	 * Hands a game restored from its checkpoint to its channel's table,
+	 * creating the table if needed.
+	 */
+	public void restore(String channel, ByteBuffer state,
+			CheckpointFile checkpoint) {
+		final Table table = getOrCreate(channel);
+		table.execute(() -> table.restore(state, checkpoint));
+	}
+
+	/*
+	 * Carries on with every game restored.
+	 */
+	public void resume() {
+		for (Table table : tables.values())
+			table.execute(table::resume);
+	}
+
+	private Table getOrCreate(String channel) {
+		return tables.computeIfAbsent(key(channel), k -> new Table(bot, this,
+				channel, new Mailbox(executor)));
+	}
+
+	/*
+	 * Hands a reloaded configuration to every table.
+	 */
+	public void configChanged(Config config) {
+		for (Table table : tables.values())
+			table.execute(() -> table.onConfigChanged(config));
+	}
+
+	/*
+	 * Tears down the table of a channel the bot is no longer in, if any.
+	 */
+	public void discard(String channel) {
+		final Table table = get(channel);
+
+		if (table != null)
+			table.execute(table::close);
+	}
+
+	void remove(Table table) {
+		tables.remove(key(table.getChannel()), table);
+	}
+
+	private static String key(String channel) {
+		return channel.toLowerCase(Locale.ROOT);
+	}
+}
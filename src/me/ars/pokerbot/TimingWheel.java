@@ -0,0 +1,251 @@
+package me.ars.pokerbot;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ * A hashed timing wheel: schedules any number of timeouts on a single thread,
+ * at the cost of rounding their deadlines up to the next tick.
+ *
+ * Timeouts are hashed by deadline into a ring of buckets, one per tick, and
+ * the wheel's thread expires one bucket per tick; timeouts due more than a
+ * full turn of the wheel away wait out the remaining rounds in their bucket.
+ * Scheduling and cancelling only queue the timeout for the wheel's thread, so
+ * both take constant time and never contend on a lock, however many timeouts
+ * are pending.
+ *
+ * Tasks are run on the wheel's thread and hold up every other timeout while
+ * they run: they should do no more than hand work over to another executor.
+ */
+public class TimingWheel {
+	/*
+	 * maximum number of newly scheduled timeouts put into buckets per tick,
+	 * so that a burst of them cannot stall the wheel
+	 */
+	private static final int MAX_TRANSFERS_PER_TICK = 100000;
+
+	private final long tickNanos;
+	private final Bucket[] wheel;
+	private final int mask;
+
+	private final Queue<Timeout> scheduled = new ConcurrentLinkedQueue<>();
+	private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+
+	private final long startNanos = System.nanoTime();
+
+	/*
+	 * ticks elapsed since the wheel started; only used by its thread
+	 */
+	private long tick = 0;
+
+	/*
+	 * @param wheelSize the number of buckets, rounded up to a power of two
+	 */
+	public TimingWheel(long tickDuration, TimeUnit unit, int wheelSize) {
+		if (tickDuration <= 0 || wheelSize <= 0)
+			throw new IllegalArgumentException();
+
+		this.tickNanos = unit.toNanos(tickDuration);
+
+		int size = 1;
+
+		while (size < wheelSize)
+			size <<= 1;
+
+		this.wheel = new Bucket[size];
+		this.mask = size - 1;
+
+		for (int i = 0; i < wheel.length; i++)
+			wheel[i] = new Bucket();
+
+		final Thread thread = new Thread(this::run, "timing-wheel");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/*
+	 * Runs the task once the given delay has passed, unless the returned
+	 * timeout is cancelled first.
+	 */
+	public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+		final Timeout timeout = new Timeout(this, task, System.nanoTime()
+				+ unit.toNanos(delay));
+		scheduled.add(timeout);
+		return timeout;
+	}
+
+	private void run() {
+		while (true) {
+			final long deadline = startNanos + (tick + 1) * tickNanos;
+			long wait;
+
+			while ((wait = deadline - System.nanoTime()) > 0)
+				LockSupport.parkNanos(this, wait);
+
+			removeCancelled();
+			transferScheduled();
+			wheel[(int) (tick & mask)].expire();
+			tick++;
+		}
+	}
+
+	private void transferScheduled() {
+		for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+			final Timeout timeout = scheduled.poll();
+
+			if (timeout == null)
+				return;
+
+			if (timeout.state != Timeout.PENDING)
+				continue;
+
+			// the tick the timeout is due in, unless it is already overdue
+			final long due = Math.max(divideUp(timeout.deadline - startNanos,
+					tickNanos) - 1, tick);
+
+			timeout.remainingRounds = (due - tick) / wheel.length;
+			wheel[(int) (due & mask)].add(timeout);
+		}
+	}
+
+	private void removeCancelled() {
+		Timeout timeout;
+
+		while ((timeout = cancelled.poll()) != null) {
+			if (timeout.bucket != null)
+				timeout.bucket.remove(timeout);
+		}
+	}
+
+	private static long divideUp(long a, long b) {
+		return a <= 0 ? 0 : (a + b - 1) / b;
+	}
+
+	/*
+	 * A scheduled task, which can be cancelled until it has been run.
+	 */
+	public static final class Timeout {
+		private static final int PENDING = 0;
+		private static final int CANCELLED = 1;
+		private static final int EXPIRED = 2;
+
+		private static final AtomicIntegerFieldUpdater<Timeout> STATE = AtomicIntegerFieldUpdater
+				.newUpdater(Timeout.class, "state");
+
+		private final TimingWheel timingWheel;
+		private final Runnable task;
+		private final long deadline;
+
+		private volatile int state = PENDING;
+
+		/*
+		 * where the timeout sits in the wheel; only used by the wheel's thread
+		 */
+		private long remainingRounds;
+		private Bucket bucket;
+		private Timeout prev;
+		private Timeout next;
+
+		private Timeout(TimingWheel timingWheel, Runnable task, long deadline) {
+			this.timingWheel = timingWheel;
+			this.task = task;
+			this.deadline = deadline;
+		}
+
+		/*
+		 * Cancels the timeout, returning false if it had already been run or
+		 * cancelled.
+		 */
+		public boolean cancel() {
+			if (!STATE.compareAndSet(this, PENDING, CANCELLED))
+				return false;
+
+			timingWheel.cancelled.add(this);
+			return true;
+		}
+
+		public boolean isCancelled() {
+			return state == CANCELLED;
+		}
+
+		public boolean isExpired() {
+			return state == EXPIRED;
+		}
+
+		private void expire() {
+			if (!STATE.compareAndSet(this, PENDING, EXPIRED))
+				return;
+
+			try {
+				task.run();
+			} catch (RuntimeException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/*
+	 * the timeouts hashed to one tick of the wheel, as a doubly linked list so
+	 * that cancelled ones can be taken out in constant time
+	 */
+	private static final class Bucket {
+		private Timeout head;
+		private Timeout tail;
+
+		void add(Timeout timeout) {
+			timeout.bucket = this;
+
+			if (head == null) {
+				head = tail = timeout;
+			} else {
+				tail.next = timeout;
+				timeout.prev = tail;
+				tail = timeout;
+			}
+		}
+
+		void remove(Timeout timeout) {
+			final Timeout next = timeout.next;
+
+			if (timeout.prev != null)
+				timeout.prev.next = next;
+			else
+				head = next;
+
+			if (next != null)
+				next.prev = timeout.prev;
+			else
+				tail = timeout.prev;
+
+			timeout.prev = null;
+			timeout.next = null;
+			timeout.bucket = null;
+		}
+
+		/*
+		 * Runs the timeouts due this tick, and counts down the rounds of the
+		 * others.
+		 */
+		void expire() {
+			Timeout timeout = head;
+
+			while (timeout != null) {
+				final Timeout next = timeout.next;
+
+				if (timeout.remainingRounds <= 0) {
+					remove(timeout);
+					timeout.expire();
+				} else if (timeout.isCancelled()) {
+					remove(timeout);
+				} else {
+					timeout.remainingRounds--;
+				}
+
+				timeout = next;
+			}
+		}
+	}
+}
@@ -0,0 +1,51 @@
+package me.ars.pokerbot;
+
+/*
+ * Token bucket rate limiter: holds up to capacity tokens, and regains one token
+ * every refillNanos nanoseconds. Not thread-safe.
+ */
+public class TokenBucket {
+	private final int capacity;
+	private final long refillNanos;
+
+	private double tokens;
+	private long lastRefill;
+
+	public TokenBucket(int capacity, long refillNanos, long now) {
+		this.capacity = capacity;
+		this.refillNanos = refillNanos;
+		this.tokens = capacity;
+		this.lastRefill = now;
+	}
+
+	private void refill(long now) {
+		tokens = Math.min(capacity, tokens + (double) (now - lastRefill)
+				/ refillNanos);
+		lastRefill = now;
+	}
+
+	public boolean isAvailable(long now) {
+		refill(now);
+		return tokens >= 1;
+	}
+
+	/*
+	 * Takes a token; must only be called when one is available.
+	 */
+	public void take() {
+		tokens -= 1;
+	}
+
+	/*
+	 * time until a token will be available
+	 */
+	public long nanosUntilAvailable(long now) {
+		refill(now);
+		return tokens >= 1 ? 0 : (long) ((1 - tokens) * refillNanos);
+	}
+
+	public boolean isFull(long now) {
+		refill(now);
+		return tokens >= capacity;
+	}
+}
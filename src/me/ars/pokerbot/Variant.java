@@ -0,0 +1,52 @@
+package me.ars.pokerbot;
+
+/*
+ * The games a table can deal: how many hole cards each player gets, how hands
+ * are made from them, and how much a player may raise.
+ */
+public enum Variant {
+	/*
+	 * no-limit Texas hold 'em: the best five of the player's two cards and the
+	 * board
+	 */
+	HOLDEM("hold 'em", 2, false),
+
+	/*
+	 * Pot-Limit Omaha: exactly two of the player's four cards with exactly
+	 * three of the board, and raises of at most the pot
+	 */
+	OMAHA("Pot-Limit Omaha", 4, true);
+
+	private final String name;
+	private final int holeCards;
+	private final boolean potLimit;
+
+	private Variant(String name, int holeCards, boolean potLimit) {
+		this.name = name;
+		this.holeCards = holeCards;
+		this.potLimit = potLimit;
+	}
+
+	public int getHoleCards() {
+		return holeCards;
+	}
+
+	/*
+	 * whether raises are limited to the size of the pot
+	 */
+	public boolean isPotLimit() {
+		return potLimit;
+	}
+
+	/*
+	 * the most players a single deck can be dealt to, board included
+	 */
+	public int getMaxPlayers() {
+		return Math.min(GameEngine.MAX_PLAYERS, (Deck.SIZE - 5) / holeCards);
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+}
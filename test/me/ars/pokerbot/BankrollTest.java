@@ -0,0 +1,122 @@
+package me.ars.pokerbot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BankrollTest {
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private Bankroll bankroll;
+
+	@Before
+	public void open() throws IOException {
+		bankroll = Bankroll.open(folder.newFolder("bankroll"));
+	}
+
+	@After
+	public void close() {
+		bankroll.close();
+	}
+
+	@Test
+	public void stakingTheSameNickTwiceIsRefused() {
+		assertEquals(200, bankroll.stake("Alice", 200));
+		assertTrue(bankroll.isStaked("alice"));
+
+		// nicks are case-insensitive
+		assertEquals(-1, bankroll.stake("alice", 200));
+		assertEquals(-1, bankroll.stake("ALICE", 200));
+		assertEquals(200, bankroll.getBalance("alice"));
+	}
+
+	@Test
+	public void releasedStakeCanBeStakedAgain() {
+		assertEquals(200, bankroll.stake("alice", 200));
+		bankroll.bet("alice", 150);
+		bankroll.release("alice");
+
+		assertFalse(bankroll.isStaked("alice"));
+		assertEquals(50, bankroll.stake("alice", 200));
+	}
+
+	@Test
+	public void secondSeatInAnotherGameIsRefused() {
+		final GameEngine first = new GameEngine(new GameListener() {
+		}, 200, 5);
+		final GameEngine second = new GameEngine(new GameListener() {
+		}, 200, 5);
+
+		first.setBankroll(bankroll);
+		second.setBankroll(bankroll);
+
+		assertNotNull(first.addPlayer("alice"));
+		assertNotNull(first.addPlayer("bob"));
+		first.startGame();
+
+		assertNotNull(second.addPlayer("carol"));
+		assertNull(second.addPlayer("Alice"));
+		assertNull(second.sitIn("bob"));
+		assertEquals(1, second.getSeatCount());
+
+		// losing at the first game cannot take the balance below zero
+		bankroll.bet("alice", 200);
+		first.stopGame();
+
+		assertFalse(bankroll.isStaked("alice"));
+		assertEquals(200, bankroll.stake("alice", 200));
+		assertEquals(200, bankroll.getBalance("alice"));
+	}
+
+	@Test
+	public void restoredGameSetsBalancesToItsMoney() throws IOException {
+		final Bankroll played = Bankroll.open(folder.newFolder("played"));
+		final GameEngine engine = new GameEngine(new GameListener() {
+		}, 200, 5);
+
+		engine.setBankroll(played);
+		engine.addPlayer("alice");
+		engine.addPlayer("bob");
+		engine.startGame();
+		engine.act(GameEngine.Action.RAISE, 20);
+
+		final ByteBuffer state = ByteBuffer.allocate(CheckpointFile.CAPACITY);
+		engine.saveState(state);
+		state.flip();
+		played.close();
+
+		// the antes and the raise were lost with the process
+		assertEquals(200, bankroll.stake("alice", 200));
+		assertEquals(200, bankroll.stake("bob", 200));
+		bankroll.release("alice");
+		bankroll.release("bob");
+
+		final GameEngine restored = new GameEngine(new GameListener() {
+		}, 200, 5);
+		restored.setBankroll(bankroll);
+		restored.restoreState(state);
+
+		long total = restored.getPot();
+
+		for (Player player : restored.getPlayers()) {
+			assertEquals(player.getMoney(),
+					bankroll.getBalance(player.getName()));
+			assertTrue(bankroll.isStaked(player.getName()));
+			total += bankroll.getBalance(player.getName());
+		}
+
+		assertEquals(400, total);
+	}
+}
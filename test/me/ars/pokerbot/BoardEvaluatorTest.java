@@ -0,0 +1,83 @@
+package me.ars.pokerbot;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class BoardEvaluatorTest {
+	private static final int FLUSH = Hand.HandType.FLUSH.ordinal();
+
+	@Test
+	public void everyStreetMatchesHandEvaluator() {
+		final BoardEvaluator evaluator = new BoardEvaluator();
+		final BoardEvaluator fromTurn = new BoardEvaluator();
+		final Random random = new Random(3);
+
+		for (int i = 0; i < 100000; i++) {
+			final long hole = HandEvaluatorTest.deal(random, 2);
+			final Card[] board = new Card[5];
+			long dealt = hole;
+
+			for (int j = 0; j < board.length; j++) {
+				do {
+					board[j] = Card.of(random.nextInt(52));
+				} while (CardSet.contains(dealt, board[j]));
+
+				dealt |= board[j].getMask();
+			}
+
+			evaluator.set(CardSet.of(board[0], board[1], board[2]));
+			check(evaluator, hole);
+			evaluator.add(board[3]);
+			check(evaluator, hole);
+			fromTurn.set(evaluator.getBoard());
+			evaluator.add(board[4]);
+			check(evaluator, hole);
+			fromTurn.add(board[4]);
+			check(fromTurn, hole);
+			fromTurn.set(evaluator.getBoard());
+			check(fromTurn, hole);
+		}
+	}
+
+	private static void check(BoardEvaluator evaluator, long hole) {
+		final long cards = evaluator.getBoard() | hole;
+
+		assertEquals(CardSet.toString(cards), HandEvaluator.evaluate(cards),
+				evaluator.evaluate(hole));
+	}
+
+	@Test
+	public void flushSuitFollowsTheCardsLanding() {
+		final BoardEvaluator evaluator = new BoardEvaluator();
+		final long hole = CardSet.of(Card.parse("Kh"), Card.parse("2h"));
+
+		evaluator.set(CardSet.of(Card.parse("9h"), Card.parse("7c"),
+				Card.parse("4s")));
+		evaluator.add(Card.parse("Jh"));
+		evaluator.add(Card.parse("3h"));
+
+		assertEquals(5, evaluator.size());
+		assertEquals(FLUSH, HandEvaluator.type(evaluator.evaluate(hole)));
+	}
+
+	@Test
+	public void clearEmptiesTheBoard() {
+		final BoardEvaluator evaluator = new BoardEvaluator();
+
+		evaluator.set(CardSet.of(Card.parse("9h"), Card.parse("Th"),
+				Card.parse("Jh")));
+		evaluator.clear();
+
+		assertEquals(0, evaluator.size());
+		assertEquals(CardSet.EMPTY, evaluator.getBoard());
+
+		evaluator.add(Card.parse("9c"));
+		evaluator.add(Card.parse("4d"));
+		evaluator.add(Card.parse("Jh"));
+
+		check(evaluator, CardSet.of(Card.parse("Qh"), Card.parse("Kh")));
+	}
+}
@@ -0,0 +1,154 @@
+package me.ars.pokerbot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class HandEvaluatorTest {
+	private static final int STRAIGHT = Hand.HandType.STRAIGHT.ordinal();
+	private static final int STRAIGHT_FLUSH = Hand.HandType.STRAIGHT_FLUSH
+			.ordinal();
+
+	/*
+	 * number of five-card hands making each type of hand, from high card to
+	 * straight flush
+	 */
+	private static final long[] FIVE_CARD_DISTRIBUTION = { 1302540L,
+			1098240L, 123552L, 54912L, 10200L, 5108L, 3744L, 624L, 40L };
+
+	private static int evaluate(String cards) {
+		final String[] names = cards.split(" ");
+		final Card[] parsed = new Card[names.length];
+
+		for (int i = 0; i < names.length; i++)
+			parsed[i] = Card.parse(names[i]);
+
+		return HandEvaluator.evaluate(parsed);
+	}
+
+	@Test
+	public void everyStraightIsFound() {
+		final String values = "A23456789TJQKA";
+
+		for (int low = 0; low + 5 <= values.length(); low++) {
+			final String suits = "shdcs";
+			final StringBuilder cards = new StringBuilder();
+
+			for (int i = 0; i < 5; i++) {
+				cards.append(values.charAt(low + i)).append(suits.charAt(i))
+						.append(' ');
+			}
+
+			final int strength = evaluate(cards.toString().trim());
+
+			assertEquals(cards.toString(), STRAIGHT,
+					HandEvaluator.type(strength));
+			// the top card, as a rank index (0 = deuce)
+			assertEquals(cards.toString(), low + 3,
+					HandEvaluator.rankAt(strength, 0));
+		}
+	}
+
+	@Test
+	public void wheelIsTheLowestStraight() {
+		final int wheel = evaluate("Ah 2c 3d 4s 5h 9c Kd");
+		final int sixHigh = evaluate("2c 3d 4s 5h 6c 9c Kd");
+
+		assertEquals(STRAIGHT, HandEvaluator.type(wheel));
+		assertEquals(3, HandEvaluator.rankAt(wheel, 0));
+		assertEquals(12, HandEvaluator.rankAt(wheel, 4));
+		assertTrue(wheel < sixHigh);
+		assertTrue(wheel > evaluate("Ah Ac Ad 4s 5h 9c Kd"));
+	}
+
+	@Test
+	public void straightIsFoundAmongPairs() {
+		final int strength = evaluate("9c Th Jd Jc Qs Ks Kh");
+
+		assertEquals(STRAIGHT, HandEvaluator.type(strength));
+		assertEquals(11, HandEvaluator.rankAt(strength, 0));
+	}
+
+	@Test
+	public void steelWheelIsTheLowestStraightFlush() {
+		final int steelWheel = evaluate("As 2s 3s 4s 5s 6h Kd");
+
+		assertEquals(STRAIGHT_FLUSH, HandEvaluator.type(steelWheel));
+		assertEquals(3, HandEvaluator.rankAt(steelWheel, 0));
+		assertTrue(steelWheel < evaluate("2s 3s 4s 5s 6s 9c Kd"));
+		assertTrue(steelWheel > evaluate("Ac Ad Ah As 5s 6h Kd"));
+	}
+
+	@Test
+	public void everyFiveCardHandIsCounted() {
+		final long[] counts = new long[FIVE_CARD_DISTRIBUTION.length];
+
+		for (int c0 = 0; c0 < 52; c0++) {
+			for (int c1 = c0 + 1; c1 < 52; c1++) {
+				for (int c2 = c1 + 1; c2 < 52; c2++) {
+					for (int c3 = c2 + 1; c3 < 52; c3++) {
+						for (int c4 = c3 + 1; c4 < 52; c4++) {
+							counts[HandEvaluator.type(HandEvaluator
+									.evaluate(CardSet.of(c0, c1, c2, c3, c4)))]++;
+						}
+					}
+				}
+			}
+		}
+
+		for (int type = 0; type < counts.length; type++) {
+			assertEquals(Hand.HandType.values()[type].name(),
+					FIVE_CARD_DISTRIBUTION[type], counts[type]);
+		}
+	}
+
+	@Test
+	public void sampledSevenCardHandsMatchTheDistribution() {
+		final int samples = 500000;
+		final long[] counts = new long[EvaluatorVerifier.DISTRIBUTION.length];
+		final Random random = new Random(7);
+
+		for (int i = 0; i < samples; i++)
+			counts[HandEvaluator.type(HandEvaluator.evaluate(deal(random, 7)))]++;
+
+		for (int type = 0; type < counts.length; type++) {
+			final double p = (double) EvaluatorVerifier.DISTRIBUTION[type]
+					/ EvaluatorVerifier.COMBINATIONS;
+			final double expected = samples * p;
+			// five standard deviations
+			final double tolerance = 5 * Math.sqrt(expected * (1 - p)) + 1;
+
+			assertEquals(Hand.HandType.values()[type].name(), expected,
+					counts[type], tolerance);
+		}
+	}
+
+	@Test
+	public void sampledHandsMatchTheReferenceEvaluator() {
+		final EvaluatorVerifier.ReferenceEvaluator reference =
+				new EvaluatorVerifier.ReferenceEvaluator();
+		final Random random = new Random(5);
+
+		for (int i = 0; i < 100000; i++) {
+			final long cards = deal(random, 5 + i % 3);
+
+			assertEquals(CardSet.toString(cards), reference.evaluate(cards),
+					HandEvaluator.evaluate(cards));
+		}
+	}
+
+	/*
+	 * the given number of distinct random cards
+	 */
+	static long deal(Random random, int count) {
+		long cards = CardSet.EMPTY;
+
+		while (CardSet.count(cards) < count)
+			cards = CardSet.with(cards, random.nextInt(52));
+
+		return cards;
+	}
+}
@@ -0,0 +1,103 @@
+package me.ars.pokerbot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class HandHistoryTest {
+	private static final int HANDS = 20;
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void omahaHandsAreRecordedWithAllTheirCards() throws IOException {
+		final File directory = folder.newFolder("history");
+		final HandHistoryWriter writer = new HandHistoryWriter(directory);
+
+		// the cards dealt in the first hand, by player
+		final Map<String, List<Integer>> dealt = new HashMap<>();
+		final int[] decided = new int[1];
+
+		final GameEngine engine = new GameEngine(new GameListener() {
+			@Override
+			public void onCardsDealt(Player player, List<Card> cards) {
+				if (decided[0] > 0)
+					return;
+
+				final List<Integer> indices = new ArrayList<>();
+
+				for (Card card : cards)
+					indices.add(card.getIndex());
+
+				dealt.put(player.getName(), indices);
+			}
+
+			@Override
+			public void onWinByFold(Player winner, int pot) {
+				decided[0]++;
+			}
+
+			@Override
+			public void onShowdown(List<Hand> winners, int share) {
+				decided[0]++;
+			}
+		}, 200, 5);
+
+		engine.setVariant(Variant.OMAHA);
+		engine.addListener(new HandRecorder(engine, "#test/1", writer));
+		engine.addPlayer("alice");
+		engine.addPlayer("bob");
+		engine.addPlayer("carol");
+		engine.startGame();
+
+		for (int i = 0; i < 1000 && decided[0] < HANDS
+				&& engine.isGameInProgress(); i++)
+			engine.act(GameEngine.Action.CALL);
+
+		final int hands = decided[0];
+		engine.stopGame();
+		writer.close();
+
+		final RecordedHand hand = new RecordedHand();
+		int read = 0;
+
+		try (HandHistoryReader reader = new HandHistoryReader(directory)) {
+			while (reader.next(hand)) {
+				assertEquals(Variant.OMAHA, hand.getVariant());
+				assertEquals(4, hand.getHoleCardCount());
+
+				if (read++ > 0)
+					continue;
+
+				for (int seat = 0; seat < hand.getPlayerCount(); seat++) {
+					final List<Integer> cards = dealt.get(hand.getName(seat));
+
+					for (int i = 0; i < 4; i++)
+						assertEquals((int) cards.get(i),
+								hand.getHoleCard(seat, i));
+				}
+			}
+		}
+
+		assertTrue(hands > 0);
+		assertEquals(hands, read);
+
+		final HandAnalytics.Report report = new HandAnalytics(directory)
+				.run(ForkJoinPool.commonPool());
+
+		assertEquals(hands, report.getHands());
+		assertEquals(hands, report.getOmahaHands());
+	}
+}
@@ -0,0 +1,63 @@
+package me.ars.pokerbot;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class HandTest {
+	private static Card[] cards(String cards) {
+		final String[] names = cards.split(" ");
+		final Card[] parsed = new Card[names.length];
+
+		for (int i = 0; i < names.length; i++)
+			parsed[i] = Card.parse(names[i]);
+
+		return parsed;
+	}
+
+	@Test
+	public void wheelShowsTheAceLast() {
+		final Hand hand = Hand.getBestHand(null, cards("Ah 2c 3d 4s 5h 9c Kd"));
+
+		assertEquals(Hand.HandType.STRAIGHT, hand.getHandType());
+		assertArrayEquals(cards("5h 4s 3d 2c Ah"), hand.getCards());
+	}
+
+	@Test
+	public void straightShowsOneCardOfEachValue() {
+		final Hand hand = Hand.getBestHand(null, cards("9c Th Jd Jc Qs Ks Kh"));
+
+		assertEquals(Hand.HandType.STRAIGHT, hand.getHandType());
+		assertArrayEquals(cards("Ks Qs Jd Th 9c"), hand.getCards());
+	}
+
+	@Test
+	public void straightFlushShowsTheFlushSuit() {
+		final Hand hand = Hand.getBestHand(null, cards("As 2s 3s 4s 5s 5h Ad"));
+
+		assertEquals(Hand.HandType.STRAIGHT_FLUSH, hand.getHandType());
+		assertArrayEquals(cards("5s 4s 3s 2s As"), hand.getCards());
+	}
+
+	@Test
+	public void fullHouseShowsTripsThenPair() {
+		final Hand hand = Hand.getBestHand(null, cards("2c 2d 2h 9s 9c Kd Kh"));
+
+		assertEquals(Hand.HandType.FULL_HOUSE, hand.getHandType());
+		assertArrayEquals(cards("2c 2d 2h Kd Kh"), hand.getCards());
+	}
+
+	@Test
+	public void handsCompareByStrength() {
+		final Hand straight = Hand.getBestHand(null,
+				cards("Ah 2c 3d 4s 5h 9c Kd"));
+		final Hand trips = Hand.getBestHand(null, cards("Ah Ac Ad 4s 6h 9c Kd"));
+
+		assertTrue(straight.compareTo(trips) > 0);
+		assertTrue(trips.compareTo(straight) < 0);
+		assertEquals(0, straight.compareTo(Hand.getBestHand(null,
+				cards("Ac 2d 3h 4c 5s 9h Ks"))));
+	}
+}
@@ -0,0 +1,94 @@
+package me.ars.pokerbot;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class OmahaEvaluatorTest {
+	private static long cards(String cards) {
+		long set = CardSet.EMPTY;
+
+		for (String name : cards.split(" "))
+			set |= Card.parse(name).getMask();
+
+		return set;
+	}
+
+	@Test
+	public void handUsesExactlyTwoHoleCards() {
+		final OmahaEvaluator evaluator = new OmahaEvaluator();
+
+		// a single spade in the hole makes no flush on four spades
+		evaluator.set(cards("As Ks Qs Js 2d"));
+		assertEquals(Hand.HandType.ONE_PAIR.ordinal(),
+				HandEvaluator.type(evaluator.evaluate(cards("Ts 2c 7h 8d"))));
+
+		// nor do four aces in the hole make quads
+		evaluator.set(cards("2c 7d 9h"));
+		assertEquals(Hand.HandType.ONE_PAIR.ordinal(),
+				HandEvaluator.type(evaluator.evaluate(cards("Ac Ad Ah As"))));
+	}
+
+	@Test
+	public void randomHandsMatchBruteForce() {
+		final OmahaEvaluator evaluator = new OmahaEvaluator();
+		final EvaluatorVerifier.ReferenceEvaluator reference =
+				new EvaluatorVerifier.ReferenceEvaluator();
+		final Random random = new Random(11);
+
+		for (int i = 0; i < 50000; i++) {
+			// every other hand is dealt from two suits, for flushes
+			final long deck = i % 2 == 0 ? CardSet.FULL_DECK : suit(random
+					.nextInt(4)) | suit(random.nextInt(4));
+			final long hole = deal(random, deck, 4);
+			final long board = deal(random, deck & ~hole, 5);
+
+			evaluator.clear();
+
+			for (Card card : CardSet.toCards(board)) {
+				evaluator.add(card);
+
+				if (evaluator.size() < 3)
+					continue;
+
+				final long all = hole | evaluator.getBoard();
+				final int strength = evaluator.evaluate(hole);
+
+				assertEquals(CardSet.toString(all), reference.evaluateOmaha(
+						hole, evaluator.getBoard()), strength);
+
+				final long shown = CardSet.of(evaluator.bestHand(hole,
+						strength));
+
+				assertEquals(CardSet.toString(all), 2,
+						CardSet.count(shown & hole));
+				assertEquals(CardSet.toString(all), 3,
+						CardSet.count(shown & evaluator.getBoard()));
+				assertEquals(CardSet.toString(all), strength,
+						HandEvaluator.evaluate(shown));
+			}
+		}
+	}
+
+	private static long suit(int suit) {
+		return (long) HandEvaluator.RANK_MASK << (13 * suit);
+	}
+
+	/*
+	 * the given number of distinct random cards out of a deck
+	 */
+	private static long deal(Random random, long deck, int count) {
+		long cards = CardSet.EMPTY;
+
+		while (CardSet.count(cards) < count) {
+			final int card = random.nextInt(52);
+
+			if (CardSet.contains(deck, card))
+				cards = CardSet.with(cards, card);
+		}
+
+		return cards;
+	}
+}